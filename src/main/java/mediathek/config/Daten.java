@@ -9,6 +9,7 @@ import mediathek.SplashScreen;
 import mediathek.controller.IoXmlLesen;
 import mediathek.controller.IoXmlSchreiben;
 import mediathek.controller.history.AboHistoryController;
+import mediathek.controller.history.SeenHistoryController;
 import mediathek.controller.starter.StarterClass;
 import mediathek.daten.*;
 import mediathek.daten.blacklist.ListeBlacklist;
@@ -74,6 +75,7 @@ public class Daten {
     private AboHistoryController erledigteAbos;
     private boolean alreadyMadeBackup;
     private ListenableFuture<AboHistoryController> aboHistoryFuture;
+    private ListenableFuture<SeenHistoryController> seenHistoryFuture;
 
     private Daten() {
         listeFilme = new ListeFilme();
@@ -200,6 +202,8 @@ public class Daten {
     public void launchHistoryDataLoading() {
         logger.trace("launching async history data loading");
         aboHistoryFuture = launchAboHistoryController(decoratedPool);
+        // load the seen index now and not on the EDT when the film tab or its renderer first need it
+        seenHistoryFuture = decoratedPool.submit(SeenHistoryController::getInstance);
     }
 
     private ListenableFuture<AboHistoryController> launchAboHistoryController(ListeningExecutorService decoratedPool) {
@@ -222,6 +226,8 @@ public class Daten {
     public void waitForHistoryDataLoadingToComplete() throws ExecutionException, InterruptedException {
         aboHistoryFuture.get();
         aboHistoryFuture = null;
+        seenHistoryFuture.get();
+        seenHistoryFuture = null;
     }
 
     private void clearKonfig() {
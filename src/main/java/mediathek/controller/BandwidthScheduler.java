@@ -0,0 +1,282 @@
+package mediathek.controller;
+
+import mediathek.gui.messages.DownloadRateLimitChangedEvent;
+import mediathek.tool.ApplicationConfiguration;
+import mediathek.tool.FileUtils;
+import mediathek.tool.MessageBus;
+import net.engio.mbassy.listener.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Global download bandwidth limit shared by all running downloads.
+ * <p>
+ * All downloads draw from one token bucket. Bytes are handed out in request order, therefore every active
+ * download gets an equal share and the bandwidth of a finished or stalled download is immediately available
+ * to the others.
+ * Optional per host limits are applied in addition to the global limit.
+ * Limit changes from the UI take effect for waiting downloads as well.
+ */
+public class BandwidthScheduler {
+    private static final Logger logger = LogManager.getLogger();
+    /**
+     * Time of unused bandwidth a bucket may save up after being idle.
+     */
+    private static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * Reads of a limited download are split so that a single one needs about this long.
+     */
+    private static final int READ_SLICES_PER_SECOND = 4;
+    private static final int MIN_READ_SLICE = 4 * 1024;
+    private static final int MAX_READ_SLICE = 64 * 1024;
+    private final TokenBucket globalBucket = new TokenBucket();
+    private final Map<String, TokenBucket> hostBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger activeLeases = new AtomicInteger();
+
+    private BandwidthScheduler() {
+        this(ApplicationConfiguration.getConfiguration().getLong(ApplicationConfiguration.DOWNLOAD_RATE_LIMIT, 0));
+        loadHostLimits(ApplicationConfiguration.getConfiguration().getList(String.class, ApplicationConfiguration.DOWNLOAD_RATE_LIMIT_HOST));
+
+        MessageBus.getMessageBus().subscribe(this);
+    }
+
+    /**
+     * Mainly used for testing...
+     *
+     * @param limitKbPerSecond the global limit in KB/s, 0 means unlimited.
+     */
+    BandwidthScheduler(long limitKbPerSecond) {
+        globalBucket.setRate(limitKbPerSecond * FileUtils.ONE_KB);
+    }
+
+    public static BandwidthScheduler getInstance() {
+        return SchedulerHolder.INSTANCE;
+    }
+
+    /**
+     * Read the host limits from config entries formatted as "host=limit in KB/s".
+     */
+    private void loadHostLimits(@Nullable Iterable<String> entries) {
+        if (entries == null)
+            return;
+
+        for (var entry : entries) {
+            final int pos = entry.indexOf('=');
+            try {
+                if (pos <= 0)
+                    throw new NumberFormatException();
+                setHostLimit(entry.substring(0, pos).trim(), Long.parseLong(entry.substring(pos + 1).trim()));
+            } catch (NumberFormatException e) {
+                logger.error("Invalid host download limit: {}", entry);
+            }
+        }
+    }
+
+    /**
+     * Set an additional limit for all downloads from a host.
+     *
+     * @param host            the host name
+     * @param limitKbPerSecond the limit in KB/s, 0 removes the limit.
+     */
+    public void setHostLimit(@NotNull String host, long limitKbPerSecond) {
+        final String key = host.toLowerCase(Locale.ROOT);
+        if (limitKbPerSecond <= 0) {
+            final var bucket = hostBuckets.remove(key);
+            if (bucket != null)
+                bucket.setRate(0);
+        } else {
+            hostBuckets.computeIfAbsent(key, k -> new TokenBucket()).setRate(limitKbPerSecond * FileUtils.ONE_KB);
+        }
+        logger.info("Download limit for host {} set to {} KB/s", key, limitKbPerSecond);
+    }
+
+    /**
+     * Register a download.
+     * The returned lease must be closed when the download has finished.
+     *
+     * @param host the host the download is loaded from, may be null if unknown.
+     * @return the lease used to acquire bandwidth.
+     */
+    public Lease register(@Nullable String host) {
+        activeLeases.incrementAndGet();
+        return new Lease(host == null ? null : host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the number of currently running downloads sharing the bandwidth.
+     */
+    public int getActiveDownloads() {
+        return activeLeases.get();
+    }
+
+    @Handler
+    void handleRateLimitChanged(DownloadRateLimitChangedEvent evt) {
+        final long limit = evt.newLimit * FileUtils.ONE_KB;
+        logger.info("changing global download speed limit to {} KB", evt.newLimit);
+        globalBucket.setRate(limit);
+    }
+
+    /**
+     * Bandwidth share of a single download.
+     * A download loading over several connections uses one lease for all of them, their requests
+     * wait one after another so the download keeps a single share.
+     */
+    public final class Lease implements AutoCloseable {
+        private final String host;
+        private final ReentrantLock acquireLock = new ReentrantLock(true);
+        private boolean closed;
+
+        private Lease(@Nullable String host) {
+            this.host = host;
+        }
+
+        /**
+         * Wait until the bytes may be passed on.
+         *
+         * @param bytes number of bytes read from the network.
+         * @throws InterruptedIOException if the thread was interrupted while waiting.
+         */
+        public void acquire(long bytes) throws InterruptedIOException {
+            if (bytes <= 0)
+                return;
+
+            try {
+                acquireLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+            try {
+                // wait for the host first so a capped host doesn´t block global bandwidth while waiting
+                if (host != null) {
+                    final var hostBucket = hostBuckets.get(host);
+                    if (hostBucket != null)
+                        hostBucket.acquire(bytes);
+                }
+                globalBucket.acquire(bytes);
+            } finally {
+                acquireLock.unlock();
+            }
+        }
+
+        /**
+         * Limit the size of a single read while a limit is active.
+         * A large read would wait for its bandwidth in one piece, delaying stop checks and
+         * letting downloads take turns in big bursts.
+         *
+         * @param len the requested read size
+         * @return the read size to use.
+         */
+        public int limitReadSize(int len) {
+            long rate = globalBucket.getRate();
+            if (host != null) {
+                final var hostBucket = hostBuckets.get(host);
+                if (hostBucket != null) {
+                    final long hostRate = hostBucket.getRate();
+                    if (hostRate > 0 && (rate == 0 || hostRate < rate))
+                        rate = hostRate;
+                }
+            }
+            if (rate == 0)
+                return len;
+
+            final long slice = Math.max(MIN_READ_SLICE, Math.min(MAX_READ_SLICE, rate / READ_SLICES_PER_SECOND));
+            return (int) Math.min(len, slice);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                activeLeases.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Token bucket which serves its requests in arrival order.
+     * Every request reserves its bytes at the end of the queue and waits until the bucket has been credited
+     * up to its reservation. Waiting requests recalculate their time when the rate changes.
+     */
+    private static final class TokenBucket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition rateChanged = lock.newCondition();
+        /**
+         * Bytes per second, 0 means unlimited.
+         */
+        private volatile long rate;
+        private double reserved;
+        private double credited;
+        private long lastUpdate = System.nanoTime();
+
+        void setRate(long bytesPerSecond) {
+            lock.lock();
+            try {
+                refill(System.nanoTime());
+                rate = Math.max(0, bytesPerSecond);
+                if (rate == 0) {
+                    // unlimited, release all waiting requests
+                    credited = reserved;
+                }
+                rateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long getRate() {
+            return rate;
+        }
+
+        void acquire(long bytes) throws InterruptedIOException {
+            lock.lock();
+            try {
+                if (rate == 0)
+                    return;
+
+                refill(System.nanoTime());
+                reserved += bytes;
+                final double reservation = reserved;
+                while (credited < reservation) {
+                    if (rate == 0)
+                        return;
+
+                    final long waitNanos = (long) Math.ceil((reservation - credited) * TimeUnit.SECONDS.toNanos(1) / rate);
+                    rateChanged.awaitNanos(waitNanos);
+                    refill(System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill(long now) {
+            if (rate > 0) {
+                final double maxCredit = reserved + rate * (double) MAX_BURST_NANOS / TimeUnit.SECONDS.toNanos(1);
+                credited = Math.min(maxCredit, credited + rate * (double) (now - lastUpdate) / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastUpdate = now;
+        }
+    }
+
+    /**
+     * Part of the Bill Pugh Singleton implementation
+     */
+    private static class SchedulerHolder {
+        private static final BandwidthScheduler INSTANCE = new BandwidthScheduler();
+    }
+}
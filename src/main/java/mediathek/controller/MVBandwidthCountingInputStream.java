@@ -54,6 +54,26 @@ public class MVBandwidthCountingInputStream extends InputStream {
         return bytesRead;
     }
 
+    @Override
+    public int read(byte @NotNull [] b, int off, int len) throws IOException {
+        final int bytesRead = iStream.read(b, off, len);
+        if (bytesRead != -1) {
+            calculationTask.incrementBytesRead(bytesRead);
+        }
+
+        return bytesRead;
+    }
+
+    /**
+     * Count bytes which were read by another stream of the same download,
+     * used when a download is loaded over several connections.
+     *
+     * @param bytesRead number of bytes read.
+     */
+    public void incrementBytesRead(int bytesRead) {
+        calculationTask.incrementBytesRead(bytesRead);
+    }
+
     /**
      * Return the akt bandwidth used by this InputStream.
      *
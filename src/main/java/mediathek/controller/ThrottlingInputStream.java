@@ -1,40 +1,44 @@
 package mediathek.controller;
 
-import com.google.common.util.concurrent.RateLimiter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * InputStream which limits reads based on an {@link RateLimiter}.
+ * InputStream which limits reads based on the global {@link BandwidthScheduler}.
+ * Bytes are accounted after they have been read so a short read only pays for what it actually got.
+ * While a limit is active reads are split into small slices, see {@link BandwidthScheduler.Lease#limitReadSize(int)}.
  */
 public class ThrottlingInputStream extends InputStream {
 
     private final InputStream target;
-    private final RateLimiter maxBytesPerSecond;
+    private final BandwidthScheduler.Lease lease;
 
-    public ThrottlingInputStream(InputStream target, RateLimiter maxBytesPerSecond) {
+    public ThrottlingInputStream(InputStream target, BandwidthScheduler.Lease lease) {
         this.target = target;
-        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.lease = lease;
     }
 
     @Override
     public int read() throws IOException {
-        maxBytesPerSecond.acquire(1);
-        return target.read();
+        final int data = target.read();
+        if (data != -1)
+            lease.acquire(1);
+        return data;
     }
 
     @Override
-    public int read(byte[] b) throws IOException {
-        maxBytesPerSecond.acquire(b.length);
-        return target.read(b);
+    public int read(byte @NotNull [] b) throws IOException {
+        return read(b, 0, b.length);
     }
 
     @Override
     public int read(byte @NotNull [] b, int off, int len) throws IOException {
-        maxBytesPerSecond.acquire(len);
-        return target.read(b, off, len);
+        final int bytesRead = target.read(b, off, lease.limitReadSize(len));
+        if (bytesRead > 0)
+            lease.acquire(bytesRead);
+        return bytesRead;
     }
 
     @Override
@@ -64,6 +68,10 @@ public class ThrottlingInputStream extends InputStream {
 
     @Override
     public void close() throws IOException {
-        target.close();
+        try {
+            target.close();
+        } finally {
+            lease.close();
+        }
     }
 }
@@ -4,50 +4,113 @@ import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.EventList;
 import mediathek.config.StandardLocations;
 import mediathek.gui.messages.history.AboHistoryChangedEvent;
+import mediathek.tool.FileUtils;
 import mediathek.tool.MessageBus;
+import mediathek.tool.sql.SqlAutoRollback;
 import okhttp3.HttpUrl;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
-import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Stores the urls of all downloaded abo films.
+ * <p>
+ * The entries are kept in the table abo_history of the history database with a unique index on the url,
+ * lookups and deletes therefore don´t need to touch the other entries.
+ * Changes are written by the {@link HistoryDatabaseWriter} thread, callers don´t wait for the disk.
+ * The old text file is imported once and moved to trash afterwards.
+ * As long as it could not be imported, its entries are used read-only.
+ */
 public class AboHistoryController {
     private static final String FILENAME = "downloadAbos.txt";
+    private static final String CREATE_TABLE_STMT = "CREATE TABLE IF NOT EXISTS abo_history (id INTEGER PRIMARY KEY ASC, datum DATE NOT NULL DEFAULT (date('now')), thema TEXT, titel TEXT, url TEXT NOT NULL)";
+    private static final String CREATE_INDEX_STMT = "CREATE UNIQUE INDEX IF NOT EXISTS IDX_ABO_HISTORY_URL ON abo_history(url)";
+    private static final String INSERT_STMT = "INSERT OR IGNORE INTO abo_history(datum,thema,titel,url) values (?,?,?,?)";
+    private static final String DELETE_STMT = "DELETE FROM abo_history WHERE url = ?";
+    private static final String SELECT_STMT = "SELECT datum, thema, titel, url FROM abo_history ORDER BY id";
     private static final Logger logger = LogManager.getLogger();
     /**
-     * Quick lookup set for history checks.
-     * Stores only URLs.
+     * Quick lookup for history checks and the entry to remove from the display list.
      */
-    private final Set<String> urlCacheSet = ConcurrentHashMap.newKeySet();
+    private final Map<String, MVUsedUrl> entriesByUrl = new ConcurrentHashMap<>();
     /**
-     * The actual storage for all history data.
-     * Will be written to file.
+     * In-memory copy of all history data for display.
      * MUST BE LOCKED DURING MANIPULATION!
      */
     private final EventList<MVUsedUrl> baseDataEventList = new BasicEventList<>();
-    private Path urlPath;
+    private final Path textFilePath;
+    private final TextFileCleanup textFileCleanup;
+    private final HistoryDatabaseWriter database;
+    /**
+     * False if the database could not be opened, the history is then kept in memory only.
+     */
+    private boolean databaseAvailable;
 
     public AboHistoryController() {
-        final var settingsDir = StandardLocations.getSettingsDirectory();
+        this(StandardLocations.getSettingsDirectory().resolve(FILENAME), HistoryDatabaseWriter.getInstance(),
+                FileUtils::moveToTrash);
+    }
+
+    /**
+     * Mainly used for testing...
+     *
+     * @param textFilePath    path to the old text file.
+     * @param database        writer of the history database.
+     * @param textFileCleanup removes the old text file after it was imported.
+     */
+    public AboHistoryController(@NotNull Path textFilePath, @NotNull HistoryDatabaseWriter database,
+                                @NotNull TextFileCleanup textFileCleanup) {
+        this.textFilePath = textFilePath;
+        this.textFileCleanup = textFileCleanup;
+        this.database = database;
+
         try {
-            urlPath = settingsDir.resolve(FILENAME);
-            if (Files.notExists(urlPath))
-                Files.createFile(urlPath);
-        } catch (IOException e) {
-            logger.error("I/O error occured", e);
-            urlPath = null;
+            database.call(connection -> {
+                try (var statement = connection.createStatement()) {
+                    statement.executeUpdate(CREATE_TABLE_STMT);
+                    statement.executeUpdate(CREATE_INDEX_STMT);
+                }
+                connection.commit();
+                return null;
+            });
+            databaseAvailable = true;
+
+            if (Files.exists(textFilePath)) {
+                try {
+                    migrateTextFile();
+                } catch (SQLException | IOException e) {
+                    // keep the text file for the next start
+                    logger.error("Abo history migration failed", e);
+                }
+            }
+
+            listeBauen();
+        } catch (SQLException e) {
+            logger.error("Failed to open abo history database", e);
+            databaseAvailable = false;
         }
 
-        listeBauen();
+        // not imported, use its entries read-only to not download all abo films again
+        if (Files.exists(textFilePath)) {
+            try {
+                addToLists(readTextFile());
+            } catch (IOException e) {
+                logger.error("Could not read abo history text file", e);
+            }
+        }
+
+        printDebugInfo();
     }
 
     public EventList<MVUsedUrl> getDataList() {
@@ -62,7 +125,7 @@ public class AboHistoryController {
         try {
             baseDataEventList.getReadWriteLock().writeLock().lock();
             baseDataEventList.clear();
-            urlCacheSet.clear();
+            entriesByUrl.clear();
         } finally {
             baseDataEventList.getReadWriteLock().writeLock().unlock();
         }
@@ -70,15 +133,18 @@ public class AboHistoryController {
 
     /**
      * Remove all stored entries.
-     * Also deletes the used text file. When supported it will be moved to trash, otherwise deleted.
      */
-    public void removeAll() {
+    public synchronized void removeAll() {
         clearLists();
 
-        try (var fc = FileChannel.open(urlPath, StandardOpenOption.WRITE)){
-            fc.truncate(0);
-        } catch (IOException e) {
-            logger.error("Could not empty abo history file", e);
+        if (databaseAvailable) {
+            database.execute(connection -> {
+                try (var statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM abo_history");
+                }
+                connection.commit();
+                return null;
+            });
         }
 
         sendChangeMessage();
@@ -91,186 +157,181 @@ public class AboHistoryController {
      * @return true if exists in cache, false otherwise.
      */
     public boolean urlExists(@NotNull String urlFilm) {
-        return urlCacheSet.contains(urlFilm);
+        return entriesByUrl.containsKey(urlFilm);
     }
 
     public synchronized void removeUrl(@NotNull String urlFilm) {
-        //Logfile einlesen, entsprechende Zeile Filtern und dann Logfile überschreiben
-        //wenn die URL im Logfile ist, dann true zurück
-        boolean entryFound = false;
-
-        // if the url is NOT in our list, it won´t be in the file...bail out
-        if (!urlExists(urlFilm))
-            return;
+        // if the url is NOT in our list, it won´t be in the database...bail out
+        final MVUsedUrl entry;
+        try {
+            baseDataEventList.getReadWriteLock().writeLock().lock();
+            entry = entriesByUrl.remove(urlFilm);
+            if (entry == null)
+                return;
+            // entries don´t override equals, the list only compares references
+            baseDataEventList.remove(entry);
+        } finally {
+            baseDataEventList.getReadWriteLock().writeLock().unlock();
+        }
 
-        final List<String> liste = new ArrayList<>();
-        try (InputStream is = Files.newInputStream(urlPath);
-             InputStreamReader isr = new InputStreamReader(is);
-             LineNumberReader in = new LineNumberReader(isr)) {
-            String zeile;
-            while ((zeile = in.readLine()) != null) {
-                if (MVUsedUrl.getUrlAusZeile(zeile).getUrl().equals(urlFilm)) {
-                    entryFound = true; //nur dann muss das Logfile auch geschrieben werden
-                } else {
-                    liste.add(zeile);
+        if (databaseAvailable) {
+            database.execute(connection -> {
+                try (var statement = connection.prepareStatement(DELETE_STMT)) {
+                    statement.setString(1, urlFilm);
+                    statement.executeUpdate();
                 }
-            }
-        } catch (Exception ex) {
-            logger.error("urlAusLogfileLoeschen(String)", ex);
+                connection.commit();
+                return null;
+            });
         }
 
-        //und jetzt wieder schreiben, wenn nötig
-        if (entryFound) {
-            try (OutputStream os = Files.newOutputStream(urlPath);
-                 OutputStreamWriter osw = new OutputStreamWriter(os);
-                 BufferedWriter bufferedWriter = new BufferedWriter(osw)) {
-                for (String entry : liste)
-                    bufferedWriter.write(entry + '\n');
-            } catch (Exception ex) {
-                logger.error("urlAusLogfileLoeschen(String)", ex);
-            }
-
-            clearLists();
-
-            listeBauen();
-
-            sendChangeMessage();
-        }
+        sendChangeMessage();
     }
 
     public void add(@NotNull MVUsedUrl usedUrl) {
+        add(List.of(usedUrl));
+    }
+
+    /**
+     * Store multiple urls in one transaction.
+     *
+     * @param mvuuList the items to add.
+     */
+    public synchronized void add(@NotNull List<MVUsedUrl> mvuuList) {
+        final List<MVUsedUrl> newEntries = new ArrayList<>();
         try {
             baseDataEventList.getReadWriteLock().writeLock().lock();
-            baseDataEventList.add(usedUrl);
-            urlCacheSet.add(usedUrl.getUrl());
+            for (var mvuu : mvuuList) {
+                if (entriesByUrl.putIfAbsent(mvuu.getUrl(), mvuu) == null) {
+                    baseDataEventList.add(mvuu);
+                    newEntries.add(mvuu);
+                }
+            }
         } finally {
             baseDataEventList.getReadWriteLock().writeLock().unlock();
         }
 
-        try (OutputStream os = Files.newOutputStream(urlPath, StandardOpenOption.APPEND);
-             OutputStreamWriter osw = new OutputStreamWriter(os);
-             BufferedWriter bufferedWriter = new BufferedWriter(osw)) {
-            bufferedWriter.write(usedUrl.getPreparedRowString());
-        } catch (Exception ex) {
-            logger.error("Single add failed", ex);
+        if (newEntries.isEmpty())
+            return;
+
+        if (databaseAvailable) {
+            database.execute(connection -> {
+                writeEntries(connection, newEntries);
+                return null;
+            });
         }
 
         sendChangeMessage();
     }
 
+    private static void writeEntries(@NotNull Connection connection, @NotNull List<MVUsedUrl> entries) throws SQLException {
+        try (SqlAutoRollback tm = new SqlAutoRollback(connection);
+             var insertStmt = connection.prepareStatement(INSERT_STMT)) {
+            for (var entry : entries) {
+                insertStmt.setString(1, entry.getLocalDate().toString());
+                insertStmt.setString(2, entry.getThema());
+                insertStmt.setString(3, entry.getTitel());
+                insertStmt.setString(4, entry.getUrl());
+                insertStmt.addBatch();
+            }
+            insertStmt.executeBatch();
+            tm.commit();
+        }
+    }
+
+    /**
+     * Import the entries of the old text file into the database.
+     */
+    private void migrateTextFile() throws IOException, SQLException {
+        logger.info("Start abo history migration from {}", textFilePath);
+        final List<MVUsedUrl> entries = readTextFile();
+        database.call(connection -> {
+            writeEntries(connection, entries);
+            return null;
+        });
+        textFileCleanup.remove(textFilePath);
+        logger.info("Finished abo history migration, {} entries imported", entries.size());
+    }
+
     /**
-     * Create the internally used list from text file.
+     * Read the entries of the old text file.
+     * Invalid entries are dropped.
      */
-    private void listeBauen() {
-        List<String> badEntriesList = new ArrayList<>();
+    private List<MVUsedUrl> readTextFile() throws IOException {
+        final List<MVUsedUrl> entries = new ArrayList<>();
+        int badEntries = 0;
 
-        try (InputStream is = Files.newInputStream(urlPath);
+        try (InputStream is = Files.newInputStream(textFilePath);
              InputStreamReader isr = new InputStreamReader(is);
              LineNumberReader in = new LineNumberReader(isr)) {
             String zeile;
-
-            baseDataEventList.getReadWriteLock().writeLock().lock();
-
             while ((zeile = in.readLine()) != null) {
-                MVUsedUrl mvuu = MVUsedUrl.getUrlAusZeile(zeile);
-                var url = mvuu.getUrl();
-                if (url.startsWith("rtmp:")) {
-                    //logger.warn("RTMP URL found in file {}, skipping: {}", urlPath, url);
-                    badEntriesList.add(zeile);
-                    continue;
+                try {
+                    final MVUsedUrl mvuu = MVUsedUrl.getUrlAusZeile(zeile);
+                    final var url = mvuu.getUrl();
+                    if (url.startsWith("rtmp:") || HttpUrl.parse(url) == null) {
+                        badEntries++;
+                        continue;
+                    }
+                    entries.add(mvuu);
+                } catch (RuntimeException e) {
+                    // lines without a valid date
+                    badEntries++;
                 }
+            }
+        }
 
-                var okHttpUrl = HttpUrl.parse(url);
-                if (okHttpUrl == null) {
-                    //logger.warn("Invalid URL received in {}, skipping: {}", urlPath,url);
-                    badEntriesList.add(zeile);
-                    continue;
-                }
+        logger.info("{} invalid abo history entries skipped", badEntries);
+        return entries;
+    }
 
-                // so far so good, add to lists
-                baseDataEventList.add(mvuu);
-                urlCacheSet.add(url);
+    /**
+     * Add entries to the in-memory lists only.
+     */
+    private void addToLists(@NotNull List<MVUsedUrl> entries) {
+        baseDataEventList.getReadWriteLock().writeLock().lock();
+        try {
+            for (var entry : entries) {
+                if (entriesByUrl.putIfAbsent(entry.getUrl(), entry) == null)
+                    baseDataEventList.add(entry);
             }
-        } catch (Exception ex) {
-            logger.error("listeBauen()", ex);
         } finally {
             baseDataEventList.getReadWriteLock().writeLock().unlock();
         }
+    }
 
-        checkBadEntries(badEntriesList);
-
-        printDebugInfo();
+    /**
+     * Create the internally used list from the database.
+     */
+    private void listeBauen() throws SQLException {
+        addToLists(database.call(connection -> {
+            final List<MVUsedUrl> entries = new ArrayList<>();
+            try (var statement = connection.createStatement();
+                 var rs = statement.executeQuery(SELECT_STMT)) {
+                while (rs.next()) {
+                    entries.add(new MVUsedUrl(LocalDate.parse(rs.getString(1)), rs.getString(2), rs.getString(3), rs.getString(4)));
+                }
+            }
+            connection.commit();
+            return entries;
+        }));
     }
 
     private void printDebugInfo() {
         try {
             baseDataEventList.getReadWriteLock().readLock().lock();
-            logger.trace("urlCacheSet size: {} for file {}", urlCacheSet.size(), urlPath);
-            logger.trace("dataList size: {} for file {}", baseDataEventList.size(), urlPath);
+            logger.trace("entriesByUrl size: {}", entriesByUrl.size());
+            logger.trace("dataList size: {}", baseDataEventList.size());
         } finally {
             baseDataEventList.getReadWriteLock().readLock().unlock();
         }
     }
 
-    private void checkBadEntries(@NotNull List<String> badEntriesList) {
-        if (!badEntriesList.isEmpty()) {
-            logger.warn("File {} contained {} invalid entries ", urlPath, badEntriesList.size());
-            removeIllegalEntries(badEntriesList);
-            badEntriesList.clear();
-        }
-    }
-
     /**
-     * Append multiple urls to history file.
-     *
-     * @param mvuuList the items to add.
+     * Removes the old text file once its entries are in the database.
      */
-    public void add(@NotNull List<MVUsedUrl> mvuuList) {
-        try (OutputStream os = Files.newOutputStream(urlPath, StandardOpenOption.APPEND);
-             OutputStreamWriter osw = new OutputStreamWriter(os);
-             BufferedWriter bufferedWriter = new BufferedWriter(osw)) {
-            baseDataEventList.getReadWriteLock().writeLock().lock();
-
-            for (MVUsedUrl mvuu : mvuuList) {
-                baseDataEventList.add(mvuu);
-                urlCacheSet.add(mvuu.getUrl());
-                bufferedWriter.write(mvuu.getPreparedRowString());
-            }
-        } catch (Exception ex) {
-            logger.error("zeilenSchreiben()", ex);
-        } finally {
-            baseDataEventList.getReadWriteLock().writeLock().unlock();
-        }
-        sendChangeMessage();
-    }
-
-    private synchronized void removeIllegalEntries(@NotNull List<String> badEntriesList) {
-        logger.trace("Cleaning entries for {}", urlPath);
-
-        final List<String> cleanedEntriesList = new ArrayList<>();
-        try (InputStream is = Files.newInputStream(urlPath);
-             InputStreamReader isr = new InputStreamReader(is);
-             LineNumberReader in = new LineNumberReader(isr)) {
-            String zeile;
-            while ((zeile = in.readLine()) != null) {
-                if (!badEntriesList.contains(zeile)) {
-                    cleanedEntriesList.add(zeile);
-                }
-            }
-        } catch (Exception ex) {
-            logger.error("removeIllegalEntries()", ex);
-        }
-
-        try (OutputStream os = Files.newOutputStream(urlPath);
-             OutputStreamWriter osw = new OutputStreamWriter(os);
-             BufferedWriter bufferedWriter = new BufferedWriter(osw)) {
-            for (var entry : cleanedEntriesList)
-                bufferedWriter.write(entry + '\n');
-        } catch (Exception ex) {
-            logger.error("removeIllegalEntries()", ex);
-        }
-
-        cleanedEntriesList.clear();
-        logger.trace("Finished cleaning entries for {}", urlPath);
+    @FunctionalInterface
+    public interface TextFileCleanup {
+        void remove(@NotNull Path textFilePath) throws IOException;
     }
 }
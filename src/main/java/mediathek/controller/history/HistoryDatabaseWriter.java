@@ -0,0 +1,134 @@
+package mediathek.controller.history;
+
+import mediathek.tool.sql.SqlDatabaseConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.*;
+
+/**
+ * Runs all accesses to the history database on one thread with one connection.
+ * <p>
+ * The database is opened with a shared cache. There a second write transaction fails at once with
+ * SQLITE_LOCKED instead of waiting, seen history and abo history therefore share this writer.
+ * The connection doesn´t auto commit, tasks must commit their changes.
+ */
+public class HistoryDatabaseWriter {
+    private static final Logger logger = LogManager.getLogger();
+    private final SQLiteDataSource dataSource;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "HistoryDatabaseWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Only used on the writer thread.
+     */
+    private Connection connection;
+
+    /**
+     * Mainly used for testing...
+     *
+     * @param dataSource the history database.
+     */
+    public HistoryDatabaseWriter(@NotNull SQLiteDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public static HistoryDatabaseWriter getInstance() {
+        return WriterHolder.INSTANCE;
+    }
+
+    /**
+     * Run a task on the writer thread and wait for its result.
+     *
+     * @throws SQLException if the task failed or the database could not be opened.
+     */
+    public <T> T call(@NotNull SqlTask<T> task) throws SQLException {
+        try {
+            return executor.submit(() -> task.run(getConnection())).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException ex)
+                throw ex;
+            throw new SQLException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the history database", e);
+        } catch (RejectedExecutionException e) {
+            throw new SQLException("History database has already been closed", e);
+        }
+    }
+
+    /**
+     * Queue a task for the writer thread without waiting, failures are logged.
+     */
+    public <T> void execute(@NotNull SqlTask<T> task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run(getConnection());
+                } catch (SQLException e) {
+                    logger.error("History database task failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.error("History database has already been closed", e);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection == null) {
+            final var newConnection = dataSource.getConnection();
+            try (var statement = newConnection.createStatement()) {
+                statement.executeUpdate(SeenHistoryMigrator.PRAGMA_ENCODING_STMT);
+                statement.executeUpdate(SeenHistoryMigrator.PRAGMA_PAGE_SIZE);
+                final int cpus = Runtime.getRuntime().availableProcessors() / 2;
+                statement.executeUpdate("PRAGMA threads=" + cpus);
+                newConnection.setAutoCommit(false);
+            } catch (SQLException e) {
+                newConnection.close();
+                throw e;
+            }
+            connection = newConnection;
+        }
+        return connection;
+    }
+
+    /**
+     * Close the connection after all queued tasks, later tasks are rejected.
+     */
+    public void close() {
+        try {
+            executor.submit(() -> {
+                if (connection != null) {
+                    connection.close();
+                    connection = null;
+                }
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            logger.error("close", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException ignored) {
+            // already closed
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    public interface SqlTask<T> {
+        T run(@NotNull Connection connection) throws SQLException;
+    }
+
+    /**
+     * Part of the Bill Pugh Singleton implementation
+     */
+    private static class WriterHolder {
+        private static final HistoryDatabaseWriter INSTANCE = new HistoryDatabaseWriter(SqlDatabaseConfig.getDataSource());
+    }
+}
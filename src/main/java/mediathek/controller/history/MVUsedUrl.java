@@ -47,6 +47,13 @@ public class MVUsedUrl {
         this.url = url;
     }
 
+    public MVUsedUrl(LocalDate datum, String thema, String title, String url) {
+        this.datum = datum;
+        this.thema = thema;
+        this.titel = title;
+        this.url = url;
+    }
+
     public MVUsedUrl(String thema, String title, String url) {
         this.datum = LocalDate.now();
         this.thema = thema;
@@ -89,6 +96,10 @@ public class MVUsedUrl {
         return DATE_TIME_FORMATTER.format(datum);
     }
 
+    public LocalDate getLocalDate() {
+        return datum;
+    }
+
     public String getThema() {
         return thema;
     }
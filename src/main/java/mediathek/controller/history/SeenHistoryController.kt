@@ -1,219 +1,225 @@
 package mediathek.controller.history
 
-import com.google.common.collect.Sets
 import mediathek.config.Daten
 import mediathek.daten.DatenFilm
 import mediathek.gui.messages.history.DownloadHistoryChangedEvent
 import mediathek.tool.MessageBus
-import mediathek.tool.sql.SqlDatabaseConfig
 import org.apache.logging.log4j.LogManager
-import org.sqlite.SQLiteDataSource
-import java.nio.file.Files
-import java.nio.file.Path
 import java.sql.*
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicBoolean
 import kotlin.system.exitProcess
 
 /**
  * Database based seen history controller.
+ *
+ * There is only one instance for the whole application. All seen urls are loaded once into a resident
+ * [SeenUrlIndex] which answers [hasBeenSeen] without database access and is updated immediately by
+ * [markSeen] and [markUnseen].
+ * All writes are queued and written by the [HistoryDatabaseWriter] thread in one transaction per batch,
+ * callers therefore never wait for the disk.
  */
-class SeenHistoryController : AutoCloseable {
-    private var connection: Connection? = null
-    private var insertStatement: PreparedStatement? = null
-    private val dataSource: SQLiteDataSource = SqlDatabaseConfig.dataSource
-    private var deleteStatement: PreparedStatement? = null
-    private var seenStatement: PreparedStatement? = null
+class SeenHistoryController private constructor() {
+    private val database = HistoryDatabaseWriter.getInstance()
+    private lateinit var writeConnection: Connection
+    private lateinit var insertStatement: PreparedStatement
+    private lateinit var deleteStatement: PreparedStatement
+    private val seenIndex = SeenUrlIndex()
+    private val writeQueue = ConcurrentLinkedQueue<PendingMark>()
+    private val flushScheduled = AtomicBoolean()
+    private val closed = AtomicBoolean()
 
     /**
      * Remove all entries from the database.
      */
     fun removeAll() {
-        try {
-            connection!!.createStatement().use { stmt -> stmt.executeUpdate("DELETE FROM seen_history") }
+        runOnWriter {
+            flush()
+            writeConnection.createStatement().use { stmt -> stmt.executeUpdate("DELETE FROM seen_history") }
+            writeConnection.commit()
+            seenIndex.clear()
             sendChangeMessage()
-        } catch (ex: SQLException) {
-            logger.error("removeAll", ex)
         }
     }
 
     fun markUnseen(film: DatenFilm) {
-        try {
-            deleteStatement!!.setString(1, film.urlNormalQuality)
-            deleteStatement!!.executeUpdate()
-
-            Daten.getInstance().listeBookmarkList.updateSeen(false, film)
-
-            sendChangeMessage()
-        } catch (ex: SQLException) {
-            logger.error("markUnseen", ex)
-        }
+        enqueue(listOf(film), false)
+        Daten.getInstance().listeBookmarkList.updateSeen(false, film)
     }
 
     fun markUnseen(list: List<DatenFilm>) {
-        try {
-            for (film in list) {
-                deleteStatement!!.setString(1, film.urlNormalQuality)
-                deleteStatement!!.executeUpdate()
-            }
-
-            Daten.getInstance().listeBookmarkList.updateSeen(false, list)
-
-            sendChangeMessage()
-        } catch (ex: SQLException) {
-            logger.error("markUnseen", ex)
-        }
+        enqueue(list, false)
+        Daten.getInstance().listeBookmarkList.updateSeen(false, list)
     }
 
     fun markSeen(film: DatenFilm) {
         if (film.isLivestream) return
-        if (hasBeenSeen(film)) return
-        try {
-            writeToDatabase(film)
-            Daten.getInstance().listeBookmarkList.updateSeen(true, film)
-
-            sendChangeMessage()
-        } catch (ex: SQLException) {
-            logger.error("markSeen single", ex)
-        }
+        enqueue(listOf(film), true)
+        Daten.getInstance().listeBookmarkList.updateSeen(true, film)
     }
 
     fun markSeen(list: List<DatenFilm>) {
-        try {
-            for (film in list) {
-                //skip livestreams
-                if (film.isLivestream) continue
-                if (hasBeenSeen(film)) continue
-                writeToDatabase(film)
-            }
-
-            // Update bookmarks with seen information
-            Daten.getInstance().listeBookmarkList.updateSeen(true, list)
-
-            //send one change for all...
-            sendChangeMessage()
-        } catch (ex: SQLException) {
-            logger.error("markSeen", ex)
-        }
-    }
+        //skip livestreams
+        enqueue(list.filterNot { it.isLivestream }, true)
 
-    /**
-     * Load all URLs from database and store in memory.
-     */
-    fun prepareMemoryCache() {
-        connection!!.createStatement().use { st ->
-            st.executeQuery("SELECT url as url FROM seen_history").use { rs ->
-                while (rs.next()) {
-                    val url = rs.getString(1)
-                    urlCache.add(url)
-                }
-            }
-        }
-
-        logger.trace("cache size: {}", urlCache.size)
-        memCachePrepared = true
+        // Update bookmarks with seen information
+        Daten.getInstance().listeBookmarkList.updateSeen(true, list)
     }
 
     fun performMaintenance() {
         logger.trace("Start maintenance")
 
-        try {
-            connection!!.createStatement().use {
-                it.executeUpdate("DELETE FROM seen_history WHERE thema = 'Livestream'")
-                it.executeUpdate("REINDEX seen_history")
-                it.executeUpdate("VACUUM")
+        runOnWriter {
+            flush()
+            // VACUUM cannot run inside a transaction
+            writeConnection.autoCommit = true
+            try {
+                writeConnection.createStatement().use {
+                    it.executeUpdate("DELETE FROM seen_history WHERE thema = 'Livestream'")
+                    it.executeUpdate("REINDEX seen_history")
+                    it.executeUpdate("VACUUM")
+                }
+            } finally {
+                writeConnection.autoCommit = false
             }
         }
-        catch (e: SQLException) {
-            logger.error("Failed to execute maintenance script", e)
-        }
         logger.trace("Finished maintenance")
     }
 
-    /**
-     * thread-safe store for all database contained URLs.
-     */
-    private val urlCache = Sets.newConcurrentHashSet<String>()
-
-    /**
-     * Indicate whether the mem cache is ready or not
-     */
-    private var memCachePrepared: Boolean = false
+    fun hasBeenSeen(film: DatenFilm): Boolean {
+        return seenIndex.contains(film.urlNormalQuality)
+    }
 
     /**
-     * Delete all data in memory cache
+     * Older databases only have a non-unique url index and may contain duplicates.
+     * Remove them once and replace the index so inserts can simply ignore known urls.
+     * Also creates the table and index of a new database.
      */
-    fun emptyMemoryCache() {
-        urlCache.clear()
-        memCachePrepared = false
+    @Throws(SQLException::class)
+    private fun ensureUniqueUrlIndex() {
+        writeConnection.createStatement().use { st ->
+            // the database file may have been created by the abo history without this table
+            st.executeUpdate(SeenHistoryMigrator.CREATE_TABLE_STMT)
+            val exists = st.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND name = '$UNIQUE_INDEX_NAME'")
+                .use { it.next() }
+            if (!exists) {
+                logger.info("Creating unique url index for seen history")
+                val removed = st.executeUpdate("DELETE FROM seen_history WHERE id NOT IN (SELECT MIN(id) FROM seen_history GROUP BY url)")
+                logger.info("Removed {} duplicate seen history entries", removed)
+                st.executeUpdate(SeenHistoryMigrator.DROP_INDEX_STMT)
+                st.executeUpdate(CREATE_UNIQUE_INDEX_SQL)
+            }
+        }
+        writeConnection.commit()
     }
 
-    /**
-     * Check if film has been seen by using a in-memory cache.
-     */
-    fun hasBeenSeenFromCache(film: DatenFilm): Boolean {
-        if (!memCachePrepared)
-            prepareMemoryCache()
+    private fun enqueue(list: List<DatenFilm>, seen: Boolean) {
+        if (list.isEmpty())
+            return
+
+        for (film in list) {
+            val mark = PendingMark(film.thema, film.title, film.urlNormalQuality, seen)
+            // queue first, a reload of the index after a failed write reapplies all queued marks
+            writeQueue.add(mark)
+            applyToIndex(mark)
+        }
 
-        return urlCache.contains(film.urlNormalQuality)
+        if (flushScheduled.compareAndSet(false, true)) {
+            database.execute {
+                try {
+                    flush()
+                } catch (e: SQLException) {
+                    logger.error("Failed to write seen history", e)
+                }
+            }
+        }
     }
 
-    fun hasBeenSeen(film: DatenFilm): Boolean {
-        var result: Boolean
+    /**
+     * Write all queued changes in one transaction.
+     * Must only be called on the writer thread.
+     */
+    @Throws(SQLException::class)
+    private fun flush() {
+        flushScheduled.set(false)
+
+        // keep only the latest change per url, inserts and deletes are independent afterwards
+        val batch = LinkedHashMap<String, PendingMark>()
+        while (true) {
+            val mark = writeQueue.poll() ?: break
+            batch[mark.url] = mark
+        }
+        if (batch.isEmpty())
+            return
 
         try {
-            seenStatement!!.setString(1, film.urlNormalQuality)
-            seenStatement!!.executeQuery().use {
-                it.next()
-                val total = it.getInt(1)
-                result = total != 0
+            for (mark in batch.values) {
+                if (mark.seen) {
+                    insertStatement.setString(1, mark.thema)
+                    insertStatement.setString(2, mark.titel)
+                    insertStatement.setString(3, mark.url)
+                    insertStatement.addBatch()
+                } else {
+                    deleteStatement.setString(1, mark.url)
+                    deleteStatement.addBatch()
+                }
             }
+            insertStatement.executeBatch()
+            deleteStatement.executeBatch()
+            writeConnection.commit()
         } catch (e: SQLException) {
-            logger.error("SQL error:", e)
-            result = false
+            insertStatement.clearBatch()
+            deleteStatement.clearBatch()
+            writeConnection.rollback()
+            // the index must not show changes which are not in the database,
+            // but marks queued in the meantime are still to be written
+            loadSeenIndex()
+            writeQueue.forEach { applyToIndex(it) }
+            throw e
         }
 
-        return result
+        logger.trace("Wrote {} seen history changes", batch.size)
+
+        //send one change for all...
+        sendChangeMessage()
+    }
+
+    private fun applyToIndex(mark: PendingMark) {
+        if (mark.seen)
+            seenIndex.add(mark.url)
+        else
+            seenIndex.remove(mark.url)
     }
 
     /**
-     * Creates a empty database and all table, indices necessary for use.
-     *
-     * @throws SQLException Let the caller handle all errors
+     * Run a task on the writer thread and wait for its completion.
      */
-    @Throws(SQLException::class)
-    private fun createEmptyDatabase(dbPath: Path) {
-        val dbUrl = "jdbc:sqlite:" + dbPath.toAbsolutePath().toString()
-        DriverManager.getConnection(dbUrl, SqlDatabaseConfig.config.toProperties()).use { conn ->
-            conn.transactionIsolation = Connection.TRANSACTION_SERIALIZABLE
-            conn.createStatement().use { statement ->
-                basicSqliteSettings(statement)
-                // drop old tables and indices if existent
-                statement.executeUpdate(SeenHistoryMigrator.DROP_INDEX_STMT)
-                statement.executeUpdate(SeenHistoryMigrator.DROP_TABLE_STMT)
-                // create tables and indices
-                statement.executeUpdate(SeenHistoryMigrator.CREATE_TABLE_STMT)
-                statement.executeUpdate(SeenHistoryMigrator.CREATE_INDEX_STMT)
-            }
+    private fun runOnWriter(task: () -> Unit) {
+        try {
+            database.call { task() }
+        } catch (e: SQLException) {
+            logger.error("Seen history task failed", e)
         }
     }
 
-    private fun basicSqliteSettings(statement: Statement) {
-        statement.executeUpdate(SeenHistoryMigrator.PRAGMA_ENCODING_STMT)
-        statement.executeUpdate(SeenHistoryMigrator.PRAGMA_PAGE_SIZE)
-    }
-
     /**
-     * Write an entry to the database.
-     *
-     * @param film the film data to be written.
-     * @throws SQLException .
+     * Replace the index content with all urls from the database.
      */
     @Throws(SQLException::class)
-    private fun writeToDatabase(film: DatenFilm) {
-        insertStatement!!.setString(1, film.thema)
-        insertStatement!!.setString(2, film.title)
-        insertStatement!!.setString(3, film.urlNormalQuality)
-        // write each entry into database
-        insertStatement!!.executeUpdate()
+    private fun loadSeenIndex() {
+        val urls = ArrayList<String>()
+        writeConnection.createStatement().use { st ->
+            st.executeQuery("SELECT url as url FROM seen_history").use { rs ->
+                while (rs.next()) {
+                    urls.add(rs.getString(1))
+                }
+            }
+        }
+        writeConnection.commit()
+
+        seenIndex.clear()
+        seenIndex.addAll(urls)
+        logger.trace("seen index size: {}", seenIndex.size())
     }
 
     /**
@@ -223,35 +229,27 @@ class SeenHistoryController : AutoCloseable {
         MessageBus.messageBus.publishAsync(DownloadHistoryChangedEvent())
     }
 
-    override fun close() {
-        urlCache.clear()
+    /**
+     * Write all pending changes and close the database connections.
+     * Called on program end.
+     */
+    fun close() {
+        if (!closed.compareAndSet(false, true))
+            return
+
+        runOnWriter {
+            flush()
+            insertStatement.close()
+            deleteStatement.close()
+        }
+        database.close()
 
         try {
-            insertStatement?.close()
-            deleteStatement?.close()
-            seenStatement?.close()
-            connection?.close()
-
             // at this stage we have closed everything and we don´t need the shutdown hook to cleanup
-            if (shutdownThread != null)
+            if (shutdownThread != null && Thread.currentThread() !== shutdownThread)
                 Runtime.getRuntime().removeShutdownHook(shutdownThread)
-        } catch (ex: SQLException) {
-            logger.error("close", ex)
-        }
-    }
-
-    companion object {
-        private val logger = LogManager.getLogger()
-        private const val INSERT_SQL = "INSERT INTO seen_history(thema,titel,url) values (?,?,?)"
-        private const val DELETE_SQL = "DELETE FROM seen_history WHERE url = ?"
-        private const val SEEN_SQL = "SELECT COUNT(url) AS total FROM seen_history WHERE url = ?"
-    }
-
-    private fun performSqliteSetup() {
-        connection!!.createStatement().use { statement ->
-            basicSqliteSettings(statement)
-            val cpus = Runtime.getRuntime().availableProcessors() / 2
-            statement.executeUpdate("PRAGMA threads=$cpus")
+        } catch (ignored: IllegalStateException) {
+            // shutdown is already in progress
         }
     }
 
@@ -262,25 +260,40 @@ class SeenHistoryController : AutoCloseable {
      * This allows SQLite to perform additional file cleanup like deletion of WAL and shared-memory files.
      */
     private fun installShutdownHook() {
-        shutdownThread = SeenHistoryShutdownHook(connection)
+        shutdownThread = SeenHistoryShutdownHook(this)
         Runtime.getRuntime().addShutdownHook(shutdownThread)
     }
 
-    init {
-        try {
-            if (!Files.exists(SqlDatabaseConfig.historyDbPath)) {
-                // create new empty database
-                createEmptyDatabase(SqlDatabaseConfig.historyDbPath)
-            }
+    /**
+     * A queued change.
+     */
+    private class PendingMark(val thema: String, val titel: String, val url: String, val seen: Boolean)
 
-            // open and use database
-            connection = dataSource.connection
+    private object ControllerHolder {
+        val INSTANCE = SeenHistoryController()
+    }
 
-            performSqliteSetup()
+    companion object {
+        private val logger = LogManager.getLogger()
+        private const val UNIQUE_INDEX_NAME = "IDX_SEEN_HISTORY_URL_UNIQUE"
+        private const val CREATE_UNIQUE_INDEX_SQL = "CREATE UNIQUE INDEX IF NOT EXISTS $UNIQUE_INDEX_NAME ON seen_history(url)"
+        private const val INSERT_SQL = "INSERT OR IGNORE INTO seen_history(thema,titel,url) values (?,?,?)"
+        private const val DELETE_SQL = "DELETE FROM seen_history WHERE url = ?"
+
+        @JvmStatic
+        fun getInstance(): SeenHistoryController = ControllerHolder.INSTANCE
+    }
 
-            insertStatement = connection?.prepareStatement(INSERT_SQL)
-            deleteStatement = connection?.prepareStatement(DELETE_SQL)
-            seenStatement = connection?.prepareStatement(SEEN_SQL)
+    init {
+        try {
+            // use the database on the writer thread, the abo history may write at the same time
+            database.call { connection ->
+                writeConnection = connection
+                ensureUniqueUrlIndex()
+                insertStatement = writeConnection.prepareStatement(INSERT_SQL)
+                deleteStatement = writeConnection.prepareStatement(DELETE_SQL)
+                loadSeenIndex()
+            }
 
             installShutdownHook()
         } catch (ex: SQLException) {
@@ -288,4 +301,4 @@ class SeenHistoryController : AutoCloseable {
             exitProcess(99)
         }
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,10 @@
 package mediathek.controller.history
 
-import java.sql.Connection
-
 /**
- * Shutdown hook implementation to close a SQL connection if it is still open at program end.
+ * Shutdown hook implementation to write pending changes and close the SQL connections if they are still open at program end.
  */
-class SeenHistoryShutdownHook(private val connection: Connection?) : Thread() {
+class SeenHistoryShutdownHook(private val controller: SeenHistoryController) : Thread() {
     override fun run() {
-        if (connection == null)
-            return
-        else {
-            if (!connection.isClosed) {
-                connection.close()
-            }
-        }
+        controller.close()
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package mediathek.controller.history;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Set of seen film urls kept in memory for the lifetime of the application.
+ * <p>
+ * Only a 64 bit hash of every url is stored in an open addressing table of primitive longs, 100.000 urls
+ * need about 2 MB. A hash collision between two urls is possible in theory but negligible at this size.
+ * Lookups are lock free as long as no change happens at the same time, the table is therefore cheap to
+ * query from the table renderer and parallel filter streams.
+ */
+final class SeenUrlIndex {
+    private static final HashFunction HASH_FUNCTION = Hashing.farmHashFingerprint64();
+    private static final int MIN_CAPACITY = 1024;
+    /**
+     * Marks an unused slot, a url hashing to this value is stored as {@link #ZERO_REPLACEMENT}.
+     */
+    private static final long EMPTY = 0;
+    private static final long ZERO_REPLACEMENT = 1;
+    private final StampedLock lock = new StampedLock();
+    private long[] table = new long[MIN_CAPACITY];
+    private int size;
+
+    static long hash(@NotNull String url) {
+        final long hash = HASH_FUNCTION.hashUnencodedChars(url).asLong();
+        return hash == EMPTY ? ZERO_REPLACEMENT : hash;
+    }
+
+    private static int slot(long hash, int mask) {
+        // spread the upper bits as the table size is a power of two
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Probe the table for a hash.
+     *
+     * @return the slot containing the hash or the empty slot where it would be inserted.
+     */
+    private static int find(long[] table, long hash) {
+        final int mask = table.length - 1;
+        int index = slot(hash, mask);
+        // bounded as a concurrent change may be observed by an optimistic read
+        for (int i = 0; i < table.length; i++) {
+            final long value = table[index];
+            if (value == hash || value == EMPTY)
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(@NotNull String url) {
+        final long hash = hash(url);
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            final long[] current = table;
+            final int index = find(current, hash);
+            final boolean found = index >= 0 && current[index] == hash;
+            if (lock.validate(stamp))
+                return found;
+        }
+
+        stamp = lock.readLock();
+        try {
+            final int index = find(table, hash);
+            return index >= 0 && table[index] == hash;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void add(@NotNull String url) {
+        final long hash = hash(url);
+        final long stamp = lock.writeLock();
+        try {
+            insert(hash);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Add many urls at once, used for the initial load.
+     */
+    public void addAll(@NotNull Iterable<String> urls) {
+        final long stamp = lock.writeLock();
+        try {
+            for (var url : urls)
+                insert(hash(url));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(@NotNull String url) {
+        final long hash = hash(url);
+        final long stamp = lock.writeLock();
+        try {
+            int index = find(table, hash);
+            if (table[index] != hash)
+                return;
+
+            // backward shift deletion, keeps all probe sequences intact without tombstones
+            final int mask = table.length - 1;
+            int next = (index + 1) & mask;
+            while (table[next] != EMPTY) {
+                final int home = slot(table[next], mask);
+                // move the entry if its home slot is not between the free slot and its current position
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    table[index] = table[next];
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[index] = EMPTY;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        final long stamp = lock.writeLock();
+        try {
+            table = new long[MIN_CAPACITY];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Must be called with the write lock held.
+     */
+    private void insert(long hash) {
+        final int index = find(table, hash);
+        if (table[index] == hash)
+            return;
+
+        table[index] = hash;
+        size++;
+        // keep the load factor below 0.5 so probe sequences stay short
+        if (size * 2 > table.length)
+            resize(table.length * 2);
+    }
+
+    private void resize(int capacity) {
+        final long[] newTable = new long[capacity];
+        for (long value : table) {
+            if (value != EMPTY)
+                newTable[find(newTable, value)] = value;
+        }
+        table = newTable;
+    }
+}
@@ -1,8 +1,8 @@
 package mediathek.controller.starter;
 
-import com.google.common.util.concurrent.RateLimiter;
 import mediathek.config.Daten;
 import mediathek.config.Konstanten;
+import mediathek.controller.BandwidthScheduler;
 import mediathek.controller.MVBandwidthCountingInputStream;
 import mediathek.controller.ThrottlingInputStream;
 import mediathek.daten.DatenDownload;
@@ -13,16 +13,14 @@ import mediathek.mainwindow.MediathekGui;
 import mediathek.tool.*;
 import mediathek.tool.http.MVHttpClient;
 import net.engio.mbassy.bus.MBassador;
-import net.engio.mbassy.listener.Handler;
 import okhttp3.*;
-import okio.Okio;
-import okio.Sink;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -34,17 +32,13 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 
-public class DirectHttpDownload extends Thread {
+public class DirectHttpDownload implements Runnable {
 
     private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
     private static final Logger logger = LogManager.getLogger(DirectHttpDownload.class);
     private final Daten daten;
     private final DatenDownload datenDownload;
     private final Start start;
-    /**
-     * Instance which will limit the download speed
-     */
-    private final RateLimiter rateLimiter;
     private final MBassador<BaseEvent> messageBus;
     private final OkHttpClient httpClient;
     private HttpDownloadState state = HttpDownloadState.DOWNLOAD;
@@ -53,6 +47,16 @@ public class DirectHttpDownload extends Thread {
      * 0 if nothing has been downloaded before.
      */
     private long alreadyDownloaded;
+    /**
+     * True if the server announced support for byte range requests.
+     */
+    private boolean acceptsRanges;
+    /**
+     * Last reported progress values.
+     */
+    private long reportedSize;
+    private long reportedPermille;
+    private long startPermille = -1;
     private File file;
     private boolean retAbbrechen;
     private boolean dialogAbbrechenIsVis;
@@ -60,55 +64,17 @@ public class DirectHttpDownload extends Thread {
     private CompletableFuture<Void> subtitleFuture;
 
     public DirectHttpDownload(Daten daten, DatenDownload d) {
-        super();
-
         httpClient = MVHttpClient.getInstance().getHttpClient();
-        rateLimiter = RateLimiter.create(getDownloadLimit());
         messageBus = MessageBus.getMessageBus();
-        messageBus.subscribe(this);
 
         this.daten = daten;
         datenDownload = d;
         start = datenDownload.start;
-        setName("DIRECT DL THREAD_" + d.arr[DatenDownload.DOWNLOAD_TITEL]);
 
         start.status = Start.STATUS_RUN;
         StarterClass.notifyStartEvent(datenDownload);
     }
 
-    /**
-     * Handles the rate limit change launched somewhere in the UI
-     *
-     * @param evt the new limit
-     */
-    @Handler
-    private void handleRateLimitChanged(DownloadRateLimitChangedEvent evt) {
-        final long limit = calculateDownloadLimit(evt.newLimit);
-        logger.info("thread changing download speed limit to {} KB", limit);
-        rateLimiter.setRate(limit);
-    }
-
-    private long calculateDownloadLimit(long limit) {
-        long newLimit;
-
-        if (limit <= 0)
-            newLimit = 10 * FileUtils.ONE_GB;
-        else
-            newLimit = limit * FileUtils.ONE_KB;
-
-        return newLimit;
-    }
-
-    /**
-     * Try to read the download limit from config file, other set to artificial limit 1GB/s!
-     *
-     * @return the limit in KB/s
-     */
-    private long getDownloadLimit() {
-        final long downloadLimit = ApplicationConfiguration.getConfiguration().getLong(ApplicationConfiguration.DOWNLOAD_RATE_LIMIT, 0);
-        return calculateDownloadLimit(downloadLimit);
-    }
-
     /**
      * Return the content length of the requested Url.
      *
@@ -125,6 +91,7 @@ public class DirectHttpDownload extends Thread {
         try (Response response = MVHttpClient.getInstance().getReducedTimeOutClient().newCall(request).execute()) {
             if (response.isSuccessful()) {
                 contentSize = FileSize.getContentLength(response);
+                acceptsRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
 
                 // alles unter 300k sind Playlisten, ...
                 if (contentSize < 300_000) {
@@ -142,7 +109,7 @@ public class DirectHttpDownload extends Thread {
 
     private void startInfoFileDownload() {
         final boolean downloadInfoFile = Boolean.parseBoolean(datenDownload.arr[DatenDownload.DOWNLOAD_INFODATEI]);
-        if (downloadInfoFile) {
+        if (downloadInfoFile && infoFuture == null) {
             infoFuture = CompletableFuture.runAsync(() -> {
                 try {
                     MVInfoFile infoFile = new MVInfoFile();
@@ -155,7 +122,7 @@ public class DirectHttpDownload extends Thread {
     }
 
     private void downloadSubtitleFile() {
-        if (Boolean.parseBoolean(datenDownload.arr[DatenDownload.DOWNLOAD_SUBTITLE])) {
+        if (Boolean.parseBoolean(datenDownload.arr[DatenDownload.DOWNLOAD_SUBTITLE]) && subtitleFuture == null) {
             subtitleFuture = CompletableFuture.runAsync(() -> {
                 MVSubtitle subtitleFile = new MVSubtitle();
                 subtitleFile.writeSubtitle(datenDownload);
@@ -168,79 +135,138 @@ public class DirectHttpDownload extends Thread {
      *
      * @throws IOException the io errors that may occur.
      */
-    private void downloadContent(InputStream inputStream) throws IOException {
+    private void downloadContent(InputStream inputStream, @NotNull HttpUrl url) throws IOException {
         startInfoFileDownload();
 
         downloadSubtitleFile();
 
         datenDownload.interruptRestart();
 
-        Sink fileSink;
-        if (alreadyDownloaded != 0)
-            fileSink = Okio.appendingSink(file);
-        else
-            fileSink = Okio.sink(file);
-        try (fileSink;
-             var bufferedSink = Okio.buffer(fileSink);
-             ThrottlingInputStream tis = new ThrottlingInputStream(inputStream, rateLimiter);
+        try (var fileStream = new FileOutputStream(file, alreadyDownloaded != 0);
+             ThrottlingInputStream tis = new ThrottlingInputStream(inputStream, BandwidthScheduler.getInstance().register(url.host()));
              MVBandwidthCountingInputStream mvis = new MVBandwidthCountingInputStream(tis)) {
             start.mVBandwidthCountingInputStream = mvis;
             datenDownload.mVFilmSize.addAktSize(alreadyDownloaded);
-            final byte[] buffer = new byte[1024];
-            long p, pp = 0, startProzent = -1;
-            int len;
-            long aktBandwidth, aktSize = 0;
-            boolean melden = false;
-
-            while ((len = start.mVBandwidthCountingInputStream.read(buffer)) != -1 && (!start.stoppen)) {
-                alreadyDownloaded += len;
-                bufferedSink.write(buffer, 0, len);
-                datenDownload.mVFilmSize.addAktSize(len);
-
-                //für die Anzeige prüfen ob sich was geändert hat
-                if (aktSize != datenDownload.mVFilmSize.getAktSize()) {
-                    aktSize = datenDownload.mVFilmSize.getAktSize();
-                    melden = true;
-                }
-                if (datenDownload.mVFilmSize.getSize() > 0) {
-                    p = (aktSize * (long) 1000) / datenDownload.mVFilmSize.getSize();
-                    if (startProzent == -1) {
-                        startProzent = p;
-                    }
-                    // p muss zwischen 1 und 999 liegen
-                    if (p == 0) {
-                        p = Start.PROGRESS_GESTARTET;
-                    } else if (p >= 1000) {
-                        p = 999;
-                    }
-                    start.percent = (int) p;
-                    if (p != pp) {
-                        pp = p;
-                        // Restzeit ermitteln
-                        if (p > 2 && p > startProzent) {
-                            // sonst macht es noch keinen Sinn
-                            final var diffZeit = Duration.between(start.startTime, LocalDateTime.now()).toSeconds();
-                            final long restProzent = 1000L - p;
-                            start.restSekunden = (diffZeit * restProzent / (p - startProzent));
-                            // anfangen zum Schauen kann man, wenn die Restzeit kürzer ist
-                            // als die bereits geladene Speilzeit des Films
-                            bereitsAnschauen(datenDownload);
-                        }
-                        melden = true;
-                    }
-                }
-                aktBandwidth = start.mVBandwidthCountingInputStream.getBandwidth(); // bytes per second
-                if (aktBandwidth != start.bandbreite) {
-                    start.bandbreite = aktBandwidth;
-                    melden = true;
-                }
-                if (melden) {
-                    MessageBus.getMessageBus().publishAsync(new DownloadProgressChangedEvent());
-                    melden = false;
+
+            final var transfer = new DownloadTransfer(() -> start.stoppen, bytes -> {
+                alreadyDownloaded += bytes;
+                datenDownload.mVFilmSize.addAktSize(bytes);
+                updateProgress();
+            });
+            transfer.transfer(mvis, fileStream);
+        }
+
+        finishDownload();
+    }
+
+    /**
+     * Load the file over several connections.
+     * Resumes an interrupted segmented download if its state is available.
+     *
+     * @return false if the server ignores range requests, the file must be loaded over a single connection then.
+     */
+    private boolean downloadSegments(@NotNull HttpUrl url) throws IOException {
+        startInfoFileDownload();
+
+        downloadSubtitleFile();
+
+        datenDownload.interruptRestart();
+
+        final boolean resume = alreadyDownloaded != 0;
+        if (!resume)
+            SegmentedHttpDownload.deleteState(file);
+
+        try (MVBandwidthCountingInputStream mvis = new MVBandwidthCountingInputStream(InputStream.nullInputStream())) {
+            start.mVBandwidthCountingInputStream = mvis;
+            final var segmentedDownload = new SegmentedHttpDownload(httpClient, url, getUserAgent(), file,
+                    datenDownload.mVFilmSize.getSize(), start, mvis);
+            segmentedDownload.download(getSegmentCount(), resume, loaded -> {
+                alreadyDownloaded = loaded;
+                datenDownload.mVFilmSize.setAktSize(loaded);
+                updateProgress();
+            });
+        } catch (SegmentedHttpDownload.RangeNotSupportedException e) {
+            logger.warn("Server {} ignores range requests, loading over a single connection", url.host());
+            acceptsRanges = false;
+            alreadyDownloaded = 0;
+            datenDownload.mVFilmSize.setAktSize(0);
+            return false;
+        }
+
+        finishDownload();
+        return true;
+    }
+
+    private int getSegmentCount() {
+        return ApplicationConfiguration.getConfiguration().getInt(ApplicationConfiguration.DOWNLOAD_SEGMENTS_NUM, 1);
+    }
+
+    /**
+     * Check if the file can be loaded in segments.
+     * An interrupted segmented download is always continued in segments.
+     */
+    private boolean useSegments() {
+        final long size = datenDownload.mVFilmSize.getSize();
+        if (!acceptsRanges || size <= 0)
+            return false;
+
+        if (alreadyDownloaded != 0)
+            return SegmentedHttpDownload.hasState(file);
+
+        return getSegmentCount() > 1 && size >= 2 * SegmentedHttpDownload.MIN_SEGMENT_SIZE;
+    }
+
+    /**
+     * Update percentage, remaining time and bandwidth from the current download size
+     * and notify the UI if something has changed.
+     */
+    private void updateProgress() {
+        boolean melden = false;
+
+        //für die Anzeige prüfen ob sich was geändert hat
+        final long aktSize = datenDownload.mVFilmSize.getAktSize();
+        if (aktSize != reportedSize) {
+            reportedSize = aktSize;
+            melden = true;
+        }
+        if (datenDownload.mVFilmSize.getSize() > 0) {
+            long p = (aktSize * (long) 1000) / datenDownload.mVFilmSize.getSize();
+            if (startPermille == -1) {
+                startPermille = p;
+            }
+            // p muss zwischen 1 und 999 liegen
+            if (p == 0) {
+                p = Start.PROGRESS_GESTARTET;
+            } else if (p >= 1000) {
+                p = 999;
+            }
+            start.percent = (int) p;
+            if (p != reportedPermille) {
+                reportedPermille = p;
+                // Restzeit ermitteln
+                if (p > 2 && p > startPermille) {
+                    // sonst macht es noch keinen Sinn
+                    final var diffZeit = Duration.between(start.startTime, LocalDateTime.now()).toSeconds();
+                    final long restProzent = 1000L - p;
+                    start.restSekunden = (diffZeit * restProzent / (p - startPermille));
+                    // anfangen zum Schauen kann man, wenn die Restzeit kürzer ist
+                    // als die bereits geladene Speilzeit des Films
+                    bereitsAnschauen(datenDownload);
                 }
+                melden = true;
             }
         }
+        final long aktBandwidth = start.mVBandwidthCountingInputStream.getBandwidth(); // bytes per second
+        if (aktBandwidth != start.bandbreite) {
+            start.bandbreite = aktBandwidth;
+            melden = true;
+        }
+        if (melden) {
+            MessageBus.getMessageBus().publishAsync(new DownloadProgressChangedEvent());
+        }
+    }
 
+    private void finishDownload() {
         start.bandbreite = start.mVBandwidthCountingInputStream.getSumBandwidth();
         if (!start.stoppen) {
             if (datenDownload.quelle == DatenDownload.QUELLE_BUTTON) {
@@ -297,36 +323,38 @@ public class DirectHttpDownload extends Thread {
                 datenDownload.mVFilmSize.setSize(getContentLength(url));
                 datenDownload.mVFilmSize.setAktSize(0);
 
-                Request request = buildDownloadRequest(url);
-                response = httpClient.newCall(request).execute();
-                body = response.body();
-                if (response.isSuccessful() && body != null) {
-                    downloadContent(body.byteStream());
-                } else {
-                    final int responseCode = response.code();
-                    if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
-                        //close old stuff first
-                        if (body != null)
-                            body.close();
-                        response.close();
-
-                        //reset download count
-                        alreadyDownloaded = 0;
-                        request = buildDownloadRequest(url);
-                        response = httpClient.newCall(request).execute();
-                        body = response.body();
-                        if (response.isSuccessful() && body != null)
-                            downloadContent(body.byteStream());
-                        else {
-                            printHttpErrorMessage(response);
-                        }
+                if (!useSegments() || !downloadSegments(url)) {
+                    Request request = buildDownloadRequest(url);
+                    response = httpClient.newCall(request).execute();
+                    body = response.body();
+                    if (response.isSuccessful() && body != null) {
+                        downloadContent(body.byteStream(), url);
                     } else {
-                        if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
-                            logger.error("HTTP error 404 received for URL: {}", request.url().toString());
-                            state = HttpDownloadState.ERROR;
-                            start.status = Start.STATUS_ERR;
+                        final int responseCode = response.code();
+                        if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+                            //close old stuff first
+                            if (body != null)
+                                body.close();
+                            response.close();
+
+                            //reset download count
+                            alreadyDownloaded = 0;
+                            request = buildDownloadRequest(url);
+                            response = httpClient.newCall(request).execute();
+                            body = response.body();
+                            if (response.isSuccessful() && body != null)
+                                downloadContent(body.byteStream(), url);
+                            else {
+                                printHttpErrorMessage(response);
+                            }
                         } else {
-                            printHttpErrorMessage(response);
+                            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                                logger.error("HTTP error 404 received for URL: {}", request.url().toString());
+                                state = HttpDownloadState.ERROR;
+                                start.status = Start.STATUS_ERR;
+                            } else {
+                                printHttpErrorMessage(response);
+                            }
                         }
                     }
                 }
@@ -349,7 +377,6 @@ public class DirectHttpDownload extends Thread {
         StarterClass.finalizeDownload(datenDownload, start, state);
 
         messageBus.publishAsync(new DownloadFinishedEvent());
-        messageBus.unsubscribe(this);
     }
 
     private void waitForPendingDownloads() {
@@ -0,0 +1,69 @@
+package mediathek.controller.starter;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Copies the body of a direct download into the target file.
+ * <p>
+ * The buffer starts at {@link #MIN_BUFFER_SIZE} and grows as long as the connection fills it completely,
+ * fast connections therefore need only few large reads and writes.
+ * Progress is not reported per read but collected and passed on at most every {@link #PROGRESS_INTERVAL_NANOS}.
+ */
+class DownloadTransfer {
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BUFFER_SIZE = 1024 * 1024;
+    static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private final BooleanSupplier stopped;
+    private final LongConsumer progress;
+
+    /**
+     * @param stopped  checked before every read, the transfer ends when it returns true
+     * @param progress receives the number of bytes written since its last call
+     */
+    DownloadTransfer(@NotNull BooleanSupplier stopped, @NotNull LongConsumer progress) {
+        this.stopped = stopped;
+        this.progress = progress;
+    }
+
+    /**
+     * Copy until the end of the input stream or until the download is stopped.
+     *
+     * @return the number of bytes written.
+     */
+    long transfer(@NotNull InputStream in, @NotNull OutputStream out) throws IOException {
+        byte[] buffer = new byte[MIN_BUFFER_SIZE];
+        long total = 0;
+        long pending = 0;
+        long nextProgress = System.nanoTime() + PROGRESS_INTERVAL_NANOS;
+        int len;
+
+        while (!stopped.getAsBoolean() && (len = in.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, len);
+            total += len;
+            pending += len;
+
+            // the connection delivers more than fits into the buffer
+            if (len == buffer.length && buffer.length < MAX_BUFFER_SIZE)
+                buffer = new byte[buffer.length * 2];
+
+            final long now = System.nanoTime();
+            if (now - nextProgress >= 0) {
+                progress.accept(pending);
+                pending = 0;
+                nextProgress = now + PROGRESS_INTERVAL_NANOS;
+            }
+        }
+
+        if (pending > 0)
+            progress.accept(pending);
+
+        return total;
+    }
+}
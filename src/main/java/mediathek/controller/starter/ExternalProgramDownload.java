@@ -23,11 +23,13 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Download files via an external program.
  */
-public class ExternalProgramDownload extends Thread {
+public class ExternalProgramDownload implements Runnable {
 
     private static final Logger logger = LogManager.getLogger();
     private static final int STAT_START = 0;
@@ -38,6 +40,10 @@ public class ExternalProgramDownload extends Thread {
     private static final int STAT_FERTIG_OK = 10;
     private static final int STAT_FERTIG_FEHLER = 11;
     private static final int STAT_ENDE = 99;
+    /**
+     * Interval for checking if a running download was stopped by the user.
+     */
+    private static final long STOP_CHECK_INTERVAL_MS = 500;
     private final DatenDownload datenDownload;
     private final Start start;
     private File file;
@@ -48,8 +54,6 @@ public class ExternalProgramDownload extends Thread {
     private CompletableFuture<Void> subtitleFuture;
 
     public ExternalProgramDownload(DatenDownload d) {
-        setName("EXTERNAL PROGRAM DL THREAD: " + d.arr[DatenDownload.DOWNLOAD_TITEL]);
-
         datenDownload = d;
         start = datenDownload.start;
         start.status = Start.STATUS_RUN;
@@ -92,14 +96,15 @@ public class ExternalProgramDownload extends Thread {
                             break;
                         case STAT_LAUFEN:
                             //hier läuft der Download bis zum Abbruch oder Ende
-                            try {
-                                if (start.stoppen) {
-                                    stat = STAT_FERTIG_OK;
-                                    if (start.process != null) {
-                                        start.process.destroy();
-                                    }
-                                } else {
-                                    if (start.process.exitValue() != 0) {
+                            if (start.stoppen) {
+                                stat = STAT_FERTIG_OK;
+                                if (start.process != null) {
+                                    start.process.destroy();
+                                }
+                            } else {
+                                final Process process = waitForExit(start.process);
+                                if (process != null) {
+                                    if (process.exitValue() != 0) {
                                         stat = STAT_RESTART;
                                     } else {
                                         /*
@@ -111,11 +116,6 @@ public class ExternalProgramDownload extends Thread {
                                         stat = STAT_PRUEFEN;
                                     }
                                 }
-                            } catch (Exception ex) {
-                                try {
-                                    this.wait(2000);
-                                } catch (InterruptedException ignored) {
-                                }
                             }
                             break;
                         case STAT_RESTART:
@@ -186,6 +186,25 @@ public class ExternalProgramDownload extends Thread {
         MessageBus.getMessageBus().publish(new DownloadFinishedEvent());
     }
 
+    /**
+     * Wait for the end of the process but return regularly to check if the download was stopped.
+     *
+     * @return the process if it has terminated, null if it is still running.
+     */
+    private Process waitForExit(Process process) {
+        try {
+            return process.onExit().get(STOP_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ignored) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // further waits would return at once, stop the download instead of spinning
+            start.stoppen = true;
+        } catch (ExecutionException e) {
+            logger.error("waitForExit()", e);
+        }
+        return null;
+    }
+
     private void startInfoFileDownload() {
         final boolean downloadInfoFile = Boolean.parseBoolean(datenDownload.arr[DatenDownload.DOWNLOAD_INFODATEI]);
         if (downloadInfoFile) {
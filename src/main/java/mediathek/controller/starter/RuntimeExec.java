@@ -37,6 +37,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -58,6 +60,15 @@ public class RuntimeExec {
     private static final String PATTERN_SIZE = "(?<=size=)[^k]*"; // frame=  147 fps= 17 q=-1.0 size=    1588kB time=00:00:05.84 bitrate=2226.0kbits/s
     private static final Logger logger = LogManager.getLogger();
     private static final AtomicInteger processNr = new AtomicInteger(0);
+    /**
+     * Reads the output of all started programs, threads are reused for the next program.
+     */
+    private static final ExecutorService STREAM_READER = Executors.newCachedThreadPool(r -> {
+        var thread = new Thread(r);
+        thread.setName("ClearInOut: " + thread.getId());
+        thread.setDaemon(true);
+        return thread;
+    });
     private final String strProgCall;
     private Process process;
     private Start start;
@@ -104,12 +115,8 @@ public class RuntimeExec {
                 process = Runtime.getRuntime().exec(strProgCall);
             }
 
-            Thread clearIn = new Thread(new ClearInOut(IoType.INPUT, process));
-            Thread clearOut = new Thread(new ClearInOut(IoType.ERROR, process));
-            clearIn.setName("ClearIn: " + clearIn.getId());
-            clearOut.setName("ClearOut: " + clearOut.getId());
-            clearIn.start();
-            clearOut.start();
+            STREAM_READER.execute(new ClearInOut(IoType.INPUT, process));
+            STREAM_READER.execute(new ClearInOut(IoType.ERROR, process));
         } catch (Exception ex) {
             logger.error("Fehler beim Starten", ex);
         }
@@ -0,0 +1,384 @@
+package mediathek.controller.starter;
+
+import mediathek.controller.BandwidthScheduler;
+import mediathek.controller.MVBandwidthCountingInputStream;
+import mediathek.controller.ThrottlingInputStream;
+import mediathek.tool.FileUtils;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Loads a file over several HTTP connections.
+ * Every connection requests its own byte range and writes it directly to its position in the pre-allocated file.
+ * <p>
+ * The progress of all segments is stored next to the file, an interrupted download continues with the
+ * missing ranges only.
+ */
+public class SegmentedHttpDownload {
+    /**
+     * Files smaller than two segments of this size are loaded over a single connection.
+     */
+    static final long MIN_SEGMENT_SIZE = 8 * FileUtils.ONE_MB;
+    private static final String STATE_FILE_EXTENSION = ".segments";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final long SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    private static final Logger logger = LogManager.getLogger();
+    private final OkHttpClient httpClient;
+    private final HttpUrl url;
+    private final String userAgent;
+    private final File file;
+    private final Path stateFile;
+    private final long size;
+    private final Start start;
+    private final MVBandwidthCountingInputStream bandwidthCounter;
+    /**
+     * Set when one segment failed, the others stop then as well.
+     */
+    private volatile boolean aborted;
+    /**
+     * Requests of the running segments.
+     */
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+
+    SegmentedHttpDownload(@NotNull OkHttpClient httpClient, @NotNull HttpUrl url, @NotNull String userAgent,
+                          @NotNull File file, long size, @NotNull Start start,
+                          @NotNull MVBandwidthCountingInputStream bandwidthCounter) {
+        this.httpClient = httpClient;
+        this.url = url;
+        this.userAgent = userAgent;
+        this.file = file;
+        this.stateFile = getStateFile(file);
+        this.size = size;
+        this.start = start;
+        this.bandwidthCounter = bandwidthCounter;
+    }
+
+    private static Path getStateFile(@NotNull File file) {
+        return file.toPath().resolveSibling(file.getName() + STATE_FILE_EXTENSION);
+    }
+
+    /**
+     * @return true if an interrupted segmented download of this file can be continued.
+     */
+    static boolean hasState(@NotNull File file) {
+        return Files.exists(getStateFile(file));
+    }
+
+    /**
+     * Remove the segment state of a file which will be loaded again from the start
+     * or whose download was removed.
+     */
+    public static void deleteState(@NotNull File file) {
+        try {
+            Files.deleteIfExists(getStateFile(file));
+        } catch (IOException e) {
+            logger.error("Failed to delete segment state of {}", file, e);
+        }
+    }
+
+    /**
+     * Load all missing segments.
+     * Returns when all segments are complete, the download was stopped or a segment failed.
+     *
+     * @param segmentCount number of segments for a new download
+     * @param resume       continue from the stored state if possible
+     * @param progress     called periodically on the calling thread with the number of bytes loaded so far
+     * @throws RangeNotSupportedException if the server ignores range requests, the state is removed then.
+     * @throws IOException                if a segment could not be loaded.
+     */
+    void download(int segmentCount, boolean resume, @NotNull LongConsumer progress) throws IOException {
+        List<Segment> segments = resume ? loadState() : null;
+        if (segments == null) {
+            segments = createSegments(segmentCount);
+            try (var raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(size);
+            }
+        }
+        saveState(segments);
+
+        final var pending = segments.stream().filter(s -> !s.isComplete()).toList();
+        final var threadNumber = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(Math.max(1, pending.size()), r -> {
+            var thread = new Thread(r, "SEGMENT DL THREAD_" + file.getName() + '_' + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // all segments share the bandwidth of one download
+        try (var lease = BandwidthScheduler.getInstance().register(url.host());
+             var channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            final CompletableFuture<?>[] futures;
+            try {
+                futures = pending.stream()
+                        .map(segment -> CompletableFuture.runAsync(() -> loadSegment(segment, channel, lease), executor)
+                                .whenComplete((result, ex) -> {
+                                    // stop the other segments, the state is saved below
+                                    if (ex != null)
+                                        stopSegments();
+                                }))
+                        .toArray(CompletableFuture[]::new);
+                waitForSegments(CompletableFuture.allOf(futures), segments, progress);
+            } finally {
+                // the segments use the channel and the lease, both must stay open until all have ended
+                awaitTermination(executor);
+            }
+            progress.accept(getLoadedBytes(segments));
+
+            if (segments.stream().allMatch(Segment::isComplete) || start.verwerfen) {
+                Files.deleteIfExists(stateFile);
+            } else {
+                saveState(segments);
+                for (var future : futures) {
+                    if (future.isCompletedExceptionally()) {
+                        try {
+                            future.join();
+                        } catch (CompletionException e) {
+                            if (e.getCause() instanceof RangeNotSupportedException)
+                                Files.deleteIfExists(stateFile);
+                            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                        }
+                    }
+                }
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedIOException("Segmentierter Download unterbrochen");
+            }
+        }
+    }
+
+    /**
+     * Report the progress and save the state periodically until all segments have ended.
+     * Stops the segments if the calling thread is interrupted.
+     */
+    private void waitForSegments(@NotNull CompletableFuture<Void> all, @NotNull List<Segment> segments,
+                                 @NotNull LongConsumer progress) throws IOException {
+        long lastSave = System.nanoTime();
+        while (!all.isDone()) {
+            try {
+                all.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopSegments();
+                return;
+            }
+
+            progress.accept(getLoadedBytes(segments));
+            if (System.nanoTime() - lastSave > SAVE_INTERVAL_NANOS) {
+                saveState(segments);
+                lastSave = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Let all segments end at their current position.
+     * Running requests are cancelled, so that segments waiting for data return immediately.
+     */
+    private void stopSegments() {
+        aborted = true;
+        calls.forEach(Call::cancel);
+    }
+
+    /**
+     * Wait until all segment threads have ended.
+     * The threads are only interrupted if they do not end in time, as an interrupt closes the shared channel.
+     * An interrupt of the calling thread is kept.
+     */
+    private void awaitTermination(@NotNull ExecutorService executor) {
+        executor.shutdown();
+        final boolean interrupted = Thread.interrupted();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Segments of {} did not stop in time", file);
+                executor.shutdownNow();
+                if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    logger.error("Segments of {} could not be stopped", file);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private long getLoadedBytes(@NotNull List<Segment> segments) {
+        return segments.stream().mapToLong(Segment::getLoaded).sum();
+    }
+
+    @NotNull List<Segment> createSegments(int segmentCount) {
+        final int count = (int) Math.max(1, Math.min(segmentCount, size / MIN_SEGMENT_SIZE));
+        final long segmentSize = size / count;
+        final List<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final long begin = i * segmentSize;
+            final long end = i == count - 1 ? size : begin + segmentSize;
+            segments.add(new Segment(begin, end, begin));
+        }
+        return segments;
+    }
+
+    /**
+     * Read the stored segments, each line contains begin, end and current position of a segment.
+     *
+     * @return the segments or null if there is no usable state for this file.
+     */
+    @Nullable List<Segment> loadState() {
+        try {
+            final var lines = Files.readAllLines(stateFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || Long.parseLong(lines.get(0).trim()) != size || file.length() != size)
+                return null;
+
+            final List<Segment> segments = new ArrayList<>();
+            for (var line : lines.subList(1, lines.size())) {
+                final var values = line.trim().split(" ");
+                final long begin = Long.parseLong(values[0]);
+                final long end = Long.parseLong(values[1]);
+                final long position = Long.parseLong(values[2]);
+                if (begin < 0 || end > size || position < begin || position > end)
+                    return null;
+                segments.add(new Segment(begin, end, position));
+            }
+            return segments.isEmpty() ? null : segments;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Segment state of {} is not usable, starting again", file);
+            return null;
+        }
+    }
+
+    void saveState(@NotNull List<Segment> segments) throws IOException {
+        final var sb = new StringBuilder().append(size).append('\n');
+        for (var segment : segments) {
+            sb.append(segment.begin).append(' ')
+                    .append(segment.end).append(' ')
+                    .append(segment.position.get()).append('\n');
+        }
+        Files.writeString(stateFile, sb, StandardCharsets.UTF_8);
+    }
+
+    private void loadSegment(@NotNull Segment segment, @NotNull FileChannel channel, @NotNull BandwidthScheduler.Lease lease) {
+        final long end = segment.end;
+        long position = segment.position.get();
+        final var request = new Request.Builder().url(url).get()
+                .header("User-Agent", userAgent)
+                .header("Range", "bytes=" + position + '-' + (end - 1))
+                .build();
+
+        final var call = httpClient.newCall(request);
+        calls.add(call);
+        try (Response response = call.execute()) {
+            final var body = response.body();
+            if (response.code() == HttpURLConnection.HTTP_OK) {
+                throw new RangeNotSupportedException("Server ignoriert Teilbereiche, Responsecode: " + response.code());
+            }
+            if (response.code() != HttpURLConnection.HTTP_PARTIAL || body == null) {
+                throw new IOException("Server liefert keinen Teilbereich, Responsecode: " + response.code());
+            }
+
+            // not closed here, the response closes the body and the lease is closed by the download
+            final var inputStream = new ThrottlingInputStream(body.byteStream(), lease);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final var byteBuffer = ByteBuffer.wrap(buffer);
+            int len;
+            while (position < end && !isStopped()
+                    && (len = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position))) != -1) {
+                byteBuffer.clear().limit(len);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer, position + byteBuffer.position());
+                }
+                position += len;
+                // only count bytes which are in the file for a later resume
+                segment.position.set(position);
+                bandwidthCounter.incrementBytesRead(len);
+            }
+
+            if (position < end && !isStopped())
+                throw new IOException("Verbindung vorzeitig beendet bei Byte " + position);
+        } catch (IOException e) {
+            // a cancelled request of a stopped download is no error, the segment is continued later
+            if (isStopped() && !(e instanceof RangeNotSupportedException))
+                return;
+            logger.error("Segment {}-{} failed", segment.begin, end, e);
+            throw new CompletionException(e);
+        } finally {
+            calls.remove(call);
+        }
+    }
+
+    private boolean isStopped() {
+        return start.stoppen || aborted;
+    }
+
+    /**
+     * The server answered a range request with the complete file, the file must be loaded over a single connection.
+     */
+    static class RangeNotSupportedException extends IOException {
+        RangeNotSupportedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Byte range [begin, end) of the file.
+     */
+    static final class Segment {
+        private final long begin;
+        private final long end;
+        private final AtomicLong position;
+
+        Segment(long begin, long end, long position) {
+            this.begin = begin;
+            this.end = end;
+            this.position = new AtomicLong(position);
+        }
+
+        long getBegin() {
+            return begin;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        long getPosition() {
+            return position.get();
+        }
+
+        boolean isComplete() {
+            return position.get() >= end;
+        }
+
+        long getLoaded() {
+            return position.get() - begin;
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class Start {
     public int percent = -1; // Prozent fertiggestellt: -1=nix, 999=99,9%
     public long bandbreite = -1; // Downloadbandbreite: bytes per second
     public boolean stoppen = false;
+    public boolean verwerfen = false; // Download gelöscht, wird nicht mehr fortgesetzt
     public boolean beginnAnschauen = false;
     public int countRestarted = 0;
 
@@ -7,15 +7,14 @@ import mediathek.controller.history.SeenHistoryController;
 import mediathek.daten.DatenDownload;
 import mediathek.daten.DatenFilm;
 import mediathek.daten.DatenPset;
-import mediathek.gui.messages.ButtonStartEvent;
-import mediathek.gui.messages.DownloadProgressChangedEvent;
-import mediathek.gui.messages.StartEvent;
+import mediathek.gui.messages.*;
 import mediathek.mac.SpotlightCommentWriter;
 import mediathek.tool.ApplicationConfiguration;
 import mediathek.tool.FileUtils;
 import mediathek.tool.MessageBus;
 import mediathek.tool.notification.MessageType;
 import mediathek.tool.notification.NotificationMessage;
+import net.engio.mbassy.listener.Handler;
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,6 +30,9 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -39,11 +41,53 @@ public class StarterClass {
     private final Daten daten;
     private final StarterThread starterThread;
     private final AtomicBoolean pause = new AtomicBoolean(false);
+    /**
+     * Runs all downloads, idle threads are reused for the next downloads.
+     */
+    private final ThreadPoolExecutor downloadExecutor = (ThreadPoolExecutor) Executors.newCachedThreadPool(r -> {
+        var thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public StarterClass(Daten daten) {
         this.daten = daten;
         starterThread = new StarterThread();
         starterThread.start();
+
+        MessageBus.getMessageBus().subscribe(this);
+    }
+
+    /**
+     * A download slot may have become free or new downloads may be waiting.
+     */
+    @Handler
+    private void handleDownloadFinishedEvent(DownloadFinishedEvent e) {
+        starterThread.wakeUp();
+    }
+
+    @Handler
+    private void handleStartEvent(StartEvent e) {
+        starterThread.wakeUp();
+    }
+
+    @Handler
+    private void handleDownloadListChangedEvent(DownloadListChangedEvent e) {
+        starterThread.wakeUp();
+    }
+
+    /**
+     * @return the number of threads currently running a download.
+     */
+    public int getActiveDownloadThreads() {
+        return downloadExecutor.getActiveCount();
+    }
+
+    /**
+     * @return the largest number of download threads which existed at the same time.
+     */
+    public int getLargestDownloadThreadCount() {
+        return downloadExecutor.getLargestPoolSize();
     }
 
     static boolean pruefen(Daten daten, DatenDownload datenDownload, Start start) {
@@ -278,9 +322,7 @@ public class StarterClass {
             d.start = new Start();
             starterThread.launchDownloadThread(d);
             // gestartete Filme (originalURL des Films) auch in die History eintragen
-            try (var historyController = new SeenHistoryController()) {
-                historyController.markSeen(film);
-            }
+            SeenHistoryController.getInstance().markSeen(film);
 
             // falls gemerkt, Film in Merkliste als abgespielt kennzeichnen
             if (film.isBookmarked()) {
@@ -288,6 +330,7 @@ public class StarterClass {
             }
             // und jetzt noch in die Downloadliste damit die Farbe im Tab Filme passt
             daten.getListeDownloadsButton().addMitNummer(d);
+            MessageBus.getMessageBus().publishAsync(new ButtonStartEvent());
         }
     }
 
@@ -308,34 +351,73 @@ public class StarterClass {
     // Ewige Schleife die die Downloads startet
     // ********************************************
     public class StarterThread extends Thread {
-        private static final long DOWNLOAD_DELAY = 2;
+        /**
+         * Time between checks for new downloads if no event wakes up the thread.
+         */
+        private static final long IDLE_WAIT_MS = 2000;
+        private final Object wakeUpLock = new Object();
+        private boolean wakeUpRequested;
+
         public StarterThread() {
             setName(StarterThread.class.toString());
         }
 
+        /**
+         * Check for downloads to start immediately instead of waiting for the next interval.
+         */
+        public void wakeUp() {
+            synchronized (wakeUpLock) {
+                wakeUpRequested = true;
+                wakeUpLock.notifyAll();
+            }
+        }
+
         @Override
         public void run() {
             while (!isInterrupted()) {
                 try {
-                    DatenDownload datenDownload;
-                    while ((datenDownload = getNextStart()) != null) {
-                        launchDownloadThread(datenDownload);
-                        //alle 2 Sekunden einen Download starten
-                        TimeUnit.SECONDS.sleep(DOWNLOAD_DELAY);
-                    }
+                    startDownloads();
                     daten.getListeDownloadsButton().buttonStartsPutzen(); // Button Starts aus der Liste löschen
-                    TimeUnit.SECONDS.sleep(DOWNLOAD_DELAY);
                 }
                 catch (InterruptedException ignored) {
+                    interrupt();
                 }
                 catch (Exception ex) {
                     logger.error("Fehler in Starten Thread:", ex);
                 }
+
+                try {
+                    waitForWakeUp();
+                } catch (InterruptedException ignored) {
+                    interrupt();
+                }
             }
         }
 
-        private synchronized DatenDownload getNextStart() throws InterruptedException {
-            // get: erstes passendes Element der Liste zurückgeben oder null
+        /**
+         * Start as many downloads as there are free slots.
+         */
+        private void startDownloads() throws InterruptedException {
+            final var starts = getNextStarts();
+            for (DatenDownload datenDownload : starts) {
+                launchDownloadThread(datenDownload);
+            }
+            if (!starts.isEmpty()) {
+                logger.debug("{} Downloads gestartet, aktive Download-Threads: {}, maximal: {}",
+                        starts.size(), getActiveDownloadThreads(), getLargestDownloadThreadCount());
+            }
+        }
+
+        private void waitForWakeUp() throws InterruptedException {
+            synchronized (wakeUpLock) {
+                if (!wakeUpRequested)
+                    wakeUpLock.wait(IDLE_WAIT_MS);
+                wakeUpRequested = false;
+            }
+        }
+
+        private synchronized List<DatenDownload> getNextStarts() throws InterruptedException {
+            // get: alle Downloads für die freien Plätze zurückgeben
             // und versuchen dass bei mehreren laufenden Downloads ein anderer Sender gesucht wird
             if (pause.get()) {
                 // beim Löschen der Downloads, kann das Starten etwas "pausiert" werden
@@ -345,15 +427,16 @@ public class StarterClass {
             }
 
             final var listeDownloads = daten.getListeDownloads();
-            DatenDownload download = listeDownloads.getNextStart();
-            if (download == null) {
+            final var starts = listeDownloads.getNextStarts();
+            if (starts.isEmpty()) {
                 // dann versuchen einen Fehlerhaften nochmal zu starten
-                download = listeDownloads.getRestartDownload();
+                final var download = listeDownloads.getRestartDownload();
                 if (download != null) {
                     reStartmeldung(download);
+                    return List.of(download);
                 }
             }
-            return download;
+            return starts;
         }
 
         /**
@@ -365,19 +448,26 @@ public class StarterClass {
             datenDownload.start.startTime = LocalDateTime.now();
             MessageBus.getMessageBus().publishAsync(new DownloadProgressChangedEvent());
 
-            Thread downloadThread;
-
             switch (datenDownload.art) {
-                case DatenDownload.ART_PROGRAMM -> {
-                    downloadThread = new ExternalProgramDownload(datenDownload);
-                    downloadThread.start();
-                }
-                case DatenDownload.ART_DOWNLOAD -> {
-                    downloadThread = new DirectHttpDownload(daten, datenDownload);
-                    downloadThread.start();
-                }
+                case DatenDownload.ART_PROGRAMM -> execute(new ExternalProgramDownload(datenDownload),
+                        "EXTERNAL PROGRAM DL THREAD: " + datenDownload.arr[DatenDownload.DOWNLOAD_TITEL]);
+                case DatenDownload.ART_DOWNLOAD -> execute(new DirectHttpDownload(daten, datenDownload),
+                        "DIRECT DL THREAD_" + datenDownload.arr[DatenDownload.DOWNLOAD_TITEL]);
                 default -> logger.error("StarterClass.Starten - Switch-default");
             }
         }
+
+        private void execute(@NotNull Runnable download, @NotNull String name) {
+            downloadExecutor.execute(() -> {
+                final var thread = Thread.currentThread();
+                final var poolName = thread.getName();
+                thread.setName(name);
+                try {
+                    download.run();
+                } finally {
+                    thread.setName(poolName);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,101 @@
+package mediathek.daten;
+
+import com.google.common.base.Stopwatch;
+import mediathek.daten.blacklist.AboBlacklistFilter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The films of the film list which match an active abo and pass the blacklist, remembered between abo searches.
+ * <p>
+ * As long as abos and blacklist settings are unchanged, only the candidates of the previous search and the
+ * films marked as new since then need to be checked instead of the complete film list.
+ * Whether a candidate has already been downloaded or is queued is not part of this and must be checked
+ * on every search.
+ */
+final class AboFilmCandidates {
+    private static final Logger logger = LogManager.getLogger();
+    private List<DatenFilm> candidates;
+    private ListeFilme listeFilme;
+    private int aboGeneration;
+    private int newFilmsGeneration;
+    private AboBlacklistFilter blacklistFilter;
+
+    /**
+     * Find all films which match an active abo, sorted like the film list.
+     *
+     * @param listeFilme      the complete film list
+     * @param listeAbo        the abos
+     * @param blacklistFilter the blacklist settings of this search, null if the blacklist is not used for abos.
+     * @return the candidates for abo downloads.
+     */
+    @NotNull List<DatenFilm> find(@NotNull ListeFilme listeFilme, @NotNull ListeAbo listeAbo,
+                                  @Nullable AboBlacklistFilter blacklistFilter) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final int currentAboGeneration = listeAbo.getGeneration();
+        final int currentNewFilmsGeneration = listeFilme.getNewFilmsGeneration();
+
+        final List<DatenFilm> result;
+        final boolean incremental = canSearchIncremental(listeFilme, currentAboGeneration, currentNewFilmsGeneration, blacklistFilter);
+        if (incremental) {
+            // keeps the previous order of films with equal sort keys
+            final Set<DatenFilm> found = new LinkedHashSet<>();
+            for (var film : candidates) {
+                // the film list may have been reloaded since, use the current film object
+                final var current = listeFilme.getFilmByUrlAndSender(film.getUrlNormalQuality(), film.getSender());
+                if (current != null && isCandidate(current, listeAbo, blacklistFilter))
+                    found.add(current);
+            }
+            found.addAll(listeFilme.parallelStream()
+                    .filter(DatenFilm::isNew)
+                    .filter(film -> isCandidate(film, listeAbo, blacklistFilter))
+                    .toList());
+            result = new ArrayList<>(found);
+            result.sort(null);
+        } else {
+            result = listeFilme.parallelStream()
+                    .filter(film -> isCandidate(film, listeAbo, blacklistFilter))
+                    .toList();
+        }
+
+        candidates = result;
+        this.listeFilme = listeFilme;
+        aboGeneration = currentAboGeneration;
+        newFilmsGeneration = currentNewFilmsGeneration;
+        this.blacklistFilter = blacklistFilter;
+
+        stopwatch.stop();
+        logger.trace("Abo candidate search ({}) took: {}, {} candidates", incremental ? "incremental" : "complete",
+                stopwatch, result.size());
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Films which are not new can only become candidates if abos or blacklist were changed.
+     * If the new flags were determined more than once since the last search, films of the
+     * intermediate load have lost their flag and everything must be checked again.
+     */
+    private boolean canSearchIncremental(@NotNull ListeFilme listeFilme, int currentAboGeneration, int currentNewFilmsGeneration,
+                                         @Nullable AboBlacklistFilter currentBlacklistFilter) {
+        if (candidates == null || this.listeFilme != listeFilme)
+            return false;
+        if (aboGeneration != currentAboGeneration || currentNewFilmsGeneration - newFilmsGeneration > 1)
+            return false;
+        if (blacklistFilter == null || currentBlacklistFilter == null)
+            return blacklistFilter == currentBlacklistFilter;
+        return blacklistFilter.hasSameSettings(currentBlacklistFilter);
+    }
+
+    private static boolean isCandidate(@NotNull DatenFilm film, @NotNull ListeAbo listeAbo,
+                                       @Nullable AboBlacklistFilter blacklistFilter) {
+        final var abo = listeAbo.getAboFuerFilm_schnell(film, true);
+        if (abo == null || !abo.isActive())
+            return false;
+        //Blacklist auch bei Abos anwenden
+        return blacklistFilter == null || blacklistFilter.test(film);
+    }
+}
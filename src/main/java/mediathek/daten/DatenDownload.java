@@ -201,9 +201,7 @@ public final class DatenDownload implements Comparable<DatenDownload> {
         // Start erstellen und zur Liste hinzufügen
         this.start = new Start();
 
-        try (var historyController = new SeenHistoryController()){
-            historyController.markSeen(film);
-        }
+        SeenHistoryController.getInstance().markSeen(film);
 
         MessageBus.getMessageBus().publishAsync(new StartEvent());
     }
@@ -214,11 +212,10 @@ public final class DatenDownload implements Comparable<DatenDownload> {
      */
     public static void startenDownloads(ArrayList<DatenDownload> downloads) {
         // Start erstellen und zur Liste hinzufügen
-        try (var historyController = new SeenHistoryController()){
-            for (DatenDownload d : downloads) {
-                d.start = new Start();
-                historyController.markSeen(d.film);
-            }
+        final var historyController = SeenHistoryController.getInstance();
+        for (DatenDownload d : downloads) {
+            d.start = new Start();
+            historyController.markSeen(d.film);
         }
         MessageBus.getMessageBus().publishAsync(new StartEvent());
     }
@@ -358,16 +355,43 @@ public final class DatenDownload implements Comparable<DatenDownload> {
         }
     }
 
+    /**
+     * Set the file size.
+     * If it is empty the size is taken from the film or, for other resolutions, requested in the background.
+     *
+     * @param groesse size in MByte or empty.
+     */
     public void setGroesse(@NotNull String groesse) {
         if (film != null) {
             if (!groesse.isEmpty()) {
                 mVFilmSize.setSize(groesse);
+            } else if (arr[DOWNLOAD_URL].equalsIgnoreCase(film.getUrlNormalQuality())) {
+                mVFilmSize.setSize(film.getSize());
             } else {
-                mVFilmSize.setSize(film.getDateigroesse(arr[DOWNLOAD_URL]));
+                probeGroesse(arr[DOWNLOAD_URL]);
             }
         }
     }
 
+    /**
+     * Don´t block for the HEAD request, the size stays empty until it is known.
+     */
+    private void probeGroesse(@NotNull String url) {
+        final var probe = FileSizeProbe.getInstance();
+        final var cached = probe.getCachedSize(url);
+        if (cached.isPresent()) {
+            mVFilmSize.setSize(FileSize.convertSize(cached.getAsLong()));
+            return;
+        }
+
+        mVFilmSize.setSize("");
+        probe.probe(url).thenAccept(size -> {
+            // the url or size may have been changed in the meantime
+            if (size > 0 && url.equals(arr[DOWNLOAD_URL]) && mVFilmSize.getSize() == 0)
+                mVFilmSize.setSize(FileSize.convertSize(size));
+        });
+    }
+
     public void init() {
         datumFilm = getDatumForObject();
         try {
@@ -1,5 +1,7 @@
 package mediathek.daten;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import mediathek.daten.abo.DatenAbo;
 import mediathek.javafx.bookmark.BookmarkData;
 import mediathek.tool.FileSize;
@@ -12,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -71,6 +74,12 @@ public class DatenFilm implements Comparable<DatenFilm> {
      * film length in seconds.
      */
     private long filmLength;
+    /**
+     * 128 bit content key, see {@link #computeUniqueKey()}.
+     */
+    private long uniqueKeyHigh;
+    private long uniqueKeyLow;
+    private boolean uniqueKeyComputed;
     private String websiteLink;
     private String description;
     /**
@@ -181,6 +190,32 @@ public class DatenFilm implements Comparable<DatenFilm> {
         this.datumLong = datumLong;
     }
 
+    /**
+     * Get all flags encoded as bit mask of {@link DatenFilmFlags} ordinals.
+     *
+     * @return the flags as bit mask.
+     */
+    public int getFlagBits() {
+        int bits = 0;
+        for (var flag : flags) {
+            bits |= 1 << flag.ordinal();
+        }
+        return bits;
+    }
+
+    /**
+     * Replace all flags by the ones encoded in the bit mask.
+     *
+     * @param bits bit mask of {@link DatenFilmFlags} ordinals.
+     */
+    public void setFlagBits(int bits) {
+        flags.clear();
+        for (var flag : DatenFilmFlags.values()) {
+            if ((bits & (1 << flag.ordinal())) != 0)
+                flags.add(flag);
+        }
+    }
+
     public boolean isTrailerTeaser() {
         return flags.contains(DatenFilmFlags.TRAILER_TEASER);
     }
@@ -346,12 +381,40 @@ public class DatenFilm implements Comparable<DatenFilm> {
     }
 
     /**
-     * Return a unique index for comparison during updating the filmlist from diff.
-     *
-     * @return a unique "hash" string
+     * Compute the key used for comparison during updating the filmlist from diff.
+     * It is a 128 bit hash of sender and thema ignoring case, the url and the website link.
+     * Computed once on first use, callers must synchronize.
      */
-    public String getUniqueHash() {
-        return (getSender() + getThema()).toLowerCase() + getUrlNormalQuality() + getWebsiteLink();
+    private void computeUniqueKey() {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        putLowerCase(hasher, getSender());
+        putLowerCase(hasher, getThema());
+        hasher.putUnencodedChars(getUrlNormalQuality()).putChar('\0');
+        hasher.putUnencodedChars(getWebsiteLink());
+
+        final var buffer = ByteBuffer.wrap(hasher.hash().asBytes());
+        uniqueKeyHigh = buffer.getLong();
+        uniqueKeyLow = buffer.getLong();
+        uniqueKeyComputed = true;
+    }
+
+    private static void putLowerCase(@NotNull Hasher hasher, @NotNull String s) {
+        for (int i = 0; i < s.length(); i++) {
+            hasher.putChar(Character.toLowerCase(s.charAt(i)));
+        }
+        hasher.putChar('\0');
+    }
+
+    long getUniqueKeyHigh() {
+        if (!uniqueKeyComputed)
+            computeUniqueKey();
+        return uniqueKeyHigh;
+    }
+
+    long getUniqueKeyLow() {
+        if (!uniqueKeyComputed)
+            computeUniqueKey();
+        return uniqueKeyLow;
     }
 
     /**
@@ -366,8 +429,8 @@ public class DatenFilm implements Comparable<DatenFilm> {
     @Override
     public int compareTo(@NotNull DatenFilm other) {
         int ret;
-        if ((ret = sorter.compare(getSender(), other.getSender())) == 0) {
-            return sorter.compare(getThema(), other.getThema());
+        if ((ret = sorter.compareCached(getSender(), other.getSender())) == 0) {
+            return sorter.compareCached(getThema(), other.getThema());
         }
         return ret;
     }
@@ -429,6 +492,24 @@ public class DatenFilm implements Comparable<DatenFilm> {
         setDatum();
     }
 
+    /**
+     * Initialize from already parsed values, e.g. when read from a filmlist snapshot.
+     * Replaces the string parsing of {@link #setDauer(String)} and {@link #init()}.
+     *
+     * @param dauer      film length as HH:MM:SS string
+     * @param duration   film duration in seconds
+     * @param filmLength film length in seconds
+     * @param size       file size in MByte
+     * @param datumFilm  the film date
+     */
+    public void init(@NotNull String dauer, int duration, long filmLength, int size, @NotNull DatumFilm datumFilm) {
+        this.dauer = dauer;
+        this.duration = duration;
+        this.filmLength = filmLength;
+        this.filmSize = new FilmSize(size);
+        this.datumFilm = datumFilm;
+    }
+
     /**
      * Return unpacked url as string.
      * High quality URLs may be "compressed" in the filmlist and need to be unpacked before use.
@@ -544,6 +625,16 @@ public class DatenFilm implements Comparable<DatenFilm> {
         }
     }
 
+    /**
+     * Replace the duration string by an equal instance without parsing it again.
+     *
+     * @param dauer the canonical instance of the duration string
+     */
+    void internDauer(@Nullable String dauer) {
+        if (dauer != null && dauer.equals(this.dauer))
+            this.dauer = dauer;
+    }
+
     public String getSize() {
         return groesse;
     }
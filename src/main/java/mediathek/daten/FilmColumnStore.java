@@ -0,0 +1,253 @@
+package mediathek.daten;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Columnar copy of the scalar fields of a film list.
+ * Filters can scan these primitive arrays instead of chasing pointers through every {@link DatenFilm} object.
+ * Sender and thema are dictionary coded, the film objects are still available by index for everything else.
+ * A store reflects the list at build time, {@link ListeFilme#getColumnStore()} rebuilds it after modifications.
+ */
+public final class FilmColumnStore {
+    /**
+     * Additional flag bit for films with a HQ url.
+     */
+    public static final int FLAG_HIGH_QUALITY = 1 << DatenFilmFlags.values().length;
+    /**
+     * Additional flag bit for films with a subtitle url.
+     */
+    public static final int FLAG_SUBTITLE = FLAG_HIGH_QUALITY << 1;
+    /**
+     * Number of used bits in the flag column.
+     */
+    private static final int FLAG_COUNT = DatenFilmFlags.values().length + 2;
+    private final DatenFilm[] films;
+    /**
+     * Film date in milliseconds.
+     */
+    private final long[] datum;
+    /**
+     * Film length in seconds.
+     */
+    private final long[] filmLength;
+    /**
+     * File size in MByte.
+     */
+    private final int[] filmSize;
+    private final int[] flags;
+    private final int[] senderIds;
+    private final int[] themaIds;
+    private final String[] senders;
+    private final String[] themen;
+    /**
+     * Films per sender id, used to combine sender selections with bit operations.
+     */
+    private final BitSet[] senderBitmaps;
+    /**
+     * Films per flag bit position.
+     */
+    private final BitSet[] flagBitmaps;
+
+    FilmColumnStore(@NotNull List<DatenFilm> list) {
+        final int size = list.size();
+        films = list.toArray(new DatenFilm[0]);
+        datum = new long[size];
+        filmLength = new long[size];
+        filmSize = new int[size];
+        flags = new int[size];
+        senderIds = new int[size];
+        themaIds = new int[size];
+
+        final Map<String, Integer> senderDict = new HashMap<>();
+        final Map<String, Integer> themaDict = new HashMap<>();
+        final List<BitSet> senderBitmapList = new ArrayList<>();
+        flagBitmaps = new BitSet[FLAG_COUNT];
+        for (int bit = 0; bit < FLAG_COUNT; bit++) {
+            flagBitmaps[bit] = new BitSet(size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            final DatenFilm film = films[i];
+            datum[i] = film.getDatumFilm().getTime();
+            filmLength[i] = film.getFilmLength();
+            filmSize[i] = film.getFilmSize().getSize();
+            flags[i] = computeFlags(film);
+            senderIds[i] = senderDict.computeIfAbsent(film.getSender(), k -> senderDict.size());
+            themaIds[i] = themaDict.computeIfAbsent(film.getThema(), k -> themaDict.size());
+
+            if (senderIds[i] == senderBitmapList.size())
+                senderBitmapList.add(new BitSet(size));
+            senderBitmapList.get(senderIds[i]).set(i);
+
+            int bits = flags[i];
+            while (bits != 0) {
+                flagBitmaps[Integer.numberOfTrailingZeros(bits)].set(i);
+                bits &= bits - 1;
+            }
+        }
+
+        senders = toArray(senderDict);
+        themen = toArray(themaDict);
+        senderBitmaps = senderBitmapList.toArray(new BitSet[0]);
+    }
+
+    /**
+     * Get the bit of a film flag within the flag column.
+     */
+    public static int flagBit(@NotNull DatenFilmFlags flag) {
+        return 1 << flag.ordinal();
+    }
+
+    private static int computeFlags(@NotNull DatenFilm film) {
+        int bits = film.getFlagBits();
+        if (film.isHighQuality())
+            bits |= FLAG_HIGH_QUALITY;
+        if (film.hasSubtitle())
+            bits |= FLAG_SUBTITLE;
+        return bits;
+    }
+
+    private static String[] toArray(@NotNull Map<String, Integer> dict) {
+        final String[] result = new String[dict.size()];
+        dict.forEach((str, id) -> result[id] = str);
+        return result;
+    }
+
+    public int size() {
+        return films.length;
+    }
+
+    public DatenFilm getFilm(int index) {
+        return films[index];
+    }
+
+    public long getDatum(int index) {
+        return datum[index];
+    }
+
+    public long getFilmLength(int index) {
+        return filmLength[index];
+    }
+
+    public int getFilmSize(int index) {
+        return filmSize[index];
+    }
+
+    public int getFlags(int index) {
+        return flags[index];
+    }
+
+    /**
+     * Check the flag column.
+     *
+     * @param index    the film index
+     * @param required all of these bits must be set
+     * @param excluded none of these bits may be set
+     * @return true if the film matches.
+     */
+    public boolean hasFlags(int index, int required, int excluded) {
+        final int bits = flags[index];
+        return (bits & required) == required && (bits & excluded) == 0;
+    }
+
+    public int getSenderId(int index) {
+        return senderIds[index];
+    }
+
+    public int getThemaId(int index) {
+        return themaIds[index];
+    }
+
+    public String getSender(int senderId) {
+        return senders[senderId];
+    }
+
+    public String getThema(int themaId) {
+        return themen[themaId];
+    }
+
+    public int getSenderCount() {
+        return senders.length;
+    }
+
+    public int getThemaCount() {
+        return themen.length;
+    }
+
+    /**
+     * Evaluate sender selection once per dictionary entry.
+     *
+     * @param selectedSenders the senders to match
+     * @return lookup table indexed by sender id.
+     */
+    public boolean[] matchSenders(@NotNull Set<String> selectedSenders) {
+        final boolean[] result = new boolean[senders.length];
+        for (int i = 0; i < senders.length; i++) {
+            result[i] = selectedSenders.contains(senders[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Combine sender and flag filters with bitmap operations instead of testing every film.
+     *
+     * @param senderMatch lookup table from {@link #matchSenders(Set)} or null for all senders
+     * @param required    all of these flag bits must be set
+     * @param excluded    none of these flag bits may be set
+     * @param anyOf       at least one of these flag bits must be set, ignored if 0
+     * @return new set of matching film indices.
+     */
+    public BitSet select(@Nullable boolean[] senderMatch, int required, int excluded, int anyOf) {
+        final BitSet result = new BitSet(films.length);
+        if (senderMatch == null) {
+            result.set(0, films.length);
+        } else {
+            for (int id = 0; id < senderBitmaps.length; id++) {
+                if (senderMatch[id])
+                    result.or(senderBitmaps[id]);
+            }
+        }
+
+        for (int bit = 0; bit < FLAG_COUNT; bit++) {
+            final int mask = 1 << bit;
+            if ((required & mask) != 0)
+                result.and(flagBitmaps[bit]);
+            if ((excluded & mask) != 0)
+                result.andNot(flagBitmaps[bit]);
+        }
+
+        if (anyOf != 0) {
+            final BitSet any = new BitSet(films.length);
+            for (int bit = 0; bit < FLAG_COUNT; bit++) {
+                if ((anyOf & (1 << bit)) != 0)
+                    any.or(flagBitmaps[bit]);
+            }
+            result.and(any);
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluate a thema condition once per dictionary entry.
+     *
+     * @param predicate the condition
+     * @return lookup table indexed by thema id.
+     */
+    public boolean[] matchThemen(@NotNull Predicate<String> predicate) {
+        final boolean[] result = new boolean[themen.length];
+        for (int i = 0; i < themen.length; i++) {
+            result[i] = predicate.test(themen[i]);
+        }
+        return result;
+    }
+}
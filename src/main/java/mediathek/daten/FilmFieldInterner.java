@@ -0,0 +1,45 @@
+package mediathek.daten;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * Shared dictionary for the low cardinality fields of {@link DatenFilm}.
+ * Sender, thema, date, time, duration, size and geo have only a small set of distinct values but
+ * every entry read from the filmlist has its own String instances.
+ * Replace them with one canonical instance per value.
+ * Thread-safe, unused values will be garbage collected.
+ */
+public final class FilmFieldInterner {
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    private static final Interner<Optional<String>> OPTIONALS = Interners.newWeakInterner();
+
+    private FilmFieldInterner() {
+    }
+
+    public static String intern(@Nullable String value) {
+        return value == null ? null : STRINGS.intern(value);
+    }
+
+    /**
+     * Replace all low cardinality fields of the film with their canonical instances.
+     *
+     * @param film the film to deduplicate.
+     */
+    public static void intern(@NotNull DatenFilm film) {
+        film.setSender(intern(film.getSender()));
+        film.setThema(intern(film.getThema()));
+        film.setSendeDatum(intern(film.getSendeDatum()));
+        film.setSendeZeit(intern(film.getSendeZeit()));
+        film.setSize(intern(film.getSize()));
+        film.internDauer(intern(film.getDauer()));
+
+        final var geo = film.getGeo();
+        if (geo.isPresent())
+            film.setGeo(OPTIONALS.intern(Optional.of(intern(geo.get()))));
+    }
+}
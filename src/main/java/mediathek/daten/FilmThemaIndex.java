@@ -0,0 +1,92 @@
+package mediathek.daten;
+
+import mediathek.tool.GermanStringSorter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Sorted distinct themas per sender of a film list.
+ * The lists are sorted once when the index is built, the themas of several senders are then merged
+ * in a single pass instead of scanning and sorting the film list again.
+ * An index reflects the list at build time, {@link ListeFilme} rebuilds it after modifications.
+ */
+final class FilmThemaIndex {
+    /**
+     * German collation, equal ranked themas are ordered by their chars so the order is total and merges
+     * can detect duplicates.
+     */
+    private static final Comparator<String> THEMA_ORDER = (o1, o2) -> {
+        final int ret = GermanStringSorter.getInstance().compareCached(o1, o2);
+        return ret != 0 ? ret : o1.compareTo(o2);
+    };
+    private final Map<String, List<String>> themenBySender;
+    private final List<String> allThemen;
+
+    FilmThemaIndex(@NotNull List<DatenFilm> films) {
+        final Map<String, Set<String>> sets = new HashMap<>();
+        final Set<String> all = new HashSet<>();
+        for (var film : films) {
+            sets.computeIfAbsent(film.getSender(), k -> new HashSet<>()).add(film.getThema());
+            all.add(film.getThema());
+        }
+
+        themenBySender = new HashMap<>(sets.size() * 2);
+        sets.forEach((sender, themen) -> themenBySender.put(sender, toSortedList(themen)));
+        allThemen = toSortedList(all);
+    }
+
+    private static List<String> toSortedList(@NotNull Set<String> themen) {
+        final var list = new ArrayList<>(themen);
+        list.sort(THEMA_ORDER);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Merge two sorted lists without duplicates.
+     */
+    private static List<String> merge(@NotNull List<String> a, @NotNull List<String> b) {
+        final List<String> result = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            final int ret = THEMA_ORDER.compare(a.get(i), b.get(j));
+            if (ret < 0) {
+                result.add(a.get(i++));
+            } else if (ret > 0) {
+                result.add(b.get(j++));
+            } else {
+                result.add(a.get(i++));
+                j++;
+            }
+        }
+        result.addAll(a.subList(i, a.size()));
+        result.addAll(b.subList(j, b.size()));
+        return result;
+    }
+
+    /**
+     * @param sender the sender, empty for all senders.
+     * @return the sorted themas, must not be modified.
+     */
+    @NotNull List<String> getThemen(@NotNull String sender) {
+        if (sender.isEmpty())
+            return allThemen;
+        return themenBySender.getOrDefault(sender, Collections.emptyList());
+    }
+
+    /**
+     * @param senders the senders, all senders if empty.
+     * @return the sorted distinct themas of all given senders, must not be modified.
+     */
+    @NotNull List<String> getThemen(@NotNull Collection<String> senders) {
+        if (senders.isEmpty())
+            return allThemen;
+
+        List<String> result = Collections.emptyList();
+        for (var sender : senders) {
+            result = merge(result, getThemen(sender));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
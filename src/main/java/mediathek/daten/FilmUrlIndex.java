@@ -0,0 +1,112 @@
+package mediathek.daten;
+
+import com.google.common.math.IntMath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Lookup of films by url.
+ * Urls are matched exactly, only the lookup together with the sender ignores case like the linear search did.
+ * <p>
+ * Only 64 bit hashes of the urls are stored together with the film, the urls are compared again on lookup.
+ * For every url the first film in list order wins, like the linear search did before.
+ * An index reflects the list at build time, {@link ListeFilme} rebuilds it after modifications.
+ */
+final class FilmUrlIndex {
+    private static final long EMPTY = 0;
+    /**
+     * Films by normal url and sender.
+     */
+    private final HashTable bySender;
+    /**
+     * Films by normal, high quality and low quality url.
+     */
+    private final HashTable byUrl;
+
+    FilmUrlIndex(@NotNull List<DatenFilm> films) {
+        bySender = new HashTable(films.size());
+        byUrl = new HashTable(films.size() * 3);
+
+        for (var film : films) {
+            final var url = film.getUrlNormalQuality();
+            bySender.putIfAbsent(hash(url, hash(film.getSender(), 0, true), true), film);
+            byUrl.putIfAbsent(hash(url, 0, false), film);
+            byUrl.putIfAbsent(hash(film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY), 0, false), film);
+            byUrl.putIfAbsent(hash(film.getUrlFuerAufloesung(FilmResolution.Enum.LOW), 0, false), film);
+        }
+    }
+
+    /**
+     * FNV-1a hash with a final avalanche step.
+     *
+     * @param ignoreCase equal hash for strings which only differ in case
+     */
+    static long hash(@NotNull String s, long seed, boolean ignoreCase) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            h ^= ignoreCase ? Character.toLowerCase(c) : c;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1 : h;
+    }
+
+    @Nullable DatenFilm getByUrlAndSender(@NotNull String url, @NotNull String sender) {
+        final var film = bySender.get(hash(url, hash(sender, 0, true), true));
+        if (film != null && film.getUrlNormalQuality().equalsIgnoreCase(url) && film.getSender().equalsIgnoreCase(sender))
+            return film;
+        return null;
+    }
+
+    @Nullable DatenFilm getByAnyUrl(@NotNull String url) {
+        final var film = byUrl.get(hash(url, 0, false));
+        if (film != null && (film.getUrlNormalQuality().equals(url)
+                || film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY).equals(url)
+                || film.getUrlFuerAufloesung(FilmResolution.Enum.LOW).equals(url)))
+            return film;
+        return null;
+    }
+
+    /**
+     * Open addressing table from hash to film with linear probing.
+     */
+    private static final class HashTable {
+        private final long[] keys;
+        private final DatenFilm[] values;
+        private final int mask;
+
+        HashTable(int expectedSize) {
+            // load factor below 0.5
+            final int capacity = IntMath.ceilingPowerOfTwo(Math.max(16, expectedSize) * 2);
+            keys = new long[capacity];
+            values = new DatenFilm[capacity];
+            mask = capacity - 1;
+        }
+
+        private int slot(long key) {
+            int index = (int) (key ^ (key >>> 32)) & mask;
+            while (keys[index] != EMPTY && keys[index] != key)
+                index = (index + 1) & mask;
+            return index;
+        }
+
+        void putIfAbsent(long key, @NotNull DatenFilm film) {
+            final int index = slot(key);
+            if (keys[index] == EMPTY) {
+                keys[index] = key;
+                values[index] = film;
+            }
+        }
+
+        @Nullable DatenFilm get(long key) {
+            return values[slot(key)];
+        }
+    }
+}
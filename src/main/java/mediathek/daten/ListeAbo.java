@@ -22,6 +22,7 @@ package mediathek.daten;
 import com.google.common.base.Stopwatch;
 import mediathek.config.Daten;
 import mediathek.config.MVConfig;
+import mediathek.daten.abo.AboFilmMatcher;
 import mediathek.daten.abo.DatenAbo;
 import mediathek.daten.abo.FilmLengthState;
 import mediathek.gui.dialog.DialogEditAbo;
@@ -35,11 +36,16 @@ import org.jetbrains.annotations.NotNull;
 import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 public class ListeAbo extends ArrayList<DatenAbo> {
     private static final String[] LEER = {""};
     private static final Logger logger = LogManager.getLogger();
     private int nr;
+    /**
+     * Changed with every reported abo change, see {@link #getGeneration()}.
+     */
+    private volatile int generation;
 
     private int parseMinSize() {
         int min;
@@ -77,7 +83,7 @@ public class ListeAbo extends ArrayList<DatenAbo> {
             if (!aboExistiertBereits(datenAbo)) {
                 MVConfig.add(MVConfig.Configs.SYSTEM_ABO_MIN_SIZE, Integer.toString(datenAbo.getMindestDauerMinuten())); // als Vorgabe merken
                 addAbo(datenAbo);
-                aenderungMelden();
+                aenderungMelden(datenAbo);
                 Collections.sort(this);
             } else {
                 MVMessageDialog.showMessageDialog(null, "Abo existiert bereits", "Abo anlegen", JOptionPane.INFORMATION_MESSAGE);
@@ -100,15 +106,35 @@ public class ListeAbo extends ArrayList<DatenAbo> {
 
     public void aboLoeschen(@NotNull DatenAbo abo) {
         remove(abo);
-        aenderungMelden();
+        aenderungMelden(abo);
     }
 
     public void aenderungMelden() {
+        generation++;
         // Filmliste anpassen
         setAboFuerFilm(Daten.getInstance().getListeFilme(), true);
         MessageBus.getMessageBus().publishAsync(new AboListChangedEvent());
     }
 
+    /**
+     * Notify about a single added, changed or removed abo.
+     * Only the films which were assigned to it or which it matches now get their abo re-evaluated.
+     *
+     * @param changedAbo the abo which was changed.
+     */
+    public void aenderungMelden(@NotNull DatenAbo changedAbo) {
+        generation++;
+        updateAboFuerFilm(Daten.getInstance().getListeFilme(), changedAbo);
+        MessageBus.getMessageBus().publishAsync(new AboListChangedEvent());
+    }
+
+    /**
+     * @return a number which changes whenever an abo change was reported.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     public ArrayList<String> getPfade() {
         // liefert eine Array mit allen Pfaden
         ArrayList<String> pfade = new ArrayList<>();
@@ -176,21 +202,25 @@ public class ListeAbo extends ArrayList<DatenAbo> {
         }
     }
 
+    private void resetAbo(DatenAbo abo) {
+        abo.setTitelFilterPattern(LEER);
+        abo.setThemaFilterPattern(LEER);
+        abo.setIrgendwoFilterPattern(LEER);
+    }
+
     /**
-     * Assign found abo to the film objects.
-     * Time-intensive procedure!
+     * Remove invalid abos and create the filter patterns of all others.
      *
-     * @param film assignee
+     * @return matcher for all abos of the list.
      */
-    private void assignAboToFilm(@NotNull DatenFilm film) {
-        stream().filter(abo
-                -> Filter.filterAufFilmPruefen(abo.getSender(), abo.getThema(),
-                abo.getTitelFilterPattern(),
-                abo.getThemaFilterPattern(),
-                abo.getIrgendwoFilterPattern(),
-                film))
-                .findAny().
-                ifPresentOrElse(film::setAbo, () -> deleteAboInFilm(film));
+    AboFilmMatcher createMatcher() {
+        // leere Abos löschen, die sind Fehler
+        this.stream().filter(DatenAbo::isInvalid).forEach(this::remove);
+
+        // und jetzt erstellen
+        forEach(this::createAbo);
+
+        return new AboFilmMatcher(this);
     }
 
     public void setAboFuerFilm(ListeFilme listeFilme, boolean aboLoeschen) {
@@ -203,23 +233,40 @@ public class ListeAbo extends ArrayList<DatenAbo> {
             return;
         }
 
-        // leere Abos löschen, die sind Fehler
-        this.stream().filter(DatenAbo::isInvalid).forEach(this::remove);
-
-        // und jetzt erstellen
-        forEach(this::createAbo);
+        final var matcher = createMatcher();
 
         // das kostet die Zeit!!
-        listeFilme.parallelStream().forEach(this::assignAboToFilm);
+        listeFilme.parallelStream().forEach(film -> film.setAbo(matcher.findAbo(film)));
 
         // und jetzt wieder löschen
-        forEach(datenAbo -> {
-            datenAbo.setTitelFilterPattern(LEER);
-            datenAbo.setThemaFilterPattern(LEER);
-            datenAbo.setIrgendwoFilterPattern(LEER);
-        });
+        forEach(this::resetAbo);
 
         stopwatch.stop();
         logger.debug("setAboFuerFilm: {}", stopwatch);
     }
+
+    /**
+     * Re-evaluate only the films affected by a single abo change.
+     * Films which were not assigned to the abo and which it does not match now keep their abo.
+     *
+     * @param listeFilme the film list
+     * @param changedAbo the added, changed or removed abo
+     */
+    void updateAboFuerFilm(ListeFilme listeFilme, DatenAbo changedAbo) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        final var matcher = createMatcher();
+        // a removed abo can´t match anything anymore
+        final var changedMatcher = contains(changedAbo) ? new AboFilmMatcher(List.of(changedAbo)) : null;
+
+        listeFilme.parallelStream()
+                .filter(film -> film.getAbo() == changedAbo
+                        || (changedMatcher != null && changedMatcher.findAbo(film) != null))
+                .forEach(film -> film.setAbo(matcher.findAbo(film)));
+
+        forEach(this::resetAbo);
+
+        stopwatch.stop();
+        logger.debug("updateAboFuerFilm: {}", stopwatch);
+    }
 }
@@ -22,8 +22,10 @@ package mediathek.daten;
 import mediathek.config.Daten;
 import mediathek.config.Konstanten;
 import mediathek.config.MVConfig;
+import mediathek.controller.starter.SegmentedHttpDownload;
 import mediathek.controller.starter.Start;
 import mediathek.daten.abo.DatenAbo;
+import mediathek.daten.blacklist.AboBlacklistFilter;
 import mediathek.gui.dialog.DialogAboNoSet;
 import mediathek.gui.messages.ButtonStartEvent;
 import mediathek.gui.messages.DownloadListChangedEvent;
@@ -36,6 +38,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
+import java.io.File;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -44,6 +47,22 @@ import java.util.stream.Collectors;
 @SuppressWarnings("serial")
 public class ListeDownloads extends LinkedList<DatenDownload> {
     private final Daten daten;
+    /**
+     * Host of each download url, parsing the url is too expensive for every scheduling decision.
+     */
+    private final Map<String, String> hostCache = new HashMap<>();
+    /**
+     * Index for {@link #getDownloadUrlFilm(String)}, rebuilt when the list was modified.
+     */
+    private Map<String, DatenDownload> filmUrlIndex;
+    /**
+     * The modCount of the list when {@link #filmUrlIndex} was built.
+     */
+    private int filmUrlIndexModCount;
+    /**
+     * Films matching an abo, lets {@link #abosSuchen(JFrame)} check only new films when nothing else changed.
+     */
+    private final AboFilmCandidates aboFilmCandidates = new AboFilmCandidates();
 
     public ListeDownloads(Daten daten_) {
         this.daten = daten_;
@@ -164,6 +183,7 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
                         datenDownload.start.stoppen = true;
                     }
                 }
+                fortsetzenVerwerfen(datenDownload);
                 datenDownload.mVFilmSize.reset();
                 datenDownload.start = null;
                 MessageBus.getMessageBus().publishAsync(new DownloadListChangedEvent());
@@ -205,6 +225,7 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
                         down.start.stoppen = true;
                     }
                 }
+                fortsetzenVerwerfen(down);
                 if (remove(down)) {
                     gefunden = true;
                 }
@@ -215,13 +236,41 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
         }
     }
 
+    /**
+     * Ein gelöschter Download wird nicht mehr fortgesetzt, die gespeicherten Segmente werden nicht mehr gebraucht.
+     * Ein laufender Download entfernt sie selbst, wenn er beendet ist.
+     * Abgebrochene Downloads behalten sie, damit sie später weitergeführt werden können.
+     */
+    private static void fortsetzenVerwerfen(DatenDownload down) {
+        if (down.start != null && down.start.status < Start.STATUS_FERTIG) {
+            down.start.verwerfen = true;
+        }
+        final String ziel = down.arr[DatenDownload.DOWNLOAD_ZIEL_PFAD_DATEINAME];
+        if (!ziel.isEmpty()) {
+            SegmentedHttpDownload.deleteState(new File(ziel));
+        }
+    }
+
     public synchronized DatenDownload getDownloadUrlFilm(String urlFilm) {
+        if (filmUrlIndex == null || filmUrlIndexModCount != modCount) {
+            filmUrlIndex = getDownloadsByFilmUrl();
+            filmUrlIndexModCount = modCount;
+        }
+        return filmUrlIndex.get(urlFilm);
+    }
+
+    /**
+     * Map all film urls to their download.
+     * If a film url has more than one download the first one is used like in {@link #getDownloadUrlFilm(String)}.
+     *
+     * @return a snapshot of the current list.
+     */
+    public synchronized Map<String, DatenDownload> getDownloadsByFilmUrl() {
+        final Map<String, DatenDownload> result = new HashMap<>();
         for (DatenDownload datenDownload : this) {
-            if (datenDownload.arr[DatenDownload.DOWNLOAD_FILM_URL].equals(urlFilm)) {
-                return datenDownload;
-            }
+            result.putIfAbsent(datenDownload.arr[DatenDownload.DOWNLOAD_FILM_URL], datenDownload);
         }
-        return null;
+        return result;
     }
 
     public synchronized void getModel(TModelDownload tModel, boolean onlyAbos, boolean onlyDownloads,
@@ -345,31 +394,22 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
         boolean gefunden = false;
 
         // prüfen ob in "alle Filme" oder nur "nach Blacklist" gesucht werden soll
-        boolean checkWithBlackList = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_AUCH_ABO));
+        // die Einstellungen werden einmal für die ganze Suche gelesen
+        final AboBlacklistFilter blacklistFilter = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_AUCH_ABO))
+                ? daten.getListeBlacklist().createAboFilter() : null;
         DatenPset pSet_ = Daten.listePset.getPsetAbo("");
         final var sdf = new SimpleDateFormat("dd.MM.yyyy");
         final var todayDateStr = sdf.format(new Date());
 
-        final var listeAbo = daten.getListeAbo();
-        final var listeBlacklist = daten.getListeBlacklist();
         final var aboHistoryController = daten.getAboHistoryController();
-        final var listeFilme = daten.getListeFilme();
+        // nur Filme mit passendem, eingeschaltetem Abo
+        final var candidates = aboFilmCandidates.find(daten.getListeFilme(), daten.getListeAbo(), blacklistFilter);
 
-        for (DatenFilm film : listeFilme) {
-            DatenAbo abo = listeAbo.getAboFuerFilm_schnell(film, true);
-            if (abo == null) {
-                // dann gibts dafür kein Abo
-                continue;
-            }
-            if (!abo.isActive()) {
+        for (DatenFilm film : candidates) {
+            if (blacklistFilter != null && !blacklistFilter.checkDate(film)) {
                 continue;
             }
-            if (checkWithBlackList) {
-                //Blacklist auch bei Abos anwenden
-                if (!listeBlacklist.checkBlackOkFilme_Downloads(film)) {
-                    continue;
-                }
-            }
+            final DatenAbo abo = film.getAbo();
             if (aboHistoryController.urlExists(film.getUrlNormalQuality())) {
                 // ist schon mal geladen worden
                 continue;
@@ -477,38 +517,35 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
             MessageBus.getMessageBus().publishAsync(new ButtonStartEvent());
     }
 
-    public synchronized DatenDownload getNextStart() {
-        // get: erstes passendes Element der Liste zurückgeben oder null
-        // und versuchen dass bei mehreren laufenden Downloads ein anderer Sender gesucht wird
-        final DatenDownload[] ret = new DatenDownload[1];
-
+    /**
+     * Get the downloads which should be started now, at most as many as there are free download slots.
+     * All of them are chosen from one {@link StartQueue}, every chosen download counts as running
+     * for the following choices.
+     *
+     * @return the downloads in start order, empty if none can be started.
+     */
+    public synchronized List<DatenDownload> getNextStarts() {
         final int maxNumDownloads = ApplicationConfiguration.getConfiguration().getInt(ApplicationConfiguration.DOWNLOAD_MAX_SIMULTANEOUS_NUM,1);
-        if (this.size() > 0 && getDown(maxNumDownloads)) {
-            nextPossibleDownload().ifPresent(datenDownload -> {
-                if (datenDownload.start != null) {
-                    if (datenDownload.start.status == Start.STATUS_INIT)
-                        ret[0] = datenDownload;
-                }
-            });
+        final var queue = new StartQueue();
+        final List<DatenDownload> starts = new ArrayList<>();
+        DatenDownload datenDownload;
+        while (queue.running < maxNumDownloads && (datenDownload = queue.nextStart()) != null) {
+            queue.markStarted(datenDownload);
+            starts.add(datenDownload);
         }
-
-        return ret[0];
+        return starts;
     }
 
-    public DatenDownload getRestartDownload() {
+    public synchronized DatenDownload getRestartDownload() {
         // Versuch einen Fehlgeschlagenen Download zu finden um ihn wieder zu starten
         // die Fehler laufen aber einzeln, vorsichtshalber
-        if (!getDown(1)) {
+        final var queue = new StartQueue();
+        if (queue.running >= 1) {
             return null;
         }
-        for (DatenDownload datenDownload : this) {
-            if (datenDownload.start == null) {
-                continue;
-            }
-
-            if (datenDownload.start.status == Start.STATUS_ERR
-                    && datenDownload.start.countRestarted < Konstanten.MAX_DOWNLOAD_RESTARTS
-                    && !maxSenderLaufen(datenDownload, 1)) {
+        for (DatenDownload datenDownload : queue.failed) {
+            if (datenDownload.start.countRestarted < Konstanten.MAX_DOWNLOAD_RESTARTS
+                    && !queue.maxSenderLaufen(datenDownload, 1)) {
                 int restarted = datenDownload.start.countRestarted;
                 if ( /*datenDownload.art == DatenDownload.ART_PROGRAMM && datenDownload.isRestart()   || */datenDownload.art == DatenDownload.ART_DOWNLOAD) {
                     datenDownload.resetDownload();
@@ -521,48 +558,6 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
         return null;
     }
 
-    private boolean getDown(int max) {
-        int count = 0;
-        for (DatenDownload datenDownload : this) {
-            Start s = datenDownload.start;
-            if (s != null) {
-                if (s.status == Start.STATUS_RUN) {
-                    ++count;
-                    if (count >= max) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
-    }
-
-    private Optional<DatenDownload> nextPossibleDownload() {
-        //erster Versuch, Start mit einem anderen Sender
-        for (DatenDownload datenDownload : this) {
-            if (datenDownload.start != null) {
-                if (datenDownload.start.status == Start.STATUS_INIT) {
-                    if (!maxSenderLaufen(datenDownload, 1)) {
-                        return Optional.of(datenDownload);
-                    }
-                }
-            }
-        }
-
-        //zweiter Versuch, Start mit einem passenden Sender
-        for (DatenDownload datenDownload : this) {
-            if (datenDownload.start != null) {
-                if (datenDownload.start.status == Start.STATUS_INIT) {
-                    if (!maxSenderLaufen(datenDownload, Konstanten.MAX_SENDER_FILME_LADEN)) {
-                        return Optional.of(datenDownload);
-                    }
-                }
-            }
-        }
-
-        return Optional.empty();
-    }
-
     /**
      * Check if host is part of a CDN server network.
      * Currently we only check for Akamai
@@ -573,28 +568,16 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
         return host.contains("akamaihd.net") || host.contains("cdn-storage.br.de");
     }
 
-    private boolean maxSenderLaufen(DatenDownload d, final int max) {
-        //true wenn bereits die maxAnzahl pro Sender läuft
-        try {
-            int counter = 0;
-            final String host = getHost(d);
-            for (DatenDownload download : this) {
-                if (download.start != null) {
-                    if (download.start.status == Start.STATUS_RUN
-                            && getHost(download).equalsIgnoreCase(host)) {
-                        if (!isCDN(d.arr[DatenDownload.DOWNLOAD_FILM_URL])) {
-                            counter++;
-                            if (counter >= max) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-            return false;
-        } catch (Exception ex) {
-            return false;
+    /**
+     * Get the host of a download from the cache.
+     */
+    private String getCachedHost(DatenDownload datenDownload) {
+        if (hostCache.size() > 2 * size() + 100) {
+            // remove hosts of deleted downloads
+            hostCache.clear();
         }
+        return hostCache.computeIfAbsent(datenDownload.arr[DatenDownload.DOWNLOAD_URL],
+                k -> getHost(datenDownload).toLowerCase(Locale.ROOT));
     }
 
     private String getHost(DatenDownload datenDownload) {
@@ -626,4 +609,75 @@ public class ListeDownloads extends LinkedList<DatenDownload> {
         }
         return host;
     }
+
+    /**
+     * Snapshot of the download states, built with a single pass over the list for each call of
+     * {@link #getNextStarts()} or {@link #getRestartDownload()}.
+     * Collects the running downloads per host and the waiting and failed downloads in list order.
+     * Later status changes of the downloads are not tracked, only the starts chosen from the snapshot itself.
+     */
+    private final class StartQueue {
+        private final Map<String, Integer> runningPerHost = new HashMap<>();
+        private final List<DatenDownload> waiting = new ArrayList<>();
+        private final List<DatenDownload> failed = new ArrayList<>();
+        private int running;
+
+        StartQueue() {
+            for (DatenDownload download : ListeDownloads.this) {
+                final Start s = download.start;
+                if (s == null) {
+                    continue;
+                }
+                switch (s.status) {
+                    case Start.STATUS_INIT -> waiting.add(download);
+                    case Start.STATUS_RUN -> {
+                        running++;
+                        runningPerHost.merge(getCachedHost(download), 1, Integer::sum);
+                    }
+                    case Start.STATUS_ERR -> failed.add(download);
+                }
+            }
+        }
+
+        /**
+         * Erstes passendes Element der Liste oder null,
+         * bei mehreren laufenden Downloads wird zuerst ein anderer Sender gesucht.
+         */
+        DatenDownload nextStart() {
+            //erster Versuch, Start mit einem anderen Sender
+            for (DatenDownload datenDownload : waiting) {
+                if (!maxSenderLaufen(datenDownload, 1)) {
+                    return datenDownload;
+                }
+            }
+
+            //zweiter Versuch, Start mit einem passenden Sender
+            for (DatenDownload datenDownload : waiting) {
+                if (!maxSenderLaufen(datenDownload, Konstanten.MAX_SENDER_FILME_LADEN)) {
+                    return datenDownload;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Count a download chosen from this snapshot as running.
+         */
+        void markStarted(DatenDownload download) {
+            waiting.remove(download);
+            running++;
+            runningPerHost.merge(getCachedHost(download), 1, Integer::sum);
+        }
+
+        /**
+         * @return true wenn bereits die maxAnzahl pro Sender läuft
+         */
+        boolean maxSenderLaufen(DatenDownload d, final int max) {
+            if (isCDN(d.arr[DatenDownload.DOWNLOAD_FILM_URL])) {
+                return false;
+            }
+            return runningPerHost.getOrDefault(getCachedHost(d), 0) >= max;
+        }
+    }
 }
@@ -1,63 +1,161 @@
 package mediathek.daten;
 
+import com.google.common.math.IntMath;
 import mediathek.config.Konstanten;
-import mediathek.tool.GermanStringSorter;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ListeFilme extends ArrayList<DatenFilm> {
     public static final String FILMLISTE = "Filmliste";
     private final FilmListMetaData metaData = new FilmListMetaData();
     public boolean neueFilme;
+    private FilmColumnStore columnStore;
+    /**
+     * The modCount of the list when {@link #columnStore} was built.
+     */
+    private int columnStoreModCount;
+    private FilmUrlIndex urlIndex;
+    /**
+     * The modCount of the list when {@link #urlIndex} was built.
+     */
+    private int urlIndexModCount;
+    private FilmThemaIndex themaIndex;
+    /**
+     * The modCount of the list when {@link #themaIndex} was built.
+     */
+    private int themaIndexModCount;
+    /**
+     * Counts how often the new flags of all films were determined, see {@link #getNewFilmsGeneration()}.
+     */
+    private int newFilmsGeneration;
 
     public FilmListMetaData metaData() {
         return metaData;
     }
 
+    /**
+     * Get the columnar view of this list for fast filtering.
+     * It will be rebuilt lazily after the list was structurally modified.
+     *
+     * @return the column store reflecting the current content.
+     */
+    public synchronized FilmColumnStore getColumnStore() {
+        if (columnStore == null || columnStoreModCount != modCount) {
+            columnStore = new FilmColumnStore(this);
+            columnStoreModCount = modCount;
+        }
+        return columnStore;
+    }
+
+    /**
+     * Get the url index of this list.
+     * It is built on the first lookup after a list load or {@link #updateFromFilmList(ListeFilme)}.
+     */
+    private FilmUrlIndex getUrlIndex() {
+        if (urlIndex == null || urlIndexModCount != modCount) {
+            urlIndex = new FilmUrlIndex(this);
+            urlIndexModCount = modCount;
+        }
+        return urlIndex;
+    }
+
+    private synchronized FilmThemaIndex getThemaIndex() {
+        if (themaIndex == null || themaIndexModCount != modCount) {
+            themaIndex = new FilmThemaIndex(this);
+            themaIndexModCount = modCount;
+        }
+        return themaIndex;
+    }
+
+    /**
+     * Build the thema index now instead of on the first request, e.g. on the thread which filled the list.
+     */
+    public void prepareThemaIndex() {
+        getThemaIndex();
+    }
+
     /**
      * Search all themas within list based on sender.
      * If sender is empty, return full list of themas.
      *
      * @param sender sender name as String
-     * @return List of themas as String.
+     * @return unmodifiable sorted List of themas as String.
      */
-    public List<String> getThemen(String sender) {
-        Stream<DatenFilm> mystream = parallelStream();
-        //if sender is empty return all themas...
-        if (!sender.isEmpty())
-            mystream = mystream.filter(f -> f.getSender().equals(sender));
+    public List<String> getThemen(@NotNull String sender) {
+        return getThemaIndex().getThemen(sender);
+    }
 
-        return mystream.map(DatenFilm::getThema)
-                .distinct()
-                .sorted(GermanStringSorter.getInstance())
-                .collect(Collectors.toList());
+    /**
+     * Get the themas of several senders.
+     * If no sender is given, return full list of themas.
+     *
+     * @param senders the sender names
+     * @return unmodifiable sorted List of distinct themas as String.
+     */
+    public List<String> getThemen(@NotNull Collection<String> senders) {
+        return getThemaIndex().getThemen(senders);
     }
 
+    /**
+     * Merge a diff list into this list.
+     * Films of the diff replace existing films with the same content key, all others are inserted at their sort position.
+     * The list stays sorted, only the diff needs to be sorted and the merge itself is a single pass.
+     *
+     * @param newFilmsList the diff list.
+     */
     public synchronized void updateFromFilmList(@NotNull ListeFilme newFilmsList) {
         // In die vorhandene Liste soll eine andere Filmliste einsortiert werden
         // es werden nur Filme die noch nicht vorhanden sind, einsortiert
-        final HashSet<String> hashNewFilms = new HashSet<>(newFilmsList.size() + 1, 1);
-
-        newFilmsList.forEach(newFilm -> hashNewFilms.add(newFilm.getUniqueHash()));
-        this.removeIf(currentFilm -> hashNewFilms.contains(currentFilm.getUniqueHash()));
+        final List<DatenFilm> diff = new ArrayList<>(newFilmsList);
+        final FilmKeySet diffKeys = new FilmKeySet(diff.size());
+        for (var film : diff) {
+            film.init();
+            FilmFieldInterner.intern(film);
+            diffKeys.add(film.getUniqueKeyHigh(), film.getUniqueKeyLow());
+        }
+        diff.sort(null);
+
+        // a full list is normally already sorted, otherwise sort once
+        if (!isSorted())
+            sort(null);
+
+        final DatenFilm[] merged = new DatenFilm[size() + diff.size()];
+        int count = 0;
+        int diffIndex = 0;
+        for (var film : this) {
+            if (diffKeys.contains(film.getUniqueKeyHigh(), film.getUniqueKeyLow()))
+                continue;
+            // on equal sort order the existing film stays in front
+            while (diffIndex < diff.size() && diff.get(diffIndex).compareTo(film) < 0)
+                merged[count++] = diff.get(diffIndex++);
+            merged[count++] = film;
+        }
+        while (diffIndex < diff.size())
+            merged[count++] = diff.get(diffIndex++);
 
-        hashNewFilms.clear();
+        super.clear();
+        addAll(Arrays.asList(merged).subList(0, count));
+    }
 
-        newFilmsList.forEach(film -> {
-            film.init();
-            add(film);
-        });
+    private boolean isSorted() {
+        for (int i = 1; i < size(); i++) {
+            if (get(i - 1).compareTo(get(i)) > 0)
+                return false;
+        }
+        return true;
     }
 
     @Override
     public synchronized void clear() {
         super.clear();
         neueFilme = false;
+        // don´t keep the old films reachable until the next lookup
+        urlIndex = null;
+        themaIndex = null;
     }
 
     public synchronized void setMetaData(FilmListMetaData meta) {
@@ -72,27 +170,18 @@ public class ListeFilme extends ArrayList<DatenFilm> {
      * @return DatenFilm object if found or null
      */
     public synchronized DatenFilm getFilmByUrlAndSender(final String url, final String sender) {
-      return parallelStream().filter(f -> f.getUrlNormalQuality().equalsIgnoreCase(url) && f.getSender().equalsIgnoreCase(sender)).findAny().orElse(null);
+        return getUrlIndex().getByUrlAndSender(url, sender);
     }
 
+    /**
+     * Find a movie by its normal, high quality or low quality url.
+     * @param url String with URL
+     * @return DatenFilm object if found or null
+     */
     public synchronized DatenFilm getFilmByUrl_klein_hoch_hd(String url) {
         // Problem wegen gleicher URLs
         // wird versucht, einen Film mit einer kleinen/Hoher/HD-URL zu finden
-        DatenFilm ret = null;
-        for (DatenFilm f : this) {
-            if (f.getUrlNormalQuality().equals(url)) {
-                ret = f;
-                break;
-            } else if (f.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY).equals(url)) {
-                ret = f;
-                break;
-            } else if (f.getUrlFuerAufloesung(FilmResolution.Enum.LOW).equals(url)) {
-                ret = f;
-                break;
-            }
-        }
-
-        return ret;
+        return getUrlIndex().getByAnyUrl(url);
     }
 
     /**
@@ -103,7 +192,58 @@ public class ListeFilme extends ArrayList<DatenFilm> {
         return (isEmpty()) || (metaData().isOlderThan(Konstanten.ALTER_FILMLISTE_SEKUNDEN_FUER_AUTOUPDATE));
     }
 
+    /**
+     * Called after the new flags of all films were set for a freshly loaded list.
+     */
+    public synchronized void newFilmsMarked() {
+        newFilmsGeneration++;
+    }
+
+    /**
+     * @return a number which is incremented every time the new flags of the films were determined.
+     */
+    public synchronized int getNewFilmsGeneration() {
+        return newFilmsGeneration;
+    }
+
     public synchronized long countNewFilms() {
         return stream().filter(DatenFilm::isNew).count();
     }
+
+    /**
+     * Set of 128 bit film content keys, open addressing with linear probing.
+     */
+    private static final class FilmKeySet {
+        private final long[] high;
+        private final long[] low;
+        private final boolean[] used;
+        private final int mask;
+
+        FilmKeySet(int expectedSize) {
+            // load factor below 0.5
+            final int capacity = IntMath.ceilingPowerOfTwo(Math.max(16, expectedSize) * 2);
+            high = new long[capacity];
+            low = new long[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        private int slot(long keyHigh, long keyLow) {
+            int index = (int) (keyLow ^ (keyLow >>> 32)) & mask;
+            while (used[index] && (high[index] != keyHigh || low[index] != keyLow))
+                index = (index + 1) & mask;
+            return index;
+        }
+
+        void add(long keyHigh, long keyLow) {
+            final int index = slot(keyHigh, keyLow);
+            high[index] = keyHigh;
+            low[index] = keyLow;
+            used[index] = true;
+        }
+
+        boolean contains(long keyHigh, long keyLow) {
+            return used[slot(keyHigh, keyLow)];
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package mediathek.daten.abo;
+
+import mediathek.daten.DatenFilm;
+import mediathek.tool.Filter;
+import mediathek.tool.SubstringMatcher;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the abo of a film without checking every abo.
+ * <p>
+ * Abos are bucketed by their exact sender and thema, a film only checks the buckets which can match at all.
+ * All plain search tokens of title, thema-title and irgendwo are found with one {@link SubstringMatcher} pass
+ * per film field, regexp abos are evaluated last.
+ * The result is identical to checking every abo in list order with
+ * {@link Filter#filterAufFilmPruefen(String, String, String[], String[], String[], DatenFilm)}.
+ * <p>
+ * The filter patterns of all abos must have been created before.
+ * Immutable after construction and therefore thread-safe.
+ */
+public final class AboFilmMatcher {
+    /**
+     * Abo buckets by sender and case folded thema, empty strings are wildcards.
+     */
+    private final Map<String, Map<String, AboGroup>> groups = new HashMap<>();
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final SubstringMatcher substringMatcher;
+
+    public AboFilmMatcher(@NotNull List<DatenAbo> abos) {
+        final List<String> tokens = new ArrayList<>();
+        for (int index = 0; index < abos.size(); index++) {
+            final var abo = abos.get(index);
+            final var compiledAbo = new CompiledAbo(index, abo,
+                    compileCondition(abo.getTitelFilterPattern(), tokens),
+                    compileCondition(abo.getThemaFilterPattern(), tokens),
+                    compileCondition(abo.getIrgendwoFilterPattern(), tokens));
+            groups.computeIfAbsent(abo.getSender(), k -> new HashMap<>())
+                    .computeIfAbsent(Filter.foldCase(abo.getThema()), k -> new AboGroup())
+                    .add(compiledAbo);
+        }
+        substringMatcher = new SubstringMatcher(tokens);
+    }
+
+    /**
+     * Compile a filter array the same way {@link Filter#pruefen(String[], String)} evaluates it.
+     *
+     * @return the condition or null if it matches everything.
+     */
+    private @Nullable Condition compileCondition(@NotNull String[] filter, @NotNull List<String> tokens) {
+        if (filter.length == 0 || (filter.length == 1 && filter[0].isEmpty()))
+            return null;
+
+        if (filter.length == 1) {
+            final Pattern pattern = Filter.makePattern(filter[0]);
+            if (pattern != null)
+                return new Condition(pattern, null);
+        }
+
+        final BitSet ids = new BitSet();
+        for (var token : filter) {
+            // every text contains the empty string
+            if (token.isEmpty())
+                return null;
+
+            ids.set(tokenIds.computeIfAbsent(token, k -> {
+                tokens.add(k);
+                return tokens.size() - 1;
+            }));
+        }
+        return new Condition(null, ids);
+    }
+
+    /**
+     * Find the first abo in list order which matches the film.
+     *
+     * @param film the film to check
+     * @return the abo or null if there is none.
+     */
+    public @Nullable DatenAbo findAbo(@NotNull DatenFilm film) {
+        final String sender = film.getSender();
+        final String thema = Filter.foldCase(film.getThema());
+        final var evaluation = new Evaluation(film);
+
+        CompiledAbo result = null;
+        for (var groupSender : sender.isEmpty() ? new String[]{""} : new String[]{sender, ""}) {
+            final var themaGroups = groups.get(groupSender);
+            if (themaGroups == null)
+                continue;
+
+            for (var groupThema : thema.isEmpty() ? new String[]{""} : new String[]{thema, ""}) {
+                final var group = themaGroups.get(groupThema);
+                if (group != null)
+                    result = group.findFirst(evaluation, result);
+            }
+        }
+
+        return result == null ? null : result.abo;
+    }
+
+    /**
+     * A single abo filter, either a regexp or a set of search tokens.
+     */
+    private record Condition(@Nullable Pattern pattern, @Nullable BitSet tokens) {
+        boolean test(@NotNull Evaluation evaluation, boolean includeThema, boolean includeDescription) {
+            if (pattern != null) {
+                return (includeDescription && pattern.matcher(evaluation.description).matches())
+                        || (includeThema && pattern.matcher(evaluation.thema).matches())
+                        || pattern.matcher(evaluation.title).matches();
+            }
+
+            return (includeDescription && tokens.intersects(evaluation.getDescriptionHits()))
+                    || (includeThema && tokens.intersects(evaluation.getThemaHits()))
+                    || tokens.intersects(evaluation.getTitleHits());
+        }
+    }
+
+    private record CompiledAbo(int index, @NotNull DatenAbo abo, @Nullable Condition title,
+                               @Nullable Condition themaTitle, @Nullable Condition irgendwo) {
+        boolean hasPattern() {
+            return (title != null && title.pattern() != null)
+                    || (themaTitle != null && themaTitle.pattern() != null)
+                    || (irgendwo != null && irgendwo.pattern() != null);
+        }
+
+        boolean matches(@NotNull Evaluation evaluation) {
+            return (title == null || title.test(evaluation, false, false))
+                    && (themaTitle == null || themaTitle.test(evaluation, true, false))
+                    && (irgendwo == null || irgendwo.test(evaluation, true, true));
+        }
+    }
+
+    /**
+     * All abos with the same sender and thema in list order.
+     */
+    private static final class AboGroup {
+        private final List<CompiledAbo> plainAbos = new ArrayList<>();
+        private final List<CompiledAbo> patternAbos = new ArrayList<>();
+
+        void add(@NotNull CompiledAbo abo) {
+            if (abo.hasPattern())
+                patternAbos.add(abo);
+            else
+                plainAbos.add(abo);
+        }
+
+        /**
+         * Find the first matching abo which comes before the current result.
+         */
+        @Nullable CompiledAbo findFirst(@NotNull Evaluation evaluation, @Nullable CompiledAbo current) {
+            CompiledAbo result = findFirst(plainAbos, evaluation, current);
+            // expensive regexp checks only for abos in front of the plain result
+            return findFirst(patternAbos, evaluation, result);
+        }
+
+        private static @Nullable CompiledAbo findFirst(@NotNull List<CompiledAbo> abos, @NotNull Evaluation evaluation,
+                                                       @Nullable CompiledAbo current) {
+            final int limit = current == null ? Integer.MAX_VALUE : current.index;
+            for (var abo : abos) {
+                if (abo.index >= limit)
+                    break;
+                if (abo.matches(evaluation))
+                    return abo;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Per film state, the substring search is only performed when an abo needs it.
+     */
+    private final class Evaluation {
+        private final String title;
+        private final String thema;
+        private final String description;
+        private BitSet titleHits;
+        private BitSet themaHits;
+        private BitSet descriptionHits;
+
+        Evaluation(@NotNull DatenFilm film) {
+            title = film.getTitle();
+            thema = film.getThema();
+            description = film.getDescription();
+        }
+
+        BitSet getTitleHits() {
+            if (titleHits == null)
+                titleHits = substringMatcher.find(title.toLowerCase());
+            return titleHits;
+        }
+
+        BitSet getThemaHits() {
+            if (themaHits == null)
+                themaHits = substringMatcher.find(thema.toLowerCase());
+            return themaHits;
+        }
+
+        BitSet getDescriptionHits() {
+            if (descriptionHits == null)
+                descriptionHits = substringMatcher.find(description.toLowerCase());
+            return descriptionHits;
+        }
+    }
+}
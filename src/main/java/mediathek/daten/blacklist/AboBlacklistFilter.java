@@ -0,0 +1,96 @@
+package mediathek.daten.blacklist;
+
+import mediathek.daten.DatenFilm;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Blacklist check for the abo search with all settings frozen at creation.
+ * <p>
+ * The settings are read once per search instead of once per film.
+ * The date filter of the film tab is not used, the blacklist is always active here.
+ * Immutable and therefore thread-safe.
+ */
+public final class AboBlacklistFilter implements Predicate<DatenFilm> {
+    private final List<BlacklistRule> rules = new ArrayList<>();
+    private final CompiledBlacklistRules compiledRules;
+    private final boolean isWhitelist;
+    /**
+     * The minimum length in seconds, 0 if not used.
+     */
+    private final long minimumFilmLength;
+    private final boolean doNotShowFutureFilms;
+    private final boolean doNotShowGeoBlockedFilms;
+    private final String geoLocation;
+    private final long now = System.currentTimeMillis();
+
+    public AboBlacklistFilter(@NotNull List<BlacklistRule> rules, boolean isWhitelist, long minimumFilmLength,
+                              boolean doNotShowFutureFilms, boolean doNotShowGeoBlockedFilms, String geoLocation) {
+        for (var rule : rules) {
+            final var copy = new BlacklistRule(rule.getSender(), rule.getThema(), rule.getTitel(), rule.getThema_titel());
+            copy.convertToLowerCase();
+            copy.checkPatterns();
+            this.rules.add(copy);
+        }
+        compiledRules = new CompiledBlacklistRules(this.rules);
+        this.isWhitelist = isWhitelist;
+        this.minimumFilmLength = minimumFilmLength;
+        this.doNotShowFutureFilms = doNotShowFutureFilms;
+        this.doNotShowGeoBlockedFilms = doNotShowGeoBlockedFilms;
+        this.geoLocation = geoLocation;
+    }
+
+    /**
+     * Check all settings which don´t change their result over time.
+     * Future films are checked by {@link #checkDate(DatenFilm)}.
+     *
+     * @param film item to be checked
+     * @return true if the film may be downloaded.
+     */
+    @Override
+    public boolean test(@NotNull DatenFilm film) {
+        if (doNotShowGeoBlockedFilms) {
+            final var geo = film.getGeo();
+            if (geo.isPresent() && !geo.get().contains(geoLocation))
+                return false;
+        }
+
+        if (minimumFilmLength != 0) {
+            final long filmLength = film.getFilmLength();
+            if (filmLength != 0 && minimumFilmLength > filmLength)
+                return false;
+        }
+
+        if (rules.isEmpty())
+            return true;
+
+        return compiledRules.matches(film) == isWhitelist;
+    }
+
+    /**
+     * Future films become valid later and must therefore be checked on every search.
+     *
+     * @param film item to be checked
+     * @return true if the film may be downloaded.
+     */
+    public boolean checkDate(@NotNull DatenFilm film) {
+        return !doNotShowFutureFilms || film.getDatumFilm().getTime() <= now;
+    }
+
+    /**
+     * @param other filter of an earlier search
+     * @return true if both filters give the same results.
+     */
+    public boolean hasSameSettings(@NotNull AboBlacklistFilter other) {
+        return isWhitelist == other.isWhitelist
+                && minimumFilmLength == other.minimumFilmLength
+                && doNotShowFutureFilms == other.doNotShowFutureFilms
+                && doNotShowGeoBlockedFilms == other.doNotShowGeoBlockedFilms
+                && Objects.equals(geoLocation, other.geoLocation)
+                && rules.equals(other.rules);
+    }
+}
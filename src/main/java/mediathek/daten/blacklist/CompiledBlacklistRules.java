@@ -0,0 +1,259 @@
+package mediathek.daten.blacklist;
+
+import mediathek.daten.DatenFilm;
+import mediathek.tool.Filter;
+import mediathek.tool.SubstringMatcher;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Blacklist rules compiled for fast evaluation against many films.
+ * <p>
+ * Rules are grouped by their exact sender and thema so a film only sees the groups which can match at all.
+ * All plain search tokens of all rules are found with one {@link SubstringMatcher} pass over title and thema.
+ * Regexp rules without further conditions are combined into one alternation per group.
+ * The result is identical to checking every rule with {@link Filter#pruefen(String[], String)}.
+ * <p>
+ * {@link BlacklistRule#convertToLowerCase()} and {@link BlacklistRule#checkPatterns()} must have been called before.
+ * Immutable after construction and therefore thread-safe.
+ */
+final class CompiledBlacklistRules {
+    /**
+     * Rule groups by sender and case folded thema, empty strings are wildcards.
+     */
+    private final Map<String, Map<String, RuleGroup>> groups = new HashMap<>();
+    private final SubstringMatcher substringMatcher;
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+
+    CompiledBlacklistRules(@NotNull List<BlacklistRule> rules) {
+        final List<String> tokens = new ArrayList<>();
+        for (var rule : rules) {
+            final var group = groups.computeIfAbsent(rule.getSender(), k -> new HashMap<>())
+                    .computeIfAbsent(Filter.foldCase(rule.getThema()), k -> new RuleGroup());
+            final var title = compileCondition(rule.hasTitlePattern(), rule.getTitel(), tokens);
+            final var themaTitle = compileCondition(rule.hasThemaPattern(), rule.getThema_titel(), tokens);
+            group.add(title, themaTitle);
+        }
+        groups.values().forEach(map -> map.values().forEach(RuleGroup::compile));
+        substringMatcher = new SubstringMatcher(tokens);
+    }
+
+    /**
+     * Only patterns which keep their meaning inside a bigger alternation can be combined.
+     */
+    private static boolean isCombinable(@NotNull String regex) {
+        if (regex.contains("\\Q") || regex.contains("\\k"))
+            return false;
+        // group names must be unique, lookbehinds are fine
+        if (regex.replace("(?<=", "").replace("(?<!", "").contains("(?<"))
+            return false;
+        // numbered back references change with the group count
+        for (int i = 0; i < regex.length() - 1; i++) {
+            if (regex.charAt(i) == '\\') {
+                if (Character.isDigit(regex.charAt(i + 1)))
+                    return false;
+                i++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combine as many patterns as possible into one alternation.
+     */
+    private static Pattern[] combinePatterns(@NotNull List<Pattern> patterns) {
+        final List<Pattern> result = new ArrayList<>();
+        final List<Pattern> combinable = new ArrayList<>();
+        for (var pattern : patterns) {
+            if (isCombinable(pattern.pattern()))
+                combinable.add(pattern);
+            else
+                result.add(pattern);
+        }
+
+        if (combinable.size() > 1) {
+            final List<String> alternatives = new ArrayList<>();
+            combinable.forEach(pattern -> alternatives.add("(?:" + pattern.pattern() + ")"));
+            try {
+                result.add(Pattern.compile(String.join("|", alternatives), Filter.PATTERN_FLAGS));
+                return result.toArray(new Pattern[0]);
+            } catch (PatternSyntaxException ignored) {
+                // use the single patterns instead
+            }
+        }
+        result.addAll(combinable);
+
+        return result.toArray(new Pattern[0]);
+    }
+
+    /**
+     * Compile one rule condition the same way {@link Filter#pruefen(String[], String)} evaluates it.
+     *
+     * @return the condition or null if it matches everything.
+     */
+    private @Nullable Condition compileCondition(boolean isPattern, @NotNull String input, @NotNull List<String> tokens) {
+        final String[] parts = isPattern ? new String[]{input} : StringUtils.split(input, ',');
+        if (parts.length == 0 || (parts.length == 1 && parts[0].isEmpty()))
+            return null;
+
+        if (parts.length == 1) {
+            final Pattern pattern = Filter.makePattern(parts[0]);
+            if (pattern != null)
+                return new Condition(pattern, null);
+        }
+
+        // invalid patterns are searched as plain text
+        final BitSet ids = new BitSet();
+        for (var part : parts) {
+            ids.set(tokenIds.computeIfAbsent(part, k -> {
+                tokens.add(k);
+                return tokens.size() - 1;
+            }));
+        }
+        return new Condition(null, ids);
+    }
+
+    /**
+     * Check if at least one rule matches the film.
+     *
+     * @param film the film to check
+     * @return true if a rule matches.
+     */
+    public boolean matches(@NotNull DatenFilm film) {
+        final String sender = film.getSender();
+        final String thema = Filter.foldCase(film.getThema());
+        final var evaluation = new Evaluation(film);
+
+        for (var groupSender : sender.isEmpty() ? new String[]{""} : new String[]{sender, ""}) {
+            final var themaGroups = groups.get(groupSender);
+            if (themaGroups == null)
+                continue;
+
+            for (var groupThema : thema.isEmpty() ? new String[]{""} : new String[]{thema, ""}) {
+                final var group = themaGroups.get(groupThema);
+                if (group != null && group.matches(evaluation))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A single rule condition, either a regexp or a set of search tokens.
+     */
+    private record Condition(@Nullable Pattern pattern, @Nullable BitSet tokens) {
+        boolean test(@NotNull Evaluation evaluation, boolean includeThema) {
+            if (pattern != null) {
+                return pattern.matcher(evaluation.title).matches()
+                        || (includeThema && pattern.matcher(evaluation.thema).matches());
+            }
+
+            return tokens.intersects(evaluation.getTitleHits())
+                    || (includeThema && tokens.intersects(evaluation.getThemaHits()));
+        }
+    }
+
+    /**
+     * Per film state, the substring search is only performed when a rule needs it.
+     */
+    private final class Evaluation {
+        private final String title;
+        private final String thema;
+        private BitSet titleHits;
+        private BitSet themaHits;
+
+        Evaluation(@NotNull DatenFilm film) {
+            title = film.getTitle();
+            thema = film.getThema();
+        }
+
+        BitSet getTitleHits() {
+            if (titleHits == null)
+                titleHits = substringMatcher.find(title.toLowerCase());
+            return titleHits;
+        }
+
+        BitSet getThemaHits() {
+            if (themaHits == null)
+                themaHits = substringMatcher.find(thema.toLowerCase());
+            return themaHits;
+        }
+    }
+
+    /**
+     * All rules with the same sender and thema.
+     */
+    private static final class RuleGroup {
+        private final List<Pattern> titlePatternList = new ArrayList<>();
+        private final List<Pattern> themaTitlePatternList = new ArrayList<>();
+        private final BitSet titleTokens = new BitSet();
+        private final BitSet themaTitleTokens = new BitSet();
+        private final List<Condition[]> complexRules = new ArrayList<>();
+        private boolean matchesAll;
+        private Pattern[] titlePatterns;
+        private Pattern[] themaTitlePatterns;
+
+        void add(@Nullable Condition title, @Nullable Condition themaTitle) {
+            if (title == null && themaTitle == null) {
+                matchesAll = true;
+            } else if (themaTitle == null) {
+                if (title.pattern() != null)
+                    titlePatternList.add(title.pattern());
+                else
+                    titleTokens.or(title.tokens());
+            } else if (title == null) {
+                if (themaTitle.pattern() != null)
+                    themaTitlePatternList.add(themaTitle.pattern());
+                else
+                    themaTitleTokens.or(themaTitle.tokens());
+            } else {
+                complexRules.add(new Condition[]{title, themaTitle});
+            }
+        }
+
+        void compile() {
+            titlePatterns = combinePatterns(titlePatternList);
+            themaTitlePatterns = combinePatterns(themaTitlePatternList);
+            titlePatternList.clear();
+            themaTitlePatternList.clear();
+        }
+
+        boolean matches(@NotNull Evaluation evaluation) {
+            if (matchesAll)
+                return true;
+
+            // cheap token checks first
+            if (!titleTokens.isEmpty() && titleTokens.intersects(evaluation.getTitleHits()))
+                return true;
+            if (!themaTitleTokens.isEmpty()
+                    && (themaTitleTokens.intersects(evaluation.getTitleHits()) || themaTitleTokens.intersects(evaluation.getThemaHits())))
+                return true;
+
+            for (var pattern : titlePatterns) {
+                if (pattern.matcher(evaluation.title).matches())
+                    return true;
+            }
+            for (var pattern : themaTitlePatterns) {
+                if (pattern.matcher(evaluation.thema).matches() || pattern.matcher(evaluation.title).matches())
+                    return true;
+            }
+
+            for (var rule : complexRules) {
+                if (rule[0].test(evaluation, false) && rule[1].test(evaluation, true))
+                    return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -4,20 +4,24 @@ import com.google.common.base.Stopwatch;
 import mediathek.config.Daten;
 import mediathek.config.MVConfig;
 import mediathek.daten.DatenFilm;
+import mediathek.daten.DatenFilmFlags;
+import mediathek.daten.FilmColumnStore;
 import mediathek.daten.ListeFilme;
 import mediathek.gui.messages.BlacklistChangedEvent;
 import mediathek.javafx.filterpanel.ZeitraumSpinner;
 import mediathek.mainwindow.MediathekGui;
 import mediathek.tool.ApplicationConfiguration;
-import mediathek.tool.Filter;
 import mediathek.tool.MessageBus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 public class ListeBlacklist extends ArrayList<BlacklistRule> {
 
@@ -35,6 +39,17 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
      * Configuration in Settings/Blacklist panel.
      */
     private long minimumFilmLength;
+    private boolean isWhitelist;
+    /**
+     * Films of {@link #ruleMatchStore} which are matched by at least one rule.
+     * Kept up to date incrementally when single rules are added or removed.
+     */
+    private BitSet ruleMatches;
+    private FilmColumnStore ruleMatchStore;
+    /**
+     * Copy of the rules {@link #ruleMatches} was computed for, detects rules changed in place.
+     */
+    private List<BlacklistRule> ruleMatchRules = new ArrayList<>();
 
     /**
      * Add item without notifying registered listeners.
@@ -48,6 +63,7 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
     @Override
     public synchronized boolean add(BlacklistRule b) {
         boolean ret = super.add(b);
+        addRuleMatches(b);
         filterListAndNotifyListeners();
         return ret;
     }
@@ -55,6 +71,8 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
     @Override
     public synchronized boolean remove(Object b) {
         boolean ret = super.remove(b);
+        if (ret)
+            removeRuleMatches(List.of((BlacklistRule) b));
         filterListAndNotifyListeners();
         return ret;
     }
@@ -67,12 +85,14 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
         for (var rule : ruleList) {
             super.remove(rule);
         }
+        removeRuleMatches(ruleList);
         filterListAndNotifyListeners();
     }
 
     @Override
     public synchronized BlacklistRule remove(int idx) {
         BlacklistRule ret = super.remove(idx);
+        removeRuleMatches(List.of(ret));
         filterListAndNotifyListeners();
         return ret;
     }
@@ -85,11 +105,17 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
     @Override
     public synchronized void clear() {
         super.clear();
+        if (ruleMatches != null) {
+            ruleMatches.clear();
+            ruleMatchRules = new ArrayList<>();
+        }
         filterListAndNotifyListeners();
     }
 
     /**
-     * Main filtering routine
+     * Main filtering routine.
+     * Rules are only evaluated for all films if the film list or the rules were changed otherwise,
+     * changed settings only re-run the cheap column checks.
      */
     public synchronized void filterListe() {
         Stopwatch stopwatch = Stopwatch.createStarted();
@@ -104,55 +130,185 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
         if (completeFilmList != null && !completeFilmList.isEmpty()) { // Check if there are any movies
             filteredList.setMetaData(completeFilmList.metaData());
 
-            this.parallelStream().forEach(entry -> {
-                entry.convertToLowerCase();
-                entry.checkPatterns();
-            });
-
+            prepareRules(this);
 
+            //date and length checks scan the primitive columns, rules were evaluated before
+            final FilmColumnStore store = completeFilmList.getColumnStore();
+            final IntPredicate columnPred = createColumnPredicate(store);
+            final IntPredicate rulePred = createRulePredicate(store);
             final Predicate<DatenFilm> pred = createPredicate();
 
-            completeFilmList.parallelStream().filter(pred).forEachOrdered(filteredList::add);
+            IntStream.range(0, store.size()).parallel()
+                    .filter(columnPred)
+                    .filter(rulePred)
+                    .mapToObj(store::getFilm)
+                    .filter(pred)
+                    .forEachOrdered(filteredList::add);
 
             setupNewEntries();
         }
+        // the thema box is updated with the filtered list, don´t build the index on the UI thread
+        filteredList.prepareThemaIndex();
         stopwatch.stop();
         logger.trace("Complete filtering took: {}", stopwatch);
     }
 
+    private static void prepareRules(@NotNull List<BlacklistRule> rules) {
+        rules.parallelStream().forEach(entry -> {
+            entry.convertToLowerCase();
+            entry.checkPatterns();
+        });
+    }
+
+    private List<BlacklistRule> copyRules() {
+        final List<BlacklistRule> copy = new ArrayList<>(size());
+        for (var rule : this) {
+            copy.add(new BlacklistRule(rule.getSender(), rule.getThema(), rule.getTitel(), rule.getThema_titel()));
+        }
+        return copy;
+    }
+
     /**
-     * Setup dynamically the list of filter to be applied to blacklist film list
-     *
-     * @return The reduced filter predicates.
+     * Check if {@link #ruleMatches} is still valid for the store and the current rules.
      */
-    private Predicate<DatenFilm> createPredicate() {
-        final List<Predicate<DatenFilm>> filterList = new ArrayList<>();
-        if (days_lower_boundary != 0)
-            filterList.add(this::checkDate);
+    private boolean ruleMatchesValid(@NotNull FilmColumnStore store) {
+        return ruleMatches != null && ruleMatchStore == store && ruleMatchRules.equals(copyRules());
+    }
 
-        if (blacklistIsActive) {
-            if (doNotShowGeoBlockedFilms) {
-                filterList.add(geoblockingPredicate);
-            }
-            if (doNotShowFutureFilms) {
-                filterList.add(this::checkIfFilmIsInFuture);
-            }
-            if (minimumFilmLength != 0) {
-                filterList.add(this::checkFilmLength);
-            }
+    /**
+     * Find all films of the store which are matched by at least one rule.
+     */
+    private void updateRuleMatches(@NotNull FilmColumnStore store) {
+        if (ruleMatchesValid(store))
+            return;
+
+        final var compiledRules = new CompiledBlacklistRules(this);
+        ruleMatches = IntStream.range(0, store.size()).parallel()
+                .filter(index -> compiledRules.matches(store.getFilm(index)))
+                .collect(BitSet::new, BitSet::set, BitSet::or);
+        ruleMatchStore = store;
+        ruleMatchRules = copyRules();
+    }
 
-            //add the filter predicates to the list
-            if (!isEmpty()) {
-                ApplyBlacklistFilterPredicate predicate = new ApplyBlacklistFilterPredicate(this);
-                filterList.add(predicate);
-            }
+    /**
+     * A new rule can only add matches, only films not matched so far need to be checked.
+     */
+    private void addRuleMatches(@NotNull BlacklistRule rule) {
+        if (!isRuleMatchStoreCurrent())
+            return;
+
+        prepareRules(List.of(rule));
+        final var store = ruleMatchStore;
+        final var compiledRule = new CompiledBlacklistRules(List.of(rule));
+        final BitSet newMatches = IntStream.range(0, store.size()).parallel()
+                .filter(index -> !ruleMatches.get(index) && compiledRule.matches(store.getFilm(index)))
+                .collect(BitSet::new, BitSet::set, BitSet::or);
+        ruleMatches.or(newMatches);
+        ruleMatchRules.add(new BlacklistRule(rule.getSender(), rule.getThema(), rule.getTitel(), rule.getThema_titel()));
+    }
 
+    /**
+     * Only films matched by the removed rules need to be checked against the remaining rules.
+     */
+    private void removeRuleMatches(@NotNull List<BlacklistRule> removedRules) {
+        if (!isRuleMatchStoreCurrent())
+            return;
+
+        prepareRules(removedRules);
+        prepareRules(this);
+        final var store = ruleMatchStore;
+        final var compiledRemoved = new CompiledBlacklistRules(removedRules);
+        final var compiledRules = new CompiledBlacklistRules(this);
+        final BitSet lostMatches = ruleMatches.stream().parallel()
+                .filter(index -> {
+                    final var film = store.getFilm(index);
+                    return compiledRemoved.matches(film) && !compiledRules.matches(film);
+                })
+                .collect(BitSet::new, BitSet::set, BitSet::or);
+        ruleMatches.andNot(lostMatches);
+        ruleMatchRules = copyRules();
+    }
+
+    private boolean isRuleMatchStoreCurrent() {
+        if (ruleMatches == null)
+            return false;
+
+        final var completeFilmList = Daten.getInstance().getListeFilme();
+        if (completeFilmList == null || completeFilmList.getColumnStore() != ruleMatchStore) {
+            ruleMatches = null;
+            return false;
         }
+        return true;
+    }
+
+    /**
+     * Setup the rule check on the precomputed rule matches.
+     *
+     * @param store columns of the complete film list
+     * @return The rule filter on film indices.
+     */
+    private IntPredicate createRulePredicate(@NotNull FilmColumnStore store) {
+        if (!blacklistIsActive || isEmpty())
+            return index -> true;
+
+        updateRuleMatches(store);
+        final BitSet matches = ruleMatches;
+        final boolean whitelist = isWhitelist;
+        return index -> matches.get(index) == whitelist;
+    }
 
-        final Predicate<DatenFilm> pred = filterList.stream().reduce(Predicate::and).orElse(x -> true);
-        filterList.clear();
+    /**
+     * Setup the date and length filters which can be evaluated on the column store.
+     *
+     * @param store columns of the complete film list
+     * @return The combined filter on film indices.
+     */
+    private IntPredicate createColumnPredicate(@NotNull FilmColumnStore store) {
+        return createColumnPredicate(store, days_lower_boundary, blacklistIsActive && doNotShowFutureFilms,
+                blacklistIsActive ? minimumFilmLength : 0, System.currentTimeMillis());
+    }
+
+    /**
+     * Date and length filter on the column store.
+     *
+     * @param store         columns of the complete film list
+     * @param lowerBoundary oldest film date in milliseconds to be shown, 0 for all
+     * @param checkFuture   true if films after now shall be hidden
+     * @param minLength     minimum film length in seconds, 0 for all
+     * @param now           current time in milliseconds
+     * @return The combined filter on film indices.
+     */
+    static IntPredicate createColumnPredicate(@NotNull FilmColumnStore store, long lowerBoundary,
+                                              boolean checkFuture, long minLength, long now) {
+        final int livestreamBit = FilmColumnStore.flagBit(DatenFilmFlags.LIVESTREAM);
+
+        return index -> {
+            final long filmTime = store.getDatum(index);
+            // always show livestreams
+            if (lowerBoundary != 0 && (store.getFlags(index) & livestreamBit) == 0) {
+                if (filmTime != 0 && filmTime < lowerBoundary)
+                    return false;
+            }
+            if (checkFuture && filmTime > now)
+                return false;
+
+            final long filmLength = store.getFilmLength(index);
+            return !(filmLength != 0 && minLength > filmLength);
+        };
+    }
 
-        return pred;
+    /**
+     * Setup dynamically the list of filter to be applied to blacklist film list.
+     * Date and length are handled by {@link #createColumnPredicate(FilmColumnStore)},
+     * rules by {@link #createRulePredicate(FilmColumnStore)}.
+     *
+     * @return The reduced filter predicates.
+     */
+    private Predicate<DatenFilm> createPredicate() {
+        if (blacklistIsActive && doNotShowGeoBlockedFilms)
+            return geoblockingPredicate;
+        else
+            return x -> true;
     }
 
     /**
@@ -168,19 +324,26 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
     }
 
     /**
-     * Filterfunction for Abos dialog.
+     * Create the blacklist check for the abo search.
+     * All settings are read once here, the filter is then used for all films of a search.
      *
-     * @param film item to te tested
-     * @return true if item should be displayed.
+     * @return the filter with the current settings.
      */
-    public synchronized boolean checkBlackOkFilme_Downloads(DatenFilm film) {
-        // hier werden die Filme für Downloads gesucht, Zeit ist "0"
-        // ob die Blackliste dafür verwendet werden soll, ist schon geklärt
-        loadCurrentFilterSettings();
-        days_lower_boundary = 0; // soll nur im TabFilme ausgewertet werden (Filter: Tage)
-        blacklistIsActive = true; // Blacklist nur wenn "auch für Abos" geklickt, egal ob ein- oder ausgeschaltet
-
-        return applyFiltersForAbos(film);
+    public synchronized AboBlacklistFilter createAboFilter() {
+        long minLength;
+        try {
+            minLength = Long.parseLong(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_FILMLAENGE)) * 60; // Minuten
+        } catch (Exception ex) {
+            minLength = 0;
+        }
+        final var config = ApplicationConfiguration.getConfiguration();
+
+        return new AboBlacklistFilter(this,
+                Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_IST_WHITELIST)),
+                minLength,
+                Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_ZUKUNFT_NICHT_ANZEIGEN)),
+                config.getBoolean(ApplicationConfiguration.BLACKLIST_DO_NOT_SHOW_GEOBLOCKED_FILMS, false),
+                config.getString(ApplicationConfiguration.GEO_LOCATION));
     }
 
     /**
@@ -220,6 +383,7 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
             minimumFilmLength = 0;
         }
         blacklistIsActive = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_ON));
+        isWhitelist = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_IST_WHITELIST));
         doNotShowFutureFilms = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_ZUKUNFT_NICHT_ANZEIGEN));
         var config = ApplicationConfiguration.getConfiguration();
         doNotShowGeoBlockedFilms = config.getBoolean(ApplicationConfiguration.BLACKLIST_DO_NOT_SHOW_GEOBLOCKED_FILMS, false);
@@ -227,98 +391,6 @@ public class ListeBlacklist extends ArrayList<BlacklistRule> {
         geoblockingPredicate.updateLocation();
     }
 
-    /**
-     * Apply filters for ABOS if check box is active
-     *
-     * @param film item to be filtered
-     * @return true if film shall be displayed
-     */
-    private boolean applyFiltersForAbos(DatenFilm film) {
-        // erst mal den Filter Tage, kommt aus dem Filter und deswegen immer
-        if (!checkDate(film)) {
-            return false;
-        }
-
-        //===========================================
-        // dann die Blacklist, nur wenn eingeschaltet
-        if (!blacklistIsActive) {
-            return true;
-        }
-        if (doNotShowGeoBlockedFilms && !geoblockingPredicate.test(film)) {
-            return false;
-        }
-        if (doNotShowFutureFilms && !checkIfFilmIsInFuture(film)) {
-            return false;
-        }
-
-        if (minimumFilmLength != 0) {
-            if (!checkFilmLength(film)) {
-                // wegen der Möglichkeit "Whiteliste" muss das extra geprüft werden
-                return false;
-            }
-        }
-        if (this.isEmpty()) {
-            return true;
-        }
-
-        final boolean bl_is_whitelist = Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_BLACKLIST_IST_WHITELIST));
-        for (BlacklistRule rule : this) {
-            if (Filter.filterAufFilmPruefenWithLength(rule.getSender(),
-                    rule.getThema(),
-                    makePattern(rule.getTitel()),
-                    makePattern(rule.getThema_titel()),
-                    EMPTY_STRING_ARRAY, 0, true, film, true)) {
-                return bl_is_whitelist;
-            }
-        }
-        return !bl_is_whitelist;
-    }
-    final static private String[] EMPTY_STRING_ARRAY = {""};
-
-    private String[] makePattern(String input) {
-        return Filter.isPattern(input) ? new String[]{input} : input.toLowerCase().split(",");
-    }
-
-    /**
-     * Check film based on date
-     *
-     * @param film item to be checked
-     * @return true if film can be displayed
-     */
-    private boolean checkDate(@NotNull DatenFilm film) {
-        // always show livestreams
-        if (film.isLivestream())
-            return true;
-
-        if (days_lower_boundary != 0) {
-            final long filmTime = film.getDatumFilm().getTime();
-            return filmTime == 0 || filmTime >= days_lower_boundary;
-        }
-
-        return true;
-    }
-
-    /**
-     * Check if a future film should be displayed.
-     *
-     * @param film item to be checked.
-     * @return true if it should be displayed.
-     */
-    private boolean checkIfFilmIsInFuture(@NotNull DatenFilm film) {
-        return film.getDatumFilm().getTime() <= System.currentTimeMillis();
-    }
-
-    /**
-     * Filter based on film length.
-     *
-     * @param film item to check
-     * @return true if film should be displayed
-     */
-    private boolean checkFilmLength(@NotNull DatenFilm film) {
-        final long filmLength = film.getFilmLength();
-        return !(filmLength != 0 && minimumFilmLength > filmLength);
-    }
-
     static class GeoblockingPredicate implements Predicate<DatenFilm> {
         /**
          * Stores the current user´s location. Can be modified by another thread.
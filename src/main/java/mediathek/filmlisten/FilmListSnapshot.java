@@ -0,0 +1,116 @@
+package mediathek.filmlisten;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Binary snapshot of a JSON filmlist file which can be read much faster on startup.
+ * The snapshot stores the JSON file´s size and modification time and is only valid as long as they match.
+ */
+public final class FilmListSnapshot {
+    /**
+     * "MVFS" in ASCII.
+     */
+    public static final int MAGIC = 0x4D564653;
+    /**
+     * Increase whenever the binary layout changes.
+     */
+    public static final int VERSION = 1;
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final Logger logger = LogManager.getLogger();
+
+    private FilmListSnapshot() {
+    }
+
+    /**
+     * Get the snapshot location for a JSON filmlist file.
+     *
+     * @param jsonFile the JSON filmlist
+     * @return path to the snapshot file next to it.
+     */
+    public static Path getSnapshotPath(@NotNull Path jsonFile) {
+        return jsonFile.resolveSibling(jsonFile.getFileName().toString() + FILE_SUFFIX);
+    }
+
+    /**
+     * Check if a usable snapshot exists for the JSON filmlist file.
+     *
+     * @param jsonFile the JSON filmlist
+     * @return true if snapshot exists, has the current format version and matches the JSON file.
+     */
+    public static boolean isUpToDate(@NotNull Path jsonFile) {
+        final Path snapshotFile = getSnapshotPath(jsonFile);
+        if (Files.notExists(snapshotFile) || Files.notExists(jsonFile))
+            return false;
+
+        try (InputStream is = Files.newInputStream(snapshotFile);
+             DataInputStream in = new DataInputStream(is)) {
+            return readHeader(in, jsonFile);
+        } catch (IOException e) {
+            logger.warn("Could not check filmlist snapshot", e);
+            return false;
+        }
+    }
+
+    /**
+     * Write the snapshot header for the given JSON file.
+     */
+    public static void writeHeader(@NotNull DataOutput out, @NotNull Path jsonFile) throws IOException {
+        final var attrs = Files.readAttributes(jsonFile, BasicFileAttributes.class);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(attrs.size());
+        out.writeLong(attrs.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Read and validate the snapshot header.
+     *
+     * @return true if the snapshot belongs to the current state of the JSON file.
+     */
+    public static boolean readHeader(@NotNull DataInput in, @NotNull Path jsonFile) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            return false;
+
+        final long size = in.readLong();
+        final long lastModified = in.readLong();
+        final var attrs = Files.readAttributes(jsonFile, BasicFileAttributes.class);
+
+        return size == attrs.size() && lastModified == attrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Write a string as length-prefixed UTF-8.
+     * {@link DataOutput#writeUTF(String)} can´t be used as descriptions may exceed its 64KB limit.
+     */
+    public static void writeString(@NotNull DataOutput out, @NotNull String str) throws IOException {
+        if (str.isEmpty()) {
+            out.writeInt(0);
+        } else {
+            final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static String readString(@NotNull DataInput in) throws IOException {
+        final int len = in.readInt();
+        if (len == 0)
+            return "";
+
+        final byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
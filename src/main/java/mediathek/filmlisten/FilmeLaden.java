@@ -19,6 +19,7 @@ import mediathek.javafx.tool.JavaFxUtils;
 import mediathek.mainwindow.MediathekGui;
 import mediathek.tool.ApplicationConfiguration;
 import mediathek.tool.FilmListUpdateType;
+import mediathek.tool.GermanStringSorter;
 import mediathek.tool.GuiFunktionen;
 import mediathek.tool.http.MVHttpClient;
 import mediathek.tool.javafx.FXErrorDialog;
@@ -37,7 +38,6 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -259,6 +259,8 @@ public class FilmeLaden {
         // beim Ändern von Abos gemacht wird
 
         logger.debug("undEnde()");
+        // keys of values which are not in the new list anymore are not needed
+        GermanStringSorter.getInstance().clearKeyCache();
         final var listeFilme = daten.getListeFilme();
         final var readDate = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm").format(LocalDateTime.ofInstant(Instant.now(), ZoneId.systemDefault()));
 
@@ -270,7 +272,6 @@ public class FilmeLaden {
 
             listeFilme.updateFromFilmList(diffListe);
             listeFilme.setMetaData(diffListe.metaData());
-            Collections.sort(listeFilme);
             diffListe.clear();
         } else {
             logger.info("Liste Kompl. gelesen am: {}", readDate);
@@ -358,6 +359,7 @@ public class FilmeLaden {
                     film.setNew(true);
                     listeFilme.neueFilme = true;
                 });
+        listeFilme.newFilmsMarked();
         stopwatch.stop();
         logger.debug("findAndMarkNewFilms() took: {}", stopwatch);
 
@@ -1,28 +1,23 @@
 package mediathek.filmlisten.reader
 
 import mediathek.daten.DatenFilm
-import mediathek.daten.ListeFilme
 import mediathek.tool.datum.DateUtil
 import java.time.LocalDate
 
-internal class DateFilter(listeFilme: ListeFilme, days: Long) : IDateFilter {
-    private val listeFilme: ListeFilme
+internal class DateFilter(days: Long) : IDateFilter {
     private val cutoffDate: LocalDate
 
     private fun isBeforeOrEqual(date: LocalDate, compareToDate: LocalDate): Boolean {
         return !compareToDate.isAfter(date)
     }
 
-    override fun filter(film: DatenFilm) {
+    override fun accept(film: DatenFilm): Boolean {
         // do not filter livestreams
         val localDate = DateUtil.convertToLocalDate(film.datumFilm)
-        if (film.isLivestream || isBeforeOrEqual(localDate, cutoffDate)) {
-            listeFilme.add(film)
-        }
+        return film.isLivestream || isBeforeOrEqual(localDate, cutoffDate)
     }
 
     init {
-        this.listeFilme = listeFilme
         cutoffDate = LocalDate.now().minusDays(days)
     }
-}
\ No newline at end of file
+}
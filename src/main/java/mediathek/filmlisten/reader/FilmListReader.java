@@ -3,17 +3,21 @@ package mediathek.filmlisten.reader;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Stopwatch;
 import mediathek.config.Config;
 import mediathek.config.Konstanten;
 import mediathek.controller.SenderFilmlistLoadApprover;
 import mediathek.daten.DatenFilm;
+import mediathek.daten.FilmFieldInterner;
 import mediathek.daten.ListeFilme;
 import mediathek.filmeSuchen.ListenerFilmeLaden;
 import mediathek.filmeSuchen.ListenerFilmeLadenEvent;
+import mediathek.filmlisten.FilmListSnapshot;
 import mediathek.tool.ApplicationConfiguration;
 import mediathek.tool.InputStreamProgressMonitor;
 import mediathek.tool.ProgressMonitorInputStream;
 import mediathek.tool.TrailerTeaserChecker;
+import mediathek.tool.datum.DatumFilm;
 import mediathek.tool.http.MVHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -26,6 +30,8 @@ import org.jetbrains.annotations.NotNull;
 import org.tukaani.xz.XZInputStream;
 
 import javax.swing.event.EventListenerList;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,15 +45,23 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class FilmListReader implements AutoCloseable {
     private static final int PROGRESS_MAX = 100;
     private static final Logger logger = LogManager.getLogger(FilmListReader.class);
     private static final String THEMA_LIVE = "Livestream";
+    /**
+     * Number of film entries which get post-processed together in pipelined mode.
+     */
+    private static final int BATCH_SIZE = 4096;
     private final EventListenerList listeners = new EventListenerList();
     private final ListenerFilmeLadenEvent progressEvent = new ListenerFilmeLadenEvent("", "Download", 0, 0, false);
     private final int max;
@@ -58,6 +72,12 @@ public class FilmListReader implements AutoCloseable {
     protected int DECOMPRESSOR_MEMORY_LIMIT = -1;
     private int progress;
     private IDateFilter dateFilter;
+    private LoadSettings loadSettings;
+    /**
+     * Number of entries found in the source, including the ones rejected by a filter.
+     */
+    private int entriesRead;
+    private boolean entriesSkipped;
     private String sender = "";
     private String thema = "";
 
@@ -141,10 +161,6 @@ public class FilmListReader implements AutoCloseable {
             datenFilm.setThema(value);
             thema = value;
         }
-
-        //we need to check thema as well as (currently) ARD also puts teaser only into thema...
-        if (ttc.check(datenFilm.getThema()))
-            datenFilm.setTrailerTeaser(true);
     }
 
     private String checkedString(JsonParser jp) throws IOException {
@@ -256,8 +272,18 @@ public class FilmListReader implements AutoCloseable {
     }
 
     private void parseTitel(JsonParser jp, DatenFilm datenFilm) throws IOException {
-        final String title = checkedString(jp);
-        datenFilm.setTitle(title);
+        datenFilm.setTitle(checkedString(jp));
+    }
+
+    /**
+     * Set all flags which can be derived from thema and title.
+     */
+    private void parseTitleFlags(DatenFilm datenFilm) {
+        //we need to check thema as well as (currently) ARD also puts teaser only into thema...
+        if (ttc.check(datenFilm.getThema()))
+            datenFilm.setTrailerTeaser(true);
+
+        final String title = datenFilm.getTitle();
         //check title if it is audio version
         parseAudioVersion(title, datenFilm);
         //check if it is in sign language
@@ -278,8 +304,6 @@ public class FilmListReader implements AutoCloseable {
     }
 
     private void readData(JsonParser jp, ListeFilme listeFilme) throws IOException {
-        JsonToken jsonToken;
-
         if (jp.nextToken() != JsonToken.START_OBJECT) {
             throw new IllegalStateException("Expected data to start with an Object");
         }
@@ -289,16 +313,78 @@ public class FilmListReader implements AutoCloseable {
         skipFieldDescriptions(jp);
 
         final var config = ApplicationConfiguration.getConfiguration();
-        final boolean loadTrailer = config.getBoolean(ApplicationConfiguration.FilmList.LOAD_TRAILER, true);
-        final boolean loadAudiodescription = config.getBoolean(ApplicationConfiguration.FilmList.LOAD_AUDIO_DESCRIPTION, true);
-        final boolean loadSignLanguage = config.getBoolean(ApplicationConfiguration.FilmList.LOAD_SIGN_LANGUAGE, true);
-        final boolean loadLivestreams = config.getBoolean(ApplicationConfiguration.FilmList.LOAD_LIVESTREAMS, true);
+        final boolean pipelined = config.getBoolean(ApplicationConfiguration.FilmList.PARALLEL_READER, true)
+                && Runtime.getRuntime().availableProcessors() > 1;
+        if (pipelined)
+            readEntriesPipelined(jp, listeFilme);
+        else
+            readEntries(jp, listeFilme);
+    }
 
+    /**
+     * Read all film entries and post-process them on the reading thread.
+     */
+    private void readEntries(JsonParser jp, ListeFilme listeFilme) throws IOException {
+        DatenFilm datenFilm;
+        while ((datenFilm = readNextEntry(jp)) != null) {
+            if (postProcess(datenFilm))
+                listeFilme.add(datenFilm);
+        }
+    }
+
+    /**
+     * Read all film entries on this thread but post-process them in parallel batches.
+     * Decompression and tokenizing stay sequential as the sender and thema back-references
+     * depend on the previous entry. Batch results are appended in read order so the final list
+     * is identical to the sequential mode.
+     */
+    private void readEntriesPipelined(JsonParser jp, ListeFilme listeFilme) throws IOException {
+        final int maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+        final ArrayDeque<CompletableFuture<List<DatenFilm>>> inFlight = new ArrayDeque<>();
+
+        try {
+            ArrayList<DatenFilm> batch = new ArrayList<>(BATCH_SIZE);
+            DatenFilm datenFilm;
+            while ((datenFilm = readNextEntry(jp)) != null) {
+                batch.add(datenFilm);
+                if (batch.size() == BATCH_SIZE) {
+                    inFlight.add(submitBatch(batch));
+                    batch = new ArrayList<>(BATCH_SIZE);
+
+                    // keep memory bounded if the workers can´t keep up with the reader
+                    if (inFlight.size() >= maxInFlight)
+                        listeFilme.addAll(inFlight.poll().join());
+                }
+            }
+            if (!batch.isEmpty())
+                inFlight.add(submitBatch(batch));
+
+            while (!inFlight.isEmpty()) {
+                listeFilme.addAll(inFlight.poll().join());
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private CompletableFuture<List<DatenFilm>> submitBatch(@NotNull List<DatenFilm> batch) {
+        return CompletableFuture.supplyAsync(() -> batch.stream().filter(this::postProcess).toList(),
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Read the next film entry from the parser.
+     *
+     * @return the raw film entry or null if there are no more entries.
+     */
+    private DatenFilm readNextEntry(JsonParser jp) throws IOException {
+        JsonToken jsonToken;
         while ((jsonToken = jp.nextToken()) != null) {
             if (jsonToken == JsonToken.END_OBJECT) {
                 break;
             }
             if (jp.isExpectedStartArrayToken()) {
+                entriesRead++;
                 DatenFilm datenFilm = new DatenFilm();
                 parseSender(jp, datenFilm);
                 parseThema(jp, datenFilm);
@@ -321,40 +407,58 @@ public class FilmListReader implements AutoCloseable {
                 parseGeo(jp, datenFilm);
                 parseNeu(jp, datenFilm);
 
-                //this will check after all data has been read
-                parseLivestream(datenFilm);
-                checkPlayList(datenFilm);
+                return datenFilm;
+            }
+        }
 
-                //if user specified he doesn´t want to load this sender, skip...
-                if (!SenderFilmlistLoadApprover.isApproved(datenFilm.getSender()))
-                    continue;
+        return null;
+    }
 
-                if (!loadTrailer) {
-                    if (datenFilm.isTrailerTeaser())
-                        continue;
-                }
+    /**
+     * Derive flags, parse size, length and date and apply all load filters.
+     * Only touches the given film and thread-safe helpers and may therefore run on worker threads.
+     *
+     * @param datenFilm the raw film entry
+     * @return true if the film shall be added to the list.
+     */
+    private boolean postProcess(@NotNull DatenFilm datenFilm) {
+        parseTitleFlags(datenFilm);
 
-                if (!loadAudiodescription) {
-                    if (datenFilm.isAudioVersion())
-                        continue;
-                }
+        //this will check after all data has been read
+        parseLivestream(datenFilm);
+        checkPlayList(datenFilm);
 
-                if (!loadSignLanguage) {
-                    if (datenFilm.isSignLanguage())
-                        continue;
-                }
+        if (!isLoadApproved(datenFilm))
+            return false;
 
-                if (!loadLivestreams) {
-                    if (datenFilm.isLivestream())
-                        continue;
-                }
+        //just initialize the film object, rest will be done in one of the filters
+        datenFilm.init();
+        FilmFieldInterner.intern(datenFilm);
+
+        return dateFilter.accept(datenFilm);
+    }
 
-                //just initialize the film object, rest will be done in one of the filters
-                datenFilm.init();
+    /**
+     * Check the user settings which film entries shall be loaded.
+     *
+     * @param datenFilm film entry with all flags set
+     * @return true if the film may be loaded.
+     */
+    private boolean isLoadApproved(@NotNull DatenFilm datenFilm) {
+        //if user specified he doesn´t want to load this sender, skip...
+        if (!SenderFilmlistLoadApprover.isApproved(datenFilm.getSender()))
+            return false;
 
-                dateFilter.filter(datenFilm);
-            }
-        }
+        if (!loadSettings.loadTrailer() && datenFilm.isTrailerTeaser())
+            return false;
+
+        if (!loadSettings.loadAudiodescription() && datenFilm.isAudioVersion())
+            return false;
+
+        if (!loadSettings.loadSignLanguage() && datenFilm.isSignLanguage())
+            return false;
+
+        return loadSettings.loadLivestreams() || !datenFilm.isLivestream();
     }
 
     /**
@@ -371,28 +475,47 @@ public class FilmListReader implements AutoCloseable {
         try {
             logger.trace("Liste Filme lesen von: {}", source);
             listeFilme.clear();
+            entriesRead = 0;
 
             if (days == 0) {
-                dateFilter = new NoOpDateFilter(listeFilme);
+                dateFilter = new NoOpDateFilter();
             } else {
-                dateFilter = new DateFilter(listeFilme, days);
+                dateFilter = new DateFilter(days);
             }
 
+            final var config = ApplicationConfiguration.getConfiguration();
+            loadSettings = new LoadSettings(config.getBoolean(ApplicationConfiguration.FilmList.LOAD_TRAILER, true),
+                    config.getBoolean(ApplicationConfiguration.FilmList.LOAD_AUDIO_DESCRIPTION, true),
+                    config.getBoolean(ApplicationConfiguration.FilmList.LOAD_SIGN_LANGUAGE, true),
+                    config.getBoolean(ApplicationConfiguration.FilmList.LOAD_LIVESTREAMS, true));
+
             notifyStart(source); // für die Progressanzeige
 
             if (source.startsWith("http")) {
                 final URL sourceUrl = new URL(source);
                 processFromWeb(sourceUrl, listeFilme);
-            } else
-                processFromFile(source, listeFilme);
+            } else {
+                if (!processFromSnapshot(source, listeFilme))
+                    processFromFile(source, listeFilme);
+            }
 
         } catch (MalformedURLException ex) {
             logger.warn(ex);
         }
 
+        entriesSkipped = listeFilme.isEmpty() || entriesRead != listeFilme.size();
         notifyFertig(source, listeFilme);
     }
 
+    /**
+     * Indicate whether the last read rejected or lost entries of the source, e.g. by a load filter or an error.
+     *
+     * @return false if the list contains exactly the entries of the source.
+     */
+    public boolean hasSkippedEntries() {
+        return entriesSkipped;
+    }
+
     /**
      * Read a locally available filmlist.
      *
@@ -426,6 +549,88 @@ public class FilmListReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Read the binary snapshot of a local filmlist if it is up-to-date.
+     *
+     * @param source     file path of the JSON filmlist as string
+     * @param listeFilme the list to read to
+     * @return true if the snapshot was used, false if the JSON filmlist must be read.
+     */
+    private boolean processFromSnapshot(String source, ListeFilme listeFilme) {
+        final Path jsonFile = Paths.get(source);
+        final Path snapshotFile = FilmListSnapshot.getSnapshotPath(jsonFile);
+        if (Files.notExists(snapshotFile) || Files.notExists(jsonFile))
+            return false;
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            final ProgressMonitor monitor = new ProgressMonitor(source);
+            try (InputStream is = Files.newInputStream(snapshotFile);
+                 InputStream input = new ProgressMonitorInputStream(is, Files.size(snapshotFile), monitor);
+                 BufferedInputStream bis = new BufferedInputStream(input, 64 * 1024);
+                 DataInputStream in = new DataInputStream(bis)) {
+                if (!FilmListSnapshot.readHeader(in, jsonFile)) {
+                    logger.info("Filmlist snapshot is outdated, reading JSON filmlist");
+                    return false;
+                }
+                readSnapshotData(in, listeFilme);
+            }
+            stopwatch.stop();
+            logger.trace("Filmlist snapshot read in {}", stopwatch);
+            return true;
+        } catch (Exception ex) {
+            logger.error("Filmlist snapshot: {}", snapshotFile, ex);
+            listeFilme.clear();
+            return false;
+        }
+    }
+
+    private void readSnapshotData(DataInputStream in, ListeFilme listeFilme) throws IOException {
+        var meta = listeFilme.metaData();
+        meta.setDatum(FilmListSnapshot.readString(in));
+        meta.setId(FilmListSnapshot.readString(in));
+
+        final String[] stringTable = new String[in.readInt()];
+        for (int i = 0; i < stringTable.length; i++) {
+            stringTable[i] = FilmListSnapshot.readString(in);
+        }
+
+        final int count = in.readInt();
+        listeFilme.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            entriesRead++;
+            DatenFilm datenFilm = new DatenFilm();
+            datenFilm.setSender(stringTable[in.readInt()]);
+            datenFilm.setThema(stringTable[in.readInt()]);
+            datenFilm.setTitle(FilmListSnapshot.readString(in));
+            datenFilm.setSendeDatum(FilmListSnapshot.readString(in));
+            datenFilm.setSendeZeit(FilmListSnapshot.readString(in));
+            final String dauer = FilmListSnapshot.readString(in);
+            final int duration = in.readInt();
+            final long filmLength = in.readLong();
+            datenFilm.setSize(FilmListSnapshot.readString(in));
+            final int size = in.readInt();
+            datenFilm.setDescription(FilmListSnapshot.readString(in));
+            datenFilm.setUrlNormalQuality(FilmListSnapshot.readString(in));
+            datenFilm.setWebsiteLink(FilmListSnapshot.readString(in));
+            datenFilm.setUrlSubtitle(FilmListSnapshot.readString(in));
+            datenFilm.setUrlLowQuality(FilmListSnapshot.readString(in));
+            datenFilm.setUrlHighQuality(FilmListSnapshot.readString(in));
+            datenFilm.setDatumLong(FilmListSnapshot.readString(in));
+            final long datum = in.readLong();
+            final String geo = FilmListSnapshot.readString(in);
+            datenFilm.setGeo(geo.isEmpty() ? Optional.empty() : Optional.of(geo));
+            datenFilm.setFlagBits(in.readInt());
+
+            final DatumFilm datumFilm = datum == DatumFilm.UNDEFINED_FILM_DATE.getTime() ? DatumFilm.UNDEFINED_FILM_DATE : new DatumFilm(datum);
+            datenFilm.init(dauer, duration, filmLength, size, datumFilm);
+            FilmFieldInterner.intern(datenFilm);
+
+            if (isLoadApproved(datenFilm) && dateFilter.accept(datenFilm))
+                listeFilme.add(datenFilm);
+        }
+    }
+
     private String buildClientInfo()
     {
         List<Object> clientData = Arrays.asList(Konstanten.PROGRAMMNAME, Konstanten.MVVERSION, SystemUtils.OS_ARCH,
@@ -508,6 +713,10 @@ public class FilmListReader implements AutoCloseable {
         removeRegisteredListeners();
     }
 
+    private record LoadSettings(boolean loadTrailer, boolean loadAudiodescription, boolean loadSignLanguage,
+                                boolean loadLivestreams) {
+    }
+
     class ProgressMonitor implements InputStreamProgressMonitor {
         private final String sourceString;
         private int oldProgress;
@@ -3,5 +3,9 @@ package mediathek.filmlisten.reader
 import mediathek.daten.DatenFilm
 
 internal interface IDateFilter {
-    fun filter(film: DatenFilm)
-}
\ No newline at end of file
+    /**
+     * Check if the film shall be added to the list.
+     * Must be thread-safe as it may be called from parallel reader stages.
+     */
+    fun accept(film: DatenFilm): Boolean
+}
@@ -0,0 +1,123 @@
+package mediathek.filmlisten.writer;
+
+import com.google.common.base.Stopwatch;
+import mediathek.daten.DatenFilm;
+import mediathek.daten.ListeFilme;
+import mediathek.filmlisten.FilmListSnapshot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static mediathek.filmlisten.FilmListSnapshot.writeString;
+
+/**
+ * Write a binary snapshot of the filmlist next to the JSON filmlist file.
+ * Sender and thema are stored only once in a string table, date, duration and size are stored pre-parsed.
+ */
+public class FilmListSnapshotWriter {
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * Write the snapshot.
+     * Must be called after the JSON file was written as the snapshot is bound to its current state.
+     *
+     * @param jsonFile   the JSON filmlist file which contains the same films
+     * @param listeFilme the films to write
+     */
+    public void writeSnapshot(@NotNull Path jsonFile, @NotNull ListeFilme listeFilme) {
+        final Path snapshotFile = FilmListSnapshot.getSnapshotPath(jsonFile);
+        final Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName().toString() + ".tmp");
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        try {
+            try (OutputStream fos = Files.newOutputStream(tempFile);
+                 BufferedOutputStream bos = new BufferedOutputStream(fos, 64 * 1024);
+                 DataOutputStream out = new DataOutputStream(bos)) {
+                FilmListSnapshot.writeHeader(out, jsonFile);
+                writeMetaData(out, listeFilme);
+
+                final Map<String, Integer> stringTable = buildStringTable(out, listeFilme);
+                out.writeInt(listeFilme.size());
+                for (DatenFilm film : listeFilme) {
+                    writeEntry(out, film, stringTable);
+                }
+            }
+            // only a completely written snapshot may replace the old one
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stopwatch.stop();
+            logger.trace("Filmlist snapshot written in {}", stopwatch);
+        } catch (Exception e) {
+            logger.error("Could not write filmlist snapshot: {}", snapshotFile, e);
+            try {
+                Files.deleteIfExists(tempFile);
+                Files.deleteIfExists(snapshotFile);
+            } catch (IOException ex) {
+                logger.warn("Could not delete filmlist snapshot", ex);
+            }
+        }
+    }
+
+    private void writeMetaData(@NotNull DataOutputStream out, @NotNull ListeFilme listeFilme) throws IOException {
+        final var meta = listeFilme.metaData();
+        writeString(out, meta.getDatum());
+        writeString(out, meta.getId());
+    }
+
+    /**
+     * Collect all distinct senders and themas, write them and return their table index.
+     */
+    private Map<String, Integer> buildStringTable(@NotNull DataOutputStream out, @NotNull ListeFilme listeFilme) throws IOException {
+        final Map<String, Integer> stringTable = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        for (DatenFilm film : listeFilme) {
+            for (var str : List.of(film.getSender(), film.getThema())) {
+                if (!stringTable.containsKey(str)) {
+                    stringTable.put(str, strings.size());
+                    strings.add(str);
+                }
+            }
+        }
+
+        out.writeInt(strings.size());
+        for (var str : strings) {
+            writeString(out, str);
+        }
+
+        return stringTable;
+    }
+
+    private void writeEntry(@NotNull DataOutputStream out, @NotNull DatenFilm film, @NotNull Map<String, Integer> stringTable) throws IOException {
+        out.writeInt(stringTable.get(film.getSender()));
+        out.writeInt(stringTable.get(film.getThema()));
+        writeString(out, film.getTitle());
+        writeString(out, film.getSendeDatum());
+        writeString(out, film.getSendeZeit());
+        writeString(out, film.getDauer());
+        out.writeInt(film.getDuration());
+        out.writeLong(film.getFilmLength());
+        writeString(out, film.getSize());
+        out.writeInt(film.getFilmSize().getSize());
+        writeString(out, film.getDescription());
+        writeString(out, film.getUrlNormalQuality());
+        writeString(out, film.getWebsiteLink());
+        writeString(out, film.getUrlSubtitle());
+        writeString(out, film.getUrlLowQuality());
+        writeString(out, film.getUrlHighQuality());
+        writeString(out, film.getDatumLong());
+        out.writeLong(film.getDatumFilm().getTime());
+        writeString(out, film.getGeo().orElse(""));
+        out.writeInt(film.getFlagBits());
+    }
+}
@@ -316,7 +316,10 @@ public class ManageAboPanel extends JPanel {
         }
 
         tabelleLaden();
-        daten.getListeAbo().aenderungMelden();
+        if (rows.length > 1)
+            daten.getListeAbo().aenderungMelden();
+        else
+            daten.getListeAbo().aenderungMelden(editedAbo);
     }
 
     private void changeAboActiveState(boolean ein) {
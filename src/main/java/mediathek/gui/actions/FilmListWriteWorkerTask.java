@@ -3,8 +3,11 @@ package mediathek.gui.actions;
 import javafx.concurrent.Task;
 import mediathek.config.Daten;
 import mediathek.config.StandardLocations;
+import mediathek.filmlisten.writer.FilmListSnapshotWriter;
 import mediathek.filmlisten.writer.FilmListWriter;
 
+import java.nio.file.Paths;
+
 public class FilmListWriteWorkerTask extends Task<Void> {
 
     private final Daten daten;
@@ -19,10 +22,15 @@ public class FilmListWriteWorkerTask extends Task<Void> {
         FilmListWriter writer = new FilmListWriter(false);
         updateMessage("Schreibe Filmliste");
         updateProgress(0d, 1d);
-        writer.writeFilmList(StandardLocations.getFilmlistFilePath(),
+        final String filmlistFile = StandardLocations.getFilmlistFilePath();
+        writer.writeFilmList(filmlistFile,
                 daten.getListeFilme(),
                 prog -> updateProgress(prog, 1d));
 
+        updateMessage("Schreibe Filmlisten-Snapshot");
+        updateProgress(-1, 1d);
+        new FilmListSnapshotWriter().writeSnapshot(Paths.get(filmlistFile), daten.getListeFilme());
+
         return null;
     }
 }
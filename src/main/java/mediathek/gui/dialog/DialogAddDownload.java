@@ -1,8 +1,5 @@
 package mediathek.gui.dialog;
 
-import com.google.common.util.concurrent.FutureCallback;
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
 import jiconfont.icons.font_awesome.FontAwesome;
 import jiconfont.swing.IconFontSwing;
 import mediathek.config.Daten;
@@ -36,7 +33,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 public class DialogAddDownload extends JDialog {
     private DatenPset pSet;
@@ -71,9 +68,6 @@ public class DialogAddDownload extends JDialog {
     }
 
     private void setupUI() {
-        // launch async tasks first
-        launchResolutionFutures();
-
         jCheckBoxStarten.setSelected(Boolean.parseBoolean(MVConfig.get(MVConfig.Configs.SYSTEM_DIALOG_DOWNLOAD_D_STARTEN)));
         jCheckBoxStarten.addActionListener(e -> MVConfig.add(MVConfig.Configs.SYSTEM_DIALOG_DOWNLOAD_D_STARTEN, String.valueOf(jCheckBoxStarten.isSelected())));
 
@@ -111,7 +105,7 @@ public class DialogAddDownload extends JDialog {
         setupDeleteHistoryButton();
         setupPfadSpeichernCheckBox();
 
-        waitForFileSizeFutures();
+        dateigroessenAnzeigen();
 
         setupResolutionButtons();
         calculateAndCheckDiskSpace();
@@ -124,91 +118,44 @@ public class DialogAddDownload extends JDialog {
         this.setSize(w, this.getHeight());
     }
 
-    private ListenableFuture<String> hqFuture;
-    private ListenableFuture<String> hochFuture;
-    private ListenableFuture<String> kleinFuture;
-
-    private void launchResolutionFutures() {
-        var decoratedPool = Daten.getInstance().getDecoratedPool();
-        hqFuture = decoratedPool.submit(() -> {
-            var url = datenFilm.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY);
-            return datenFilm.getDateigroesse(url);
-        });
-
-        Futures.addCallback(hqFuture, new FutureCallback<>() {
-            @Override
-            public void onSuccess(String result) {
-                SwingUtilities.invokeLater(() -> {
-                    if (jRadioButtonAufloesungHd.isEnabled()) {
-                        dateiGroesse_HQ = result;
-                        if (!dateiGroesse_HQ.isEmpty()) {
-                            var text = jRadioButtonAufloesungHd.getText();
-                            jRadioButtonAufloesungHd.setText(text + "   [ " + dateiGroesse_HQ + " MB ]");
-                        }
-                    }
-                });
-            }
-
-            @Override
-            public void onFailure(@NotNull Throwable t) {
-                SwingUtilities.invokeLater(() -> {
-                    dateiGroesse_HQ = "";
-                    logger.error("Failed to retrieve HD resolution", t);
-                });
-            }
-        }, decoratedPool);
-
-        hochFuture = decoratedPool.submit(() -> {
-            var url = datenFilm.getUrlNormalQuality();
-            return datenFilm.getDateigroesse(url);
-        });
-        Futures.addCallback(hochFuture, new FutureCallback<>() {
-            @Override
-            public void onSuccess(String result) {
-                SwingUtilities.invokeLater(() -> {
-                    dateiGroesse_Hoch = result;
-                    if (!dateiGroesse_Hoch.isEmpty()) {
-                        var text = jRadioButtonAufloesungHoch.getText();
-                        jRadioButtonAufloesungHoch.setText(text + "   [ " + dateiGroesse_Hoch + " MB ]");
-                    }
-                });
-            }
+    /**
+     * Show the file sizes of the resolutions.
+     * Sizes which are not known yet are requested in the background, the dialog doesn´t wait for them.
+     */
+    private void dateigroessenAnzeigen() {
+        dateigroesseAnzeigen(jRadioButtonAufloesungHd, datenFilm.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY),
+                size -> dateiGroesse_HQ = size);
+        dateigroesseAnzeigen(jRadioButtonAufloesungHoch, datenFilm.getUrlNormalQuality(), size -> dateiGroesse_Hoch = size);
+        dateigroesseAnzeigen(jRadioButtonAufloesungKlein, datenFilm.getUrlFuerAufloesung(FilmResolution.Enum.LOW),
+                size -> dateiGroesse_Klein = size);
+    }
 
-            @Override
-            public void onFailure(@NotNull Throwable t) {
-                SwingUtilities.invokeLater(() -> {
-                    dateiGroesse_Hoch = "";
-                    logger.error("Failed to retrieve Hoch resolution", t);
-                });
-            }
-        }, decoratedPool);
+    private void dateigroesseAnzeigen(JRadioButton button, String url, Consumer<String> groesse) {
+        if (!button.isEnabled()) {
+            return;
+        }
+        if (url.equalsIgnoreCase(datenFilm.getUrlNormalQuality())) {
+            setDateigroesse(button, datenFilm.getSize(), groesse);
+            return;
+        }
 
-        kleinFuture = decoratedPool.submit(() -> {
-            var url = datenFilm.getUrlFuerAufloesung(FilmResolution.Enum.LOW);
-            return datenFilm.getDateigroesse(url);
-        });
-        Futures.addCallback(kleinFuture, new FutureCallback<>() {
-            @Override
-            public void onSuccess(String result) {
-                SwingUtilities.invokeLater(() -> {
-                    if (jRadioButtonAufloesungKlein.isEnabled()) {
-                        dateiGroesse_Klein = result;
-                        if (!dateiGroesse_Klein.isEmpty()) {
-                            var text = jRadioButtonAufloesungKlein.getText();
-                            jRadioButtonAufloesungKlein.setText(text + "   [ " + dateiGroesse_Klein + " MB ]");
-                        }
-                    }
-                });
-            }
+        final var probe = FileSizeProbe.getInstance();
+        final var cached = probe.getCachedSize(url);
+        if (cached.isPresent()) {
+            setDateigroesse(button, FileSize.convertSize(cached.getAsLong()), groesse);
+        } else {
+            probe.probeInteractive(url).thenAccept(size -> SwingUtilities.invokeLater(() -> {
+                setDateigroesse(button, FileSize.convertSize(size), groesse);
+                calculateAndCheckDiskSpace();
+            }));
+        }
+    }
 
-            @Override
-            public void onFailure(@NotNull Throwable t) {
-                SwingUtilities.invokeLater(() -> {
-                    dateiGroesse_Klein = "";
-                    logger.error("Failed to retrieve Klein resolution", t);
-                });
-            }
-        }, decoratedPool);
+    private void setDateigroesse(JRadioButton button, String size, Consumer<String> groesse) {
+        groesse.accept(size);
+        if (!size.isEmpty()) {
+            button.setText(button.getText() + "   [ " + size + " MB ]");
+        }
     }
 
     private void setupPSetComboBox() {
@@ -328,17 +275,6 @@ public class DialogAddDownload extends JDialog {
         });
     }
 
-    private void waitForFileSizeFutures() {
-        // for safety wait for all futures here...
-        try {
-            hqFuture.get();
-            hochFuture.get();
-            kleinFuture.get();
-        } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error occured while waiting for file size futures", e);
-        }
-    }
-
     private void setupPfadSpeichernCheckBox() {
         final Configuration config = ApplicationConfiguration.getConfiguration();
         jCheckBoxPfadSpeichern.setSelected(config.getBoolean(ApplicationConfiguration.DOWNLOAD_SHOW_LAST_USED_PATH, true));
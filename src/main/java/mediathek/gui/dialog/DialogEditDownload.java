@@ -9,6 +9,8 @@ import mediathek.daten.DatenProg;
 import mediathek.daten.FilmResolution;
 import mediathek.file.GetFile;
 import mediathek.tool.EscapeKeyHandler;
+import mediathek.tool.FileSize;
+import mediathek.tool.FileSizeProbe;
 import mediathek.tool.MVMessageDialog;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,6 +23,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.function.Consumer;
 
 public class DialogEditDownload extends JDialog {
     private final DatenDownload datenDownload;
@@ -88,27 +91,18 @@ public class DialogEditDownload extends JDialog {
         if (datenDownload.film != null) {
             jRadioButtonResHi.setEnabled(!gestartet);
             jRadioButtonResHi.setSelected(datenDownload.arr[DatenDownload.DOWNLOAD_URL].equals(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.NORMAL)));
-            dateiGroesse_Hoch = datenDownload.film.getDateigroesse(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.NORMAL));
-            if (!dateiGroesse_Hoch.isEmpty()) {
-                jRadioButtonResHi.setText(jRadioButtonResHi.getText() + "   [ " + dateiGroesse_Hoch + " MB ]");
-            }
+            dateigroesseAnzeigen(jRadioButtonResHi, datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.NORMAL), size -> dateiGroesse_Hoch = size);
 
             if (!datenDownload.film.getUrlHighQuality().isEmpty()) {
                 jRadioButtonResHd.setEnabled(!gestartet);
                 jRadioButtonResHd.setSelected(datenDownload.arr[DatenDownload.DOWNLOAD_URL].equals(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY)));
-                dateiGroesse_HD = datenDownload.film.getDateigroesse(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY));
-                if (!dateiGroesse_HD.isEmpty()) {
-                    jRadioButtonResHd.setText(jRadioButtonResHd.getText() + "   [ " + dateiGroesse_HD + " MB ]");
-                }
+                dateigroesseAnzeigen(jRadioButtonResHd, datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY), size -> dateiGroesse_HD = size);
             }
 
             if (!datenDownload.film.getUrlLowQuality().isEmpty()) {
                 jRadioButtonResLo.setEnabled(!gestartet);
                 jRadioButtonResLo.setSelected(datenDownload.arr[DatenDownload.DOWNLOAD_URL].equals(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.LOW)));
-                dateiGroesse_Klein = datenDownload.film.getDateigroesse(datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.LOW));
-                if (!dateiGroesse_Klein.isEmpty()) {
-                    jRadioButtonResLo.setText(jRadioButtonResLo.getText() + "   [ " + dateiGroesse_Klein + " MB ]");
-                }
+                dateigroesseAnzeigen(jRadioButtonResLo, datenDownload.film.getUrlFuerAufloesung(FilmResolution.Enum.LOW), size -> dateiGroesse_Klein = size);
             }
 
         }
@@ -116,6 +110,35 @@ public class DialogEditDownload extends JDialog {
         resolution = getRadioButtonResolution();
     }
 
+    /**
+     * Show the file size of a resolution on its button.
+     * Sizes which are not known yet are requested in the background, the dialog doesn´t wait for them.
+     *
+     * @param groesse stores the size used when the resolution is changed
+     */
+    private void dateigroesseAnzeigen(JRadioButton button, String url, Consumer<String> groesse) {
+        if (url.equalsIgnoreCase(datenDownload.film.getUrlNormalQuality())) {
+            setDateigroesse(button, datenDownload.film.getSize(), groesse);
+            return;
+        }
+
+        final var probe = FileSizeProbe.getInstance();
+        final var cached = probe.getCachedSize(url);
+        if (cached.isPresent()) {
+            setDateigroesse(button, FileSize.convertSize(cached.getAsLong()), groesse);
+        } else {
+            probe.probeInteractive(url).thenAccept(size ->
+                    SwingUtilities.invokeLater(() -> setDateigroesse(button, FileSize.convertSize(size), groesse)));
+        }
+    }
+
+    private void setDateigroesse(JRadioButton button, String size, Consumer<String> groesse) {
+        groesse.accept(size);
+        if (!size.isEmpty()) {
+            button.setText(button.getText() + "   [ " + size + " MB ]");
+        }
+    }
+
     private FilmResolution.Enum getRadioButtonResolution() {
         FilmResolution.Enum res;
         if (jRadioButtonResHd.isSelected()) {
@@ -0,0 +1,17 @@
+package mediathek.gui.messages;
+
+/**
+ * The size of a film url has been determined in the background.
+ */
+public class FileSizeProbedEvent extends BaseEvent {
+    public final String url;
+    /**
+     * size in bytes or -1 if unknown
+     */
+    public final long size;
+
+    public FileSizeProbedEvent(String url, long size) {
+        this.url = url;
+        this.size = size;
+    }
+}
@@ -33,9 +33,7 @@ public abstract class AGuiTabPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent e) {
             var listFilms = getSelFilme();
-            try (var controller = new SeenHistoryController()) {
-                controller.markSeen(listFilms);
-            }
+            SeenHistoryController.getInstance().markSeen(listFilms);
         }
     }
 
@@ -44,9 +42,7 @@ public abstract class AGuiTabPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent e) {
             var listFilms = getSelFilme();
-            try (var controller = new SeenHistoryController()) {
-                controller.markUnseen(listFilms);
-            }
+            SeenHistoryController.getInstance().markUnseen(listFilms);
         }
     }
 }
\ No newline at end of file
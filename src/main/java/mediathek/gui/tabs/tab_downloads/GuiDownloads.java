@@ -769,6 +769,15 @@ public class GuiDownloads extends AGuiTabPanel {
         }
     }
 
+    /**
+     * Sizes of new downloads are determined in the background, show them when they arrive.
+     */
+    @Handler
+    private void handleFileSizeProbed(FileSizeProbedEvent e) {
+        if (e.size > 0)
+            SwingUtilities.invokeLater(tabelle::repaint);
+    }
+
     @Handler
     private void handleGeoStateChangedEvent(GeoStateChangedEvent e) {
         SwingUtilities.invokeLater(() -> {
@@ -1458,7 +1467,7 @@ public class GuiDownloads extends AGuiTabPanel {
                         DialogEditAbo dialog = new DialogEditAbo(mediathekGui, datenAbo, false/*onlyOne*/);
                         dialog.setVisible(true);
                         if (dialog.successful()) {
-                            daten.getListeAbo().aenderungMelden();
+                            daten.getListeAbo().aenderungMelden(datenAbo);
                         }
                     });
                 }
@@ -0,0 +1,109 @@
+package mediathek.gui.tabs.tab_film;
+
+import mediathek.daten.FilmColumnStore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Small LRU cache of recent film tab filter results.
+ * Results are sets of {@link FilmColumnStore} indices and are only valid for the store they were computed on.
+ * A new filter state which only narrows a cached one can be evaluated on the cached matches instead of the whole list.
+ * Thread-safe.
+ */
+class FilterResultCache {
+    private static final int MAX_ENTRIES = 8;
+    private final Map<FilterState, BitSet> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FilterState, BitSet> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private FilmColumnStore store;
+
+    private void checkStore(@NotNull FilmColumnStore currentStore) {
+        if (store != currentStore) {
+            results.clear();
+            store = currentStore;
+        }
+    }
+
+    /**
+     * Get the result of exactly this filter state.
+     * The returned set must not be modified.
+     */
+    public synchronized @Nullable BitSet get(@NotNull FilmColumnStore currentStore, @NotNull FilterState state) {
+        checkStore(currentStore);
+        return results.get(state);
+    }
+
+    /**
+     * Find the smallest cached result which contains all matches of the given filter state.
+     * The returned set must not be modified.
+     */
+    public synchronized @Nullable BitSet findNarrowingBase(@NotNull FilmColumnStore currentStore, @NotNull FilterState state) {
+        checkStore(currentStore);
+        BitSet base = null;
+        for (var entry : results.entrySet()) {
+            if (state.narrows(entry.getKey())) {
+                final var candidate = entry.getValue();
+                if (base == null || candidate.cardinality() < base.cardinality())
+                    base = candidate;
+            }
+        }
+        return base;
+    }
+
+    public synchronized void put(@NotNull FilmColumnStore currentStore, @NotNull FilterState state, @NotNull BitSet result) {
+        checkStore(currentStore);
+        results.put(state, result);
+    }
+
+    /**
+     * All film tab filters which depend only on the film list itself.
+     * Seen, bookmark and abo state can change at any time and are therefore not part of it.
+     *
+     * @param senders       selected senders, empty for all
+     * @param thema         selected thema, empty for all
+     * @param required      flag bits which must be set
+     * @param excluded      flag bits which may not be set
+     * @param anyOf         flag bits of which one must be set, 0 for none
+     * @param minLength     minimum film length in seconds
+     * @param maxLength     maximum film length in seconds, {@link Long#MAX_VALUE} for unlimited
+     * @param searchText    the search text
+     * @param patternSearch true if the search text is a pattern or a list of search terms
+     * @param descriptions  true if descriptions are searched as well
+     */
+    record FilterState(@NotNull Set<String> senders, @NotNull String thema, int required, int excluded, int anyOf,
+                       long minLength, long maxLength, @NotNull String searchText, boolean patternSearch,
+                       boolean descriptions) {
+        /**
+         * Check if every film matching this state also matches the previous state.
+         */
+        public boolean narrows(@NotNull FilterState previous) {
+            if (descriptions != previous.descriptions)
+                return false;
+            if (!previous.senders.isEmpty() && (senders.isEmpty() || !previous.senders.containsAll(senders)))
+                return false;
+            if (!previous.thema.isEmpty() && !previous.thema.equalsIgnoreCase(thema))
+                return false;
+            if ((required & previous.required) != previous.required || (excluded & previous.excluded) != previous.excluded)
+                return false;
+            if (previous.anyOf != 0 && previous.anyOf != anyOf)
+                return false;
+            if (minLength < previous.minLength || maxLength > previous.maxLength)
+                return false;
+
+            if (previous.searchText.isEmpty())
+                return true;
+            if (patternSearch || previous.patternSearch)
+                return searchText.equals(previous.searchText) && patternSearch == previous.patternSearch;
+            // every text containing the longer search text also contains the shorter one
+            return searchText.contains(previous.searchText);
+        }
+    }
+}
@@ -97,7 +97,7 @@ public class GuiFilme extends AGuiTabPanel {
             new JCheckBoxMenuItem("Beschreibung anzeigen");
     private final JFXPanel fxDescriptionPanel = new JFXPanel();
     private final JFXPanel fxPsetButtonsPanel = new JFXPanel();
-    private final SeenHistoryController historyController = new SeenHistoryController();
+    private final SeenHistoryController historyController = SeenHistoryController.getInstance();
     /**
      * The JavaFx Film action popup panel.
      */
@@ -1130,16 +1130,14 @@ public class GuiFilme extends AGuiTabPanel {
         {
             if (!film.isLivestream()) {
                 JMenuItem miHistory;
-                try (var history = new SeenHistoryController()) {
-                    if (history.hasBeenSeen(film)) {
-                        miHistory = new JMenuItem("Film als ungesehen markieren");
-                        miHistory.addActionListener(unseenActionListener);
-                    } else {
-                        miHistory = new JMenuItem("Film als gesehen markieren");
-                        miHistory.addActionListener(seenActionListener);
-                    }
-                    popupMenu.add(miHistory);
+                if (historyController.hasBeenSeen(film)) {
+                    miHistory = new JMenuItem("Film als ungesehen markieren");
+                    miHistory.addActionListener(unseenActionListener);
+                } else {
+                    miHistory = new JMenuItem("Film als gesehen markieren");
+                    miHistory.addActionListener(seenActionListener);
                 }
+                popupMenu.add(miHistory);
             }
         }
 
@@ -1264,12 +1262,10 @@ public class GuiFilme extends AGuiTabPanel {
             }
 
             private void updateHistory(DatenFilm film) {
-                try (var history = new SeenHistoryController()) {
-                    if (seen) {
-                        history.markSeen(film);
-                    } else {
-                        history.markUnseen(film);
-                    }
+                if (seen) {
+                    historyController.markSeen(film);
+                } else {
+                    historyController.markUnseen(film);
                 }
             }
 
@@ -1316,7 +1312,7 @@ public class GuiFilme extends AGuiTabPanel {
                                         new DialogEditAbo(mediathekGui, datenAbo, false /*onlyOne*/);
                                 dialog.setVisible(true);
                                 if (dialog.successful()) {
-                                    daten.getListeAbo().aenderungMelden();
+                                    daten.getListeAbo().aenderungMelden(datenAbo);
                                 }
                             }
                         });
@@ -4,7 +4,10 @@ import javafx.collections.ObservableList;
 import mediathek.config.Daten;
 import mediathek.controller.history.SeenHistoryController;
 import mediathek.daten.DatenFilm;
+import mediathek.daten.DatenFilmFlags;
+import mediathek.daten.FilmColumnStore;
 import mediathek.daten.ListeFilme;
+import mediathek.gui.tabs.tab_film.searchfilters.FilmTextIndex;
 import mediathek.gui.tabs.tab_film.searchfilters.FinalStageFilterNoPattern;
 import mediathek.gui.tabs.tab_film.searchfilters.FinalStageFilterNoPatternWithDescription;
 import mediathek.gui.tabs.tab_film.searchfilters.FinalStagePatternFilter;
@@ -16,13 +19,18 @@ import mediathek.tool.models.TModelFilm;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.table.TableModel;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class GuiFilmeModelHelper {
+    /**
+     * Shared by all helper instances as a new one is created for every filter run.
+     */
+    private static final FilterResultCache resultCache = new FilterResultCache();
     private final FilmActionPanel filmActionPanel;
     private TModelFilm filmModel;
     private final ListeFilme listeFilme;
@@ -124,52 +132,23 @@ public class GuiFilmeModelHelper {
         final String filterThema = getFilterThema();
         final ObservableList<String> selectedSenders = filmActionPanel.getViewSettingsPane().senderCheckList.getCheckModel().getCheckedItems();
 
-        if (dontShowSeen)
-            historyController.prepareMemoryCache();
-
-        var stream = listeFilme.parallelStream();
-        if (!selectedSenders.isEmpty()) {
-            //ObservableList.contains() is insanely slow...this speeds up to factor 250!
-            Set<String> senderSet = new HashSet<>(selectedSenders.size());
-            senderSet.addAll(selectedSenders);
-            stream = stream.filter(f -> senderSet.contains(f.getSender()));
+        final FilmColumnStore store = listeFilme.getColumnStore();
+        final var state = createFilterState(selectedSenders, filterThema);
+        BitSet matches = resultCache.get(store, state);
+        if (matches == null) {
+            matches = computeMatches(store, state);
+            resultCache.put(store, state, matches);
         }
-        if (showNewOnly)
-            stream = stream.filter(DatenFilm::isNew);
+
+        var stream = matches.stream().parallel().mapToObj(store::getFilm);
+        //these depend on user actions and are therefore never cached
         if (showBookmarkedOnly)
             stream = stream.filter(DatenFilm::isBookmarked);
-        if (showLivestreamsOnly)
-            stream = stream.filter(DatenFilm::isLivestream);
-        if (showHqOnly)
-            stream = stream.filter(DatenFilm::isHighQuality);
-        if (dontShowTrailers)
-            stream = stream.filter(film -> !film.isTrailerTeaser());
-        if (dontShowGebaerdensprache)
-            stream = stream.filter(film -> !film.isSignLanguage());
-        if (dontShowAudioVersions)
-            stream = stream.filter(film -> !film.isAudioVersion());
         if (dontShowAbos)
             stream = stream.filter(film -> film.getAbo() == null);
-        if (showSubtitlesOnly) {
-            stream = stream.filter(this::subtitleCheck);
-        }
-        if (!filterThema.isEmpty()) {
-            stream = stream.filter(film -> film.getThema().equalsIgnoreCase(filterThema));
-        }
-        if (maxLength < FilmLengthSlider.UNLIMITED_VALUE) {
-            stream = stream.filter(this::maxLengthCheck);
-        }
         if (dontShowSeen) {
             stream = stream.filter(this::seenCheck);
         }
-        //perform min length filtering after all others may have reduced the available entries...
-        stream = stream.filter(this::minLengthCheck);
-
-        //final stage filtering...
-        final boolean searchFieldEmpty = arrIrgendwo.length == 0;
-        if (!searchFieldEmpty) {
-            stream = stream.filter(createFinalStageFilter());
-        }
 
         var list = stream.collect(Collectors.toList());
         stream.close();
@@ -179,15 +158,129 @@ public class GuiFilmeModelHelper {
         filmModel.addAll(list);
 
         list.clear();
+    }
+
+    /**
+     * Find all films matching the cacheable part of the filters.
+     * If a cached result contains all matches of the new state only its films need to be checked again.
+     *
+     * @return set of matching column store indices.
+     */
+    private BitSet computeMatches(@NotNull FilmColumnStore store, @NotNull FilterResultCache.FilterState state) {
+        //combine sender and flag bitmaps first, then scan the remaining columns,
+        //only the last checks need the film objects
+        final BitSet selection = createBitmapSelection(store, state);
+        final BitSet base = resultCache.findNarrowingBase(store, state);
+        if (base != null)
+            selection.and(base);
+
+        var stream = selection.stream().parallel()
+                .filter(createColumnFilter(store, state.thema()));
+
+        final boolean searchFieldEmpty = arrIrgendwo.length == 0;
+        if (!searchFieldEmpty) {
+            final Predicate<DatenFilm> candidateFilter = createSearchCandidateFilter();
+            final Predicate<DatenFilm> finalStageFilter = createFinalStageFilter();
+            stream = stream.filter(index -> {
+                final var film = store.getFilm(index);
+                return (candidateFilter == null || candidateFilter.test(film)) && finalStageFilter.test(film);
+            });
+        }
 
-        if (dontShowSeen)
-            historyController.emptyMemoryCache();
+        return stream.collect(BitSet::new, BitSet::set, BitSet::or);
     }
 
-    private Predicate<DatenFilm> createFinalStageFilter() {
+    private FilterResultCache.FilterState createFilterState(@NotNull ObservableList<String> selectedSenders,
+                                                            @NotNull String filterThema) {
+        int required = 0;
+        int excluded = 0;
+        if (showNewOnly)
+            required |= FilmColumnStore.flagBit(DatenFilmFlags.NEW_ENTRY);
+        if (showLivestreamsOnly)
+            required |= FilmColumnStore.flagBit(DatenFilmFlags.LIVESTREAM);
+        if (showHqOnly)
+            required |= FilmColumnStore.FLAG_HIGH_QUALITY;
+        if (dontShowTrailers)
+            excluded |= FilmColumnStore.flagBit(DatenFilmFlags.TRAILER_TEASER);
+        if (dontShowGebaerdensprache)
+            excluded |= FilmColumnStore.flagBit(DatenFilmFlags.SIGN_LANGUAGE);
+        if (dontShowAudioVersions)
+            excluded |= FilmColumnStore.flagBit(DatenFilmFlags.AUDIO_VERSION);
+        final int subtitleMask = showSubtitlesOnly
+                ? FilmColumnStore.FLAG_SUBTITLE | FilmColumnStore.flagBit(DatenFilmFlags.BURNED_IN_SUBTITLES) : 0;
+        final long maxSeconds = maxLength < FilmLengthSlider.UNLIMITED_VALUE ? maxLengthInSeconds : Long.MAX_VALUE;
+        // a search text of separators only results in an empty array, same as an empty search
+        final boolean patternSearch = isPatternSearch();
+        final String searchText;
+        if (arrIrgendwo.length == 0)
+            searchText = "";
+        else
+            searchText = patternSearch ? String.join(",", arrIrgendwo) : arrIrgendwo[0];
+
+        //ObservableList.contains() is insanely slow...copy it once
+        return new FilterResultCache.FilterState(new HashSet<>(selectedSenders), filterThema,
+                required, excluded, subtitleMask, minLengthInSeconds, maxSeconds,
+                searchText, patternSearch, searchThroughDescriptions);
+    }
+
+    /**
+     * Combine sender and flag filters with the precomputed bitmaps of the column store.
+     */
+    private BitSet createBitmapSelection(@NotNull FilmColumnStore store, @NotNull FilterResultCache.FilterState state) {
+        final boolean[] senderMatch = state.senders().isEmpty() ? null : store.matchSenders(state.senders());
+        return store.select(senderMatch, state.required(), state.excluded(), state.anyOf());
+    }
+
+    /**
+     * Combine thema and length filters into one check on the column store.
+     */
+    private IntPredicate createColumnFilter(@NotNull FilmColumnStore store, @NotNull String filterThema) {
+        final boolean[] themaMatch = filterThema.isEmpty() ? null : store.matchThemen(thema -> thema.equalsIgnoreCase(filterThema));
+        final boolean checkMaxLength = maxLength < FilmLengthSlider.UNLIMITED_VALUE;
+
+        return index -> {
+            if (themaMatch != null && !themaMatch[store.getThemaId(index)])
+                return false;
+
+            final long filmLength = store.getFilmLength(index);
+            if (checkMaxLength && filmLength >= maxLengthInSeconds)
+                return false;
+            // always show entries with length 0, which are internally "no length"
+            return filmLength == 0 || filmLength >= minLengthInSeconds;
+        };
+    }
+
+    private boolean isPatternSearch() {
+        if (arrIrgendwo.length == 0)
+            return false;
         //if arrIrgendwo contains more than one search fields fall back to "old" pattern search
+        return Filter.isPattern(arrIrgendwo[0]) || arrIrgendwo.length > 1;
+    }
+
+    /**
+     * Use the text index to narrow down the films which need the exact search text check.
+     *
+     * @return filter on the index candidates or null if the index can´t be used for this search.
+     */
+    private Predicate<DatenFilm> createSearchCandidateFilter() {
+        if (isPatternSearch())
+            return null;
+
+        final var textIndex = FilmTextIndex.getInstance();
+        final var listeFilme = Daten.getInstance().getListeFilme();
+        if (searchThroughDescriptions && !textIndex.hasDescriptions())
+            textIndex.updateAsync(listeFilme, true);
+
+        final BitSet candidates = textIndex.findCandidates(listeFilme, arrIrgendwo[0], searchThroughDescriptions);
+        if (candidates == null)
+            return null;
+
+        return film -> candidates.get(film.getFilmNr());
+    }
+
+    private Predicate<DatenFilm> createFinalStageFilter() {
         //otherwise use more optimized search
-        boolean isPattern = Filter.isPattern(arrIrgendwo[0]) || arrIrgendwo.length > 1;
+        boolean isPattern = isPatternSearch();
         Predicate<DatenFilm> filter;
         if (searchThroughDescriptions) {
             if (isPattern)
@@ -204,23 +297,8 @@ public class GuiFilmeModelHelper {
         return filter;
     }
 
-    private boolean subtitleCheck(DatenFilm film) {
-        return film.hasSubtitle() || film.hasBurnedInSubtitles();
-    }
-    private boolean maxLengthCheck(DatenFilm film) {
-        return film.getFilmLength() < maxLengthInSeconds;
-    }
-
     private boolean seenCheck(DatenFilm film) {
-        return !historyController.hasBeenSeenFromCache(film);
-    }
-
-    private boolean minLengthCheck(DatenFilm film) {
-        final long filmLength = film.getFilmLength();
-        if (filmLength == 0)
-            return true; // always show entries with length 0, which are internally "no length"
-        else
-            return filmLength >= minLengthInSeconds;
+        return !historyController.hasBeenSeen(film);
     }
 
     /**
@@ -23,7 +23,7 @@ import javax.swing.JOptionPane
 import javax.swing.JPopupMenu
 
 class JDownloadHelper {
-    private val historyController = SeenHistoryController()
+    private val historyController = SeenHistoryController.getInstance()
 
     private fun downloadUrl(url: HttpUrl, film: DatenFilm) {
         val formBody: RequestBody = FormBody.Builder()
@@ -0,0 +1,288 @@
+package mediathek.gui.tabs.tab_film.searchfilters;
+
+import com.google.common.base.Stopwatch;
+import mediathek.daten.DatenFilm;
+import mediathek.daten.FilmColumnStore;
+import mediathek.daten.ListeFilme;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted token index over thema, title and optionally description of all films.
+ * Used to narrow the candidates of a plain text search before the exact "contains" check is applied.
+ * Films are identified by {@link DatenFilm#getFilmNr()}, therefore the index stays valid for every list derived
+ * from the complete filmlist and can be updated incrementally when a diff list adds new films.
+ */
+public class FilmTextIndex {
+    private static final Logger logger = LogManager.getLogger();
+    /**
+     * Tokens occurring in more than 1/SATURATION_DIVISOR of all films are not indexed.
+     * They can´t narrow a search anyway and would only waste memory.
+     */
+    private static final int SATURATION_DIVISOR = 8;
+    private static final int MIN_SATURATION_LIMIT = 1024;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TokenIndex themaTitleIndex = new TokenIndex();
+    private final TokenIndex descriptionIndex = new TokenIndex();
+    private final BitSet indexedFilms = new BitSet();
+    private int indexedCount;
+    /**
+     * The column store of the list the index was last updated for.
+     */
+    private FilmColumnStore indexedStore;
+    private volatile boolean withDescriptions;
+    /**
+     * The background update still running, together with its arguments.
+     * Guarded by this.
+     */
+    private CompletableFuture<Void> pendingUpdate;
+    private ListeFilme pendingList;
+    private boolean pendingDescriptions;
+
+    private FilmTextIndex() {
+    }
+
+    public static FilmTextIndex getInstance() {
+        return IndexHolder.INSTANCE;
+    }
+
+    /**
+     * Split lowercased text into runs of letters and digits.
+     */
+    static void tokenize(@NotNull String text, @NotNull Consumer<String> consumer) {
+        final String lower = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.isLetterOrDigit(lower.charAt(i))) {
+                if (start < 0)
+                    start = i;
+            } else if (start >= 0) {
+                consumer.accept(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0)
+            consumer.accept(lower.substring(start));
+    }
+
+    public boolean hasDescriptions() {
+        return withDescriptions;
+    }
+
+    /**
+     * Update the index in the background.
+     * Returns the update already running if it covers this request, callers may ask on every filter run.
+     */
+    public synchronized CompletableFuture<Void> updateAsync(@NotNull ListeFilme listeFilme, boolean includeDescriptions) {
+        if (pendingUpdate != null && pendingList == listeFilme
+                && (pendingDescriptions || !includeDescriptions))
+            return pendingUpdate;
+
+        final var future = CompletableFuture.runAsync(() -> update(listeFilme, includeDescriptions));
+        pendingList = listeFilme;
+        pendingDescriptions = includeDescriptions;
+        pendingUpdate = future;
+        // don´t keep an old filmlist alive once the update is done
+        future.whenComplete((ignored, ex) -> clearPendingUpdate(future));
+        return future;
+    }
+
+    private synchronized void clearPendingUpdate(@NotNull CompletableFuture<Void> future) {
+        if (pendingUpdate == future) {
+            pendingUpdate = null;
+            pendingList = null;
+        }
+    }
+
+    /**
+     * Add all films which are not yet indexed.
+     * The index gets rebuilt completely if it contains too many removed films or descriptions are requested
+     * for the first time.
+     *
+     * @param listeFilme          the complete filmlist
+     * @param includeDescriptions also index film descriptions
+     */
+    public void update(@NotNull ListeFilme listeFilme, boolean includeDescriptions) {
+        final var store = listeFilme.getColumnStore();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        lock.writeLock().lock();
+        try {
+            if (indexedCount > 2 * store.size() || (includeDescriptions && !withDescriptions)) {
+                themaTitleIndex.clear();
+                descriptionIndex.clear();
+                indexedFilms.clear();
+                indexedCount = 0;
+            }
+            withDescriptions = withDescriptions || includeDescriptions;
+
+            final int limit = Math.max(MIN_SATURATION_LIMIT, store.size() / SATURATION_DIVISOR);
+            for (int i = 0; i < store.size(); i++) {
+                final DatenFilm film = store.getFilm(i);
+                final int filmNr = film.getFilmNr();
+                if (indexedFilms.get(filmNr))
+                    continue;
+
+                indexedFilms.set(filmNr);
+                indexedCount++;
+                tokenize(film.getThema(), token -> themaTitleIndex.add(token, filmNr, limit));
+                tokenize(film.getTitle(), token -> themaTitleIndex.add(token, filmNr, limit));
+                if (withDescriptions)
+                    tokenize(film.getDescription(), token -> descriptionIndex.add(token, filmNr, limit));
+            }
+            indexedStore = store;
+            themaTitleIndex.updateDictionary();
+            descriptionIndex.updateDictionary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        stopwatch.stop();
+        logger.trace("Film text index update took: {}", stopwatch);
+    }
+
+    /**
+     * Find all films which may contain the search text.
+     * The result is a superset, every candidate must still be verified.
+     *
+     * @param listeFilme          the complete filmlist
+     * @param searchText          lowercase plain search text, no pattern
+     * @param includeDescriptions search descriptions as well
+     * @return set of candidate film numbers or null if the index can´t narrow down this search.
+     */
+    public @Nullable BitSet findCandidates(@NotNull ListeFilme listeFilme, @NotNull String searchText, boolean includeDescriptions) {
+        if (includeDescriptions && !withDescriptions)
+            return null;
+
+        // never block the UI while the index is being updated, fall back to a full scan instead
+        if (!lock.readLock().tryLock())
+            return null;
+
+        try {
+            // films of a newly loaded list may not be indexed yet
+            if (indexedStore != listeFilme.getColumnStore())
+                return null;
+
+            final var result = themaTitleIndex.findCandidates(searchText);
+            if (result == null || !includeDescriptions)
+                return result;
+
+            final var descriptionResult = descriptionIndex.findCandidates(searchText);
+            if (descriptionResult == null)
+                return null;
+
+            result.or(descriptionResult);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class TokenIndex {
+        private final Map<String, IntList> postings = new HashMap<>();
+        private final Set<String> saturated = new HashSet<>();
+        private String[] dictionary = new String[0];
+
+        public void clear() {
+            postings.clear();
+            saturated.clear();
+            dictionary = new String[0];
+        }
+
+        public void add(@NotNull String token, int filmNr, int limit) {
+            if (saturated.contains(token))
+                return;
+
+            final var list = postings.computeIfAbsent(token, k -> new IntList());
+            // films are added one after another, so duplicate tokens of a film are always the last entry
+            if (list.size > 0 && list.last() == filmNr)
+                return;
+
+            list.add(filmNr);
+            if (list.size > limit) {
+                postings.remove(token);
+                saturated.add(token);
+            }
+        }
+
+        public void updateDictionary() {
+            final List<String> tokens = new ArrayList<>(postings.size() + saturated.size());
+            tokens.addAll(postings.keySet());
+            tokens.addAll(saturated);
+            dictionary = tokens.toArray(new String[0]);
+        }
+
+        /**
+         * Every token of the search text must be part of a token of a matching film.
+         */
+        public @Nullable BitSet findCandidates(@NotNull String searchText) {
+            final List<String> queryTokens = new ArrayList<>();
+            tokenize(searchText, queryTokens::add);
+
+            BitSet result = null;
+            for (var queryToken : queryTokens) {
+                final var candidates = findTokenCandidates(queryToken);
+                if (candidates == null)
+                    continue;
+
+                if (result == null)
+                    result = candidates;
+                else
+                    result.and(candidates);
+            }
+
+            return result;
+        }
+
+        private @Nullable BitSet findTokenCandidates(@NotNull String queryToken) {
+            final BitSet candidates = new BitSet();
+            for (var token : dictionary) {
+                if (token.contains(queryToken)) {
+                    final var list = postings.get(token);
+                    if (list == null)
+                        return null; // saturated token, no narrowing possible
+                    list.setBits(candidates);
+                }
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * Minimal growable primitive int list to keep posting lists compact.
+     */
+    private static class IntList {
+        private int[] data = new int[2];
+        private int size;
+
+        public void add(int value) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size + (size >> 1) + 1);
+            data[size++] = value;
+        }
+
+        public int last() {
+            return data[size - 1];
+        }
+
+        public void setBits(@NotNull BitSet bitSet) {
+            for (int i = 0; i < size; i++) {
+                bitSet.set(data[i]);
+            }
+        }
+    }
+
+    /**
+     * Part of the Bill Pugh Singleton implementation
+     */
+    private static class IndexHolder {
+        private static final FilmTextIndex INSTANCE = new FilmTextIndex();
+    }
+}
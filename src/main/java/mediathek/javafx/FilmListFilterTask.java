@@ -4,6 +4,8 @@ import javafx.concurrent.Task;
 import mediathek.config.Daten;
 import mediathek.filmeSuchen.ListenerFilmeLadenEvent;
 import mediathek.gui.messages.FilmListReadStopEvent;
+import mediathek.gui.tabs.tab_film.searchfilters.FilmTextIndex;
+import mediathek.tool.ApplicationConfiguration;
 import mediathek.tool.MessageBus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,6 +36,13 @@ public class FilmListFilterTask extends Task<Void> {
         updateProgress(-1, 4);
         daten.getListeBlacklist().filterListe();
 
+        // the film table is refreshed on notification, text searches need the index of the new list
+        updateMessage("Suchindex aktualisieren");
+        updateProgress(-1, 4);
+        final boolean includeDescriptions = ApplicationConfiguration.getConfiguration()
+                .getBoolean(ApplicationConfiguration.SEARCH_USE_FILM_DESCRIPTIONS, false);
+        FilmTextIndex.getInstance().update(daten.getListeFilme(), includeDescriptions);
+
         SwingUtilities.invokeLater(() -> daten.getFilmeLaden().notifyFertig(new ListenerFilmeLadenEvent("", "", 100, 100, false)));
 
         logger.trace("FilmListFilterTask finished");
@@ -3,11 +3,16 @@ package mediathek.javafx;
 import javafx.concurrent.Task;
 import mediathek.config.Daten;
 import mediathek.config.StandardLocations;
+import mediathek.filmlisten.FilmListSnapshot;
 import mediathek.filmlisten.reader.FilmListReader;
+import mediathek.filmlisten.writer.FilmListSnapshotWriter;
 import mediathek.gui.messages.FilmListReadStartEvent;
 import mediathek.tool.ApplicationConfiguration;
 import mediathek.tool.MessageBus;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class FilmListReaderTask extends Task<Void> {
     private final Daten daten;
 
@@ -24,7 +29,15 @@ public class FilmListReaderTask extends Task<Void> {
         updateMessage("Lese lokale Filmliste");
         try (FilmListReader reader = new FilmListReader()) {
             final int num_days = ApplicationConfiguration.getConfiguration().getInt(ApplicationConfiguration.FilmList.LOAD_NUM_DAYS,0);
-            reader.readFilmListe(StandardLocations.getFilmlistFilePath(), daten.getListeFilme(), num_days);
+            final String filmlistFile = StandardLocations.getFilmlistFilePath();
+            reader.readFilmListe(filmlistFile, daten.getListeFilme(), num_days);
+
+            // snapshot may only be created when the list reflects the complete JSON file
+            final Path jsonFile = Paths.get(filmlistFile);
+            if (!reader.hasSkippedEntries() && !FilmListSnapshot.isUpToDate(jsonFile)) {
+                updateMessage("Erstelle Filmlisten-Snapshot");
+                new FilmListSnapshotWriter().writeSnapshot(jsonFile, daten.getListeFilme());
+            }
         }
 
         return null;
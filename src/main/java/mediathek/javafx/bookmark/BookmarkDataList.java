@@ -121,7 +121,8 @@ public class BookmarkDataList
     
     if (add) {
       // Check if history list is known
-      try (var history = new SeenHistoryController()){
+      try {
+        final var history = SeenHistoryController.getInstance();
         for (DatenFilm movie: addlist) {
           BookmarkData bdata = new BookmarkData(movie);
           movie.setBookmark(bdata); // Link backwards
@@ -84,7 +84,7 @@ public class BookmarkWindowController implements Initializable {
   private Color ColorLive;
   private Background BackgroundSeen;
   private Background BackgroundSelected;
-  private final SeenHistoryController history = new SeenHistoryController();
+  private final SeenHistoryController history = SeenHistoryController.getInstance();
   private MenuItem playitem;
   private MenuItem loaditem;
   private MenuItem deleteitem;
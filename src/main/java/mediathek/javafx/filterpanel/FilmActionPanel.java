@@ -29,7 +29,6 @@ import org.controlsfx.control.RangeSlider;
 import org.controlsfx.control.textfield.TextFields;
 
 import javax.swing.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -394,29 +393,14 @@ public class FilmActionPanel {
         items.clear();
         items.add("");
 
-        List<String> finalList = new ArrayList<>();
         List<String> selectedSenders = viewSettingsPane.senderCheckList.getCheckModel().getCheckedItems();
 
-        final var blackList = Daten.getInstance().getListeFilmeNachBlackList();
-        if (selectedSenders.isEmpty()) {
-            final List<String> lst = blackList.getThemen("");
-            finalList.addAll(lst);
-            lst.clear();
-        } else {
-            for (String sender : selectedSenders) {
-                final List<String> lst = blackList.getThemen(sender);
-                finalList.addAll(lst);
-                lst.clear();
-            }
-        }
-
-        items.addAll(finalList.stream()
-                .distinct()
-                .sorted(GermanStringSorter.getInstance()).toList());
-        finalList.clear();
+        // already sorted and without duplicates
+        final List<String> themen = Daten.getInstance().getListeFilmeNachBlackList().getThemen(selectedSenders);
+        items.addAll(themen);
 
         themaSuggestionProvider.clearSuggestions();
-        themaSuggestionProvider.addPossibleSuggestions(items);
+        themaSuggestionProvider.addPossibleSuggestions(themen);
         themaBox.getSelectionModel().select(0);
     }
 
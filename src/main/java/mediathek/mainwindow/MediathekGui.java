@@ -990,9 +990,9 @@ public class MediathekGui extends JFrame {
         waitForCommonPoolToComplete();
 
         dialog.setStatusText(ShutdownState.PERFORM_SEEN_HISTORY_MAINTENANCE);
-        try (SeenHistoryController history = new SeenHistoryController()) {
-            history.performMaintenance();
-        }
+        final var history = SeenHistoryController.getInstance();
+        history.performMaintenance();
+        history.close();
 
         // Tabelleneinstellungen merken
         dialog.setStatusText(ShutdownState.SAVE_FILM_DATA);
@@ -60,10 +60,18 @@ public class ApplicationConfiguration {
     public static final String GEO_LOCATION = "geo.location";
     public static final String BLACKLIST_DO_NOT_SHOW_GEOBLOCKED_FILMS = "blacklist.show_geoblocked";
     public static final String DOWNLOAD_RATE_LIMIT = "download.rate.limit";
+    /**
+     * Optional per host download limits, entries are formatted as "host=limit in KB/s".
+     */
+    public static final String DOWNLOAD_RATE_LIMIT_HOST = "download.rate.limit.host";
     public static final String DOWNLOAD_SHOW_LAST_USED_PATH = "download.path.last_used.show";
     public static final String DOWNLOAD_SOUND_BEEP = "download.sound.beep";
     public static final String DOWNLOAD_SHOW_DESCRIPTION = "download.show_description";
     public static final String DOWNLOAD_MAX_SIMULTANEOUS_NUM = "download.max_simultaneous.number";
+    /**
+     * Number of parallel connections for a single direct download, 1 disables segmented downloads.
+     */
+    public static final String DOWNLOAD_SEGMENTS_NUM = "download.segments.number";
     public static final String SEARCH_USE_FILM_DESCRIPTIONS =
             "searchfield.film.search_through_description";
     public static final String FILM_SHOW_DESCRIPTION = "film.show_description";
@@ -192,6 +200,10 @@ public class ApplicationConfiguration {
         public static final String LOAD_NUM_DAYS = "filmlist.load.days";
         public static final String LOAD_LIVESTREAMS = "filmlist.load.livestreams";
         public static final String EXTEND_OLD_FILMLIST = "filmlist.extend_old_filmlist";
+        /**
+         * Post-process film entries in parallel batches while reading the filmlist.
+         */
+        public static final String PARALLEL_READER = "filmlist.load.parallel_reader";
     }
 
     public static class HttpProxy {
@@ -2,6 +2,7 @@ package mediathek.tool;
 
 import mediathek.tool.http.MVHttpClient;
 import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.apache.logging.log4j.LogManager;
@@ -17,21 +18,14 @@ public class FileSize {
 
     /**
      * Get the length of the file specified by url.
+     * Blocks until the size is known, results are cached by {@link FileSizeProbe}.
      *
      * @param url the url pointing to the file
      * @return file size in MiByte as a String.
      */
     @NotNull
     public static String getFileLengthFromUrl(@NotNull String url) {
-        String groesseStr = "";
-
-        HttpUrl okUrl = HttpUrl.parse(url);
-        if (okUrl != null) {
-            long l = getFileSizeFromUrl(okUrl);
-            groesseStr = convertSize(l);
-        }
-
-        return groesseStr;
+        return convertSize(FileSizeProbe.getInstance().getSize(url));
     }
 
     /**
@@ -79,6 +73,17 @@ public class FileSize {
      * @return size in bytes or -1.
      */
     public static long getFileSizeFromUrl(@NotNull HttpUrl url) {
+        return getFileSizeFromUrl(url, MVHttpClient.getInstance().getReducedTimeOutClient());
+    }
+
+    /**
+     * Return the size of a URL in bytes.
+     *
+     * @param url    URL as String to query.
+     * @param client the client used for the HEAD request.
+     * @return size in bytes or -1.
+     */
+    public static long getFileSizeFromUrl(@NotNull HttpUrl url, @NotNull OkHttpClient client) {
         if (!url.scheme().startsWith("http") || url.encodedPath().endsWith(".m3u8")) {
             return INVALID_SIZE;
         }
@@ -86,7 +91,7 @@ public class FileSize {
         logger.info("Requesting file size for: {}", url);
         final Request request = new Request.Builder().url(url).head().build();
         long respLength = INVALID_SIZE;
-        try (Response response = MVHttpClient.getInstance().getReducedTimeOutClient().newCall(request).execute()) {
+        try (Response response = client.newCall(request).execute()) {
             if (response.isSuccessful()) {
                 respLength = getContentLength(response);
             }
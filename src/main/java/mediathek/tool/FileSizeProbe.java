@@ -0,0 +1,209 @@
+package mediathek.tool;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import mediathek.gui.messages.FileSizeProbedEvent;
+import mediathek.tool.http.MVHttpClient;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Determines the file size of film urls with HEAD requests in the background.
+ * <p>
+ * Only a few requests run at the same time, results are cached for {@link #CACHE_TTL}.
+ * Requests the user waits for run in a separate lane and never queue behind background requests.
+ * Unknown sizes are only kept for {@link #FAILURE_TTL} and never used by the blocking {@link #getSize(String)}.
+ * Concurrent requests for the same url share one HEAD request.
+ * Every result is published as {@link FileSizeProbedEvent}.
+ */
+public class FileSizeProbe {
+    static final int MAX_PARALLEL_REQUESTS = 4;
+    static final int MAX_INTERACTIVE_REQUESTS = 2;
+    static final Duration CACHE_TTL = Duration.ofMinutes(30);
+    static final Duration FAILURE_TTL = Duration.ofMinutes(1);
+    private final Supplier<OkHttpClient> clientSupplier;
+    private final Cache<String, Long> cache;
+    /**
+     * Urls whose size could not be determined, kept shortly so they are not requested over and over.
+     */
+    private final Cache<String, Boolean> failures;
+    private final Map<String, Request> pending = new ConcurrentHashMap<>();
+    /**
+     * Background requests, e.g. for the downloads of an abo search.
+     */
+    private final ExecutorService executor;
+    /**
+     * Requests the user is waiting for.
+     */
+    private final ExecutorService interactiveExecutor;
+
+    private FileSizeProbe() {
+        this(() -> MVHttpClient.getInstance().getReducedTimeOutClient(), MAX_PARALLEL_REQUESTS, CACHE_TTL, FAILURE_TTL);
+    }
+
+    /**
+     * Mainly used for testing...
+     *
+     * @param clientSupplier   the client for the HEAD requests
+     * @param parallelRequests maximum number of simultaneous requests
+     * @param ttl              how long a result is cached
+     * @param failureTtl       how long an unknown size is cached
+     */
+    FileSizeProbe(@NotNull Supplier<OkHttpClient> clientSupplier, int parallelRequests, @NotNull Duration ttl,
+                  @NotNull Duration failureTtl) {
+        this.clientSupplier = clientSupplier;
+        cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(10_000)
+                .build();
+        failures = CacheBuilder.newBuilder()
+                .expireAfterWrite(failureTtl)
+                .maximumSize(10_000)
+                .build();
+
+        executor = createExecutor(parallelRequests, "FileSizeProbe-");
+        interactiveExecutor = createExecutor(MAX_INTERACTIVE_REQUESTS, "FileSizeProbe-Interactive-");
+    }
+
+    private static ExecutorService createExecutor(int threads, @NotNull String name) {
+        final var threadNumber = new AtomicInteger();
+        final var executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            var thread = new Thread(r, name + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static FileSizeProbe getInstance() {
+        return ProbeHolder.INSTANCE;
+    }
+
+    /**
+     * @param url the film url
+     * @return the size in bytes or -1 if it is unknown, empty if the url hasn´t been probed yet.
+     */
+    public OptionalLong getCachedSize(@NotNull String url) {
+        final Long size = cache.getIfPresent(url);
+        if (size != null)
+            return OptionalLong.of(size);
+        return failures.getIfPresent(url) != null ? OptionalLong.of(FileSize.INVALID_SIZE) : OptionalLong.empty();
+    }
+
+    /**
+     * Request the size of an url without blocking.
+     * The request waits behind the other background requests.
+     *
+     * @param url the film url
+     * @return future completed with the size in bytes or -1 if unknown.
+     */
+    public CompletableFuture<Long> probe(@NotNull String url) {
+        return probe(url, false, false);
+    }
+
+    /**
+     * Request the size of an url the user is waiting for, without blocking.
+     * The request doesn´t wait for queued background requests.
+     *
+     * @param url the film url
+     * @return future completed with the size in bytes or -1 if unknown.
+     */
+    public CompletableFuture<Long> probeInteractive(@NotNull String url) {
+        return probe(url, true, false);
+    }
+
+    /**
+     * @param interactive run in the interactive lane
+     * @param retryFailed request the size again even if the last request failed a short time ago
+     */
+    private CompletableFuture<Long> probe(@NotNull String url, boolean interactive, boolean retryFailed) {
+        final Long cached = cache.getIfPresent(url);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+        if (!retryFailed && failures.getIfPresent(url) != null)
+            return CompletableFuture.completedFuture((long) FileSize.INVALID_SIZE);
+
+        final var request = new Request();
+        final var running = pending.putIfAbsent(url, request);
+        if (running == null) {
+            execute(interactive ? interactiveExecutor : executor, url, request);
+            return request.future;
+        }
+
+        // a background request may still be queued, whichever lane gets to it first does the request
+        if (interactive && !running.started.get())
+            execute(interactiveExecutor, url, running);
+        return running.future;
+    }
+
+    private void execute(@NotNull ExecutorService lane, @NotNull String url, @NotNull Request request) {
+        try {
+            lane.execute(() -> run(url, request));
+        } catch (RejectedExecutionException e) {
+            if (request.started.compareAndSet(false, true)) {
+                pending.remove(url, request);
+                request.future.complete((long) FileSize.INVALID_SIZE);
+            }
+        }
+    }
+
+    private void run(@NotNull String url, @NotNull Request request) {
+        if (!request.started.compareAndSet(false, true))
+            return;
+
+        long size = FileSize.INVALID_SIZE;
+        try {
+            final HttpUrl okUrl = HttpUrl.parse(url);
+            if (okUrl != null)
+                size = FileSize.getFileSizeFromUrl(okUrl, clientSupplier.get());
+        } finally {
+            // store first so there is no gap where neither cache nor pending know the url
+            if (size == FileSize.INVALID_SIZE)
+                failures.put(url, Boolean.TRUE);
+            else {
+                cache.put(url, size);
+                failures.invalidate(url);
+            }
+            pending.remove(url, request);
+            request.future.complete(size);
+        }
+        MessageBus.getMessageBus().publishAsync(new FileSizeProbedEvent(url, size));
+    }
+
+    /**
+     * Get the size of an url, waits for the HEAD request if the size is not cached.
+     * Runs in the interactive lane, urls whose size was unknown before are requested again.
+     *
+     * @param url the film url
+     * @return the size in bytes or -1 if unknown.
+     */
+    public long getSize(@NotNull String url) {
+        return probe(url, true, true).join();
+    }
+
+    /**
+     * A HEAD request which may be queued in both lanes, only the first one to run it does the request.
+     */
+    private static final class Request {
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+    }
+
+    /**
+     * Part of the Bill Pugh Singleton implementation
+     */
+    private static class ProbeHolder {
+        private static final FileSizeProbe INSTANCE = new FileSizeProbe();
+    }
+}
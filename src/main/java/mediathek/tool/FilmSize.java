@@ -31,6 +31,15 @@ public class FilmSize implements Comparable<FilmSize> {
         }
     }
 
+    /**
+     * Get the file size.
+     *
+     * @return size in MByte
+     */
+    public int getSize() {
+        return size;
+    }
+
     @Override
     public String toString() {
         return (size == 0) ? "" : Long.toString(size);
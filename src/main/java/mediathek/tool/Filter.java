@@ -19,6 +19,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class Filter {
+    /**
+     * Flags used for all regexp search patterns.
+     */
+    public static final int PATTERN_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL;
     /**
      * The cache for already compiled RegExp.
      * Entries will be removed if the haven´t been accessed for more than 5 minutes.
@@ -216,6 +220,18 @@ public class Filter {
         return false;
     }
 
+    /**
+     * Normalize a string so that two strings are equal exactly if {@link String#equalsIgnoreCase(String)} is true.
+     * Used as hash key for case insensitive lookups.
+     */
+    public static String foldCase(@NotNull String str) {
+        final char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
     public static boolean isPattern(@NotNull final String textSuchen) {
         return textSuchen.startsWith("#:");
     }
@@ -256,8 +272,7 @@ public class Filter {
         if (isPattern(regExpStr)) {
             try {
                 final String regexPattern = regExpStr.substring(2);
-                p = Pattern.compile(regexPattern,
-                        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+                p = Pattern.compile(regexPattern, PATTERN_FLAGS);
             } catch (IllegalArgumentException ex) {
                 p = null;
             }
@@ -306,8 +321,7 @@ public class Filter {
             logger.trace("COMPILING PATTERN: " + pattern);
             final String regexPattern = pattern.substring(2);
 
-            return Pattern.compile(regexPattern,
-                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+            return Pattern.compile(regexPattern, PATTERN_FLAGS);
         }
     }
 }
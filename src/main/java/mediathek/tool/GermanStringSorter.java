@@ -2,14 +2,22 @@ package mediathek.tool;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GermanStringSorter implements Comparator<String> {
 
     private static final Collator collator = Collator.getInstance(Locale.GERMANY);
     private static GermanStringSorter instance;
+    /**
+     * Collation keys of frequently repeated values like sender and thema.
+     * Equal strings share one entry, see {@link #clearKeyCache()}.
+     */
+    private final Map<String, CollationKey> keyCache = new ConcurrentHashMap<>();
 
     private GermanStringSorter() {
         super();
@@ -28,4 +36,38 @@ public class GermanStringSorter implements Comparator<String> {
     public int compare(@NotNull String o1, @NotNull String o2) {
         return collator.compare(o1, o2);
     }
+
+    /**
+     * Get the cached collation key of a string.
+     * Comparing keys gives the same order as {@link #compare(String, String)} but doesn´t use the synchronized
+     * collator, sorts may therefore run in parallel.
+     * Only use it for values from a limited set like sender and thema, keys are cached until
+     * {@link #clearKeyCache()} is called.
+     *
+     * @param s the string
+     * @return the collation key.
+     */
+    public CollationKey getCachedKey(@NotNull String s) {
+        final var key = keyCache.get(s);
+        return key != null ? key : keyCache.computeIfAbsent(s, collator::getCollationKey);
+    }
+
+    /**
+     * Remove all cached keys.
+     * Called when a new film list was loaded, keys of its values are created again on demand.
+     */
+    public void clearKeyCache() {
+        keyCache.clear();
+    }
+
+    /**
+     * Compare two strings by their cached collation keys.
+     *
+     * @see #getCachedKey(String)
+     */
+    public int compareCached(@NotNull String o1, @NotNull String o2) {
+        if (o1.equals(o2))
+            return 0;
+        return getCachedKey(o1).compareTo(getCachedKey(o2));
+    }
 }
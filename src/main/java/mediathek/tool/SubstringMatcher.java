@@ -0,0 +1,125 @@
+package mediathek.tool;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton which finds all of many search tokens in a text with a single pass.
+ * Immutable after construction and therefore thread-safe.
+ */
+public final class SubstringMatcher {
+    private static final int[] NO_OUTPUT = new int[0];
+    private final Node root = new Node();
+
+    /**
+     * @param tokens the search tokens, a token is identified by its list index. Must not be empty strings.
+     */
+    public SubstringMatcher(@NotNull List<String> tokens) {
+        for (int id = 0; id < tokens.size(); id++) {
+            Node node = root;
+            for (char c : tokens.get(id).toCharArray()) {
+                node = node.getOrCreateChild(c);
+            }
+            node.outputs = append(node.outputs, id);
+        }
+        buildFailureLinks();
+    }
+
+    private static int[] append(int[] array, int value) {
+        final int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private void buildFailureLinks() {
+        final ArrayDeque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            for (int i = 0; i < node.keys.length; i++) {
+                final char c = node.keys[i];
+                final Node child = node.children[i];
+
+                Node fail = node.fail;
+                while (fail != root && fail.getChild(c) == null) {
+                    fail = fail.fail;
+                }
+                final Node target = fail.getChild(c);
+                child.fail = target != null ? target : root;
+                // a node also matches everything its failure node matches
+                if (child.fail.outputs.length > 0) {
+                    final int[] merged = Arrays.copyOf(child.outputs, child.outputs.length + child.fail.outputs.length);
+                    System.arraycopy(child.fail.outputs, 0, merged, child.outputs.length, child.fail.outputs.length);
+                    child.outputs = merged;
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Find all tokens contained in the text.
+     *
+     * @param text the text to search
+     * @return set of the ids of all contained tokens.
+     */
+    public BitSet find(@NotNull String text) {
+        final BitSet result = new BitSet();
+        Node node = root;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            Node next = node.getChild(c);
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.getChild(c);
+            }
+            node = next != null ? next : root;
+
+            for (int id : node.outputs) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Node fail;
+        private int[] outputs = NO_OUTPUT;
+
+        Node getChild(char c) {
+            final int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        Node getOrCreateChild(char c) {
+            int idx = Arrays.binarySearch(keys, c);
+            if (idx >= 0)
+                return children[idx];
+
+            // keep keys sorted for binary search
+            idx = -idx - 1;
+            final Node child = new Node();
+            final char[] newKeys = new char[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, idx);
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            newKeys[idx] = c;
+            newChildren[idx] = child;
+            System.arraycopy(keys, idx, newKeys, idx + 1, keys.length - idx);
+            System.arraycopy(children, idx, newChildren, idx + 1, children.length - idx);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
@@ -2,9 +2,7 @@ package mediathek.tool.cellrenderer;
 
 import jiconfont.icons.font_awesome.FontAwesome;
 import jiconfont.swing.IconFontSwing;
-import mediathek.config.Daten;
 import mediathek.config.MVColor;
-import mediathek.controller.history.SeenHistoryController;
 import mediathek.controller.starter.Start;
 import mediathek.daten.DatenDownload;
 import mediathek.daten.DatenFilm;
@@ -20,7 +18,7 @@ public class CellRendererFilme extends CellRendererBaseWithStart {
     private static final Logger logger = LogManager.getLogger(CellRendererFilme.class);
     private final Icon selectedStopIcon;
     private final Icon normalStopIcon;
-    private final SeenHistoryController history = new SeenHistoryController();
+    private final FilmStatusCache statusCache = FilmStatusCache.getInstance();
     private final Icon selectedDownloadIcon;
     private final Icon normalDownloadIcon;
     private final Icon selectedPlayIcon;
@@ -74,7 +72,7 @@ public class CellRendererFilme extends CellRendererBaseWithStart {
             final int rowModelIndex = table.convertRowIndexToModel(row);
             final int columnModelIndex = table.convertColumnIndexToModel(column);
             final DatenFilm datenFilm = (DatenFilm) table.getModel().getValueAt(rowModelIndex, DatenFilm.FILM_REF);
-            final DatenDownload datenDownload = Daten.getInstance().getListeDownloadsButton().getDownloadUrlFilm(datenFilm.getUrlNormalQuality());
+            final DatenDownload datenDownload = statusCache.getButtonDownload(datenFilm);
             final boolean isBookMarked =  datenFilm.isBookmarked();
             final var mvTable = (MVTable)table;
 
@@ -148,7 +146,7 @@ public class CellRendererFilme extends CellRendererBaseWithStart {
     private void applyColorSettings(Component c, @NotNull DatenFilm datenFilm, DatenDownload datenDownload, boolean isSelected, boolean isBookMarked) {
         // gestarteter Film
         final boolean start = (datenDownload != null) && (datenDownload.start != null);
-        final boolean hasBeenSeen = history.hasBeenSeen(datenFilm);
+        final boolean hasBeenSeen = statusCache.hasBeenSeen(datenFilm);
 
         if (start) {
             //film is started for download
@@ -0,0 +1,77 @@
+package mediathek.tool.cellrenderer;
+
+import mediathek.config.Daten;
+import mediathek.controller.history.SeenHistoryController;
+import mediathek.daten.DatenDownload;
+import mediathek.daten.DatenFilm;
+import mediathek.gui.messages.ButtonStartEvent;
+import mediathek.gui.messages.DownloadListChangedEvent;
+import mediathek.gui.messages.StartEvent;
+import mediathek.tool.MessageBus;
+import net.engio.mbassy.listener.Handler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the seen and download state of films for the table renderer.
+ * Painting a cell must not query the database or scan the download list, therefore the download state is
+ * loaded once and refreshed when the corresponding events are published.
+ * The seen state comes from the resident index of the {@link SeenHistoryController}.
+ */
+public class FilmStatusCache {
+    private final SeenHistoryController historyController = SeenHistoryController.getInstance();
+    private volatile Map<String, DatenDownload> buttonDownloads;
+
+    private FilmStatusCache() {
+        reloadButtonDownloads();
+
+        MessageBus.getMessageBus().subscribe(this);
+    }
+
+    public static FilmStatusCache getInstance() {
+        return CacheHolder.INSTANCE;
+    }
+
+    public boolean hasBeenSeen(@NotNull DatenFilm film) {
+        return historyController.hasBeenSeen(film);
+    }
+
+    /**
+     * Get the download started by the play button for this film.
+     *
+     * @return the download or null if the film was not started.
+     */
+    public DatenDownload getButtonDownload(@NotNull DatenFilm film) {
+        return buttonDownloads.get(film.getUrlNormalQuality());
+    }
+
+    private void reloadButtonDownloads() {
+        buttonDownloads = Daten.getInstance().getListeDownloadsButton().getDownloadsByFilmUrl();
+    }
+
+    /**
+     * Higher priority than the table handlers so the cache is current before the table repaints.
+     */
+    @Handler(priority = 10)
+    private void handleStartEvent(StartEvent e) {
+        reloadButtonDownloads();
+    }
+
+    @Handler(priority = 10)
+    private void handleButtonStartEvent(ButtonStartEvent e) {
+        reloadButtonDownloads();
+    }
+
+    @Handler(priority = 10)
+    private void handleDownloadListChangedEvent(DownloadListChangedEvent e) {
+        reloadButtonDownloads();
+    }
+
+    /**
+     * Part of the Bill Pugh Singleton implementation
+     */
+    private static class CacheHolder {
+        private static final FilmStatusCache INSTANCE = new FilmStatusCache();
+    }
+}
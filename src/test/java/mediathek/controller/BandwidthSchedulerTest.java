@@ -0,0 +1,106 @@
+package mediathek.controller;
+
+import mediathek.gui.messages.DownloadRateLimitChangedEvent;
+import mediathek.tool.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BandwidthSchedulerTest {
+    private static final int CHUNK = (int) (10 * FileUtils.ONE_KB);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * Acquire bandwidth for the given number of chunks.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    private static long transfer(BandwidthScheduler.Lease lease, int chunks, long start) throws InterruptedIOException {
+        for (int i = 0; i < chunks; i++) {
+            lease.acquire(CHUNK);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrent_leases_share_the_global_rate() throws Exception {
+        // 200 KB at 200 KB/s, the first 100 ms may be a burst
+        final var scheduler = new BandwidthScheduler(200);
+        final var first = scheduler.register("example.org");
+        final var second = scheduler.register("example.com");
+
+        final long start = System.nanoTime();
+        final Future<Long> firstMs = executor.submit(() -> transfer(first, 10, start));
+        final Future<Long> secondMs = executor.submit(() -> transfer(second, 10, start));
+
+        assertThat(scheduler.getActiveDownloads()).isEqualTo(2);
+        assertThat(firstMs.get(5, TimeUnit.SECONDS)).isBetween(750L, 1400L);
+        assertThat(secondMs.get(5, TimeUnit.SECONDS)).isBetween(750L, 1400L);
+        // equal shares, none of them finishes at half time
+        assertThat(Math.abs(firstMs.get() - secondMs.get())).isLessThan(300L);
+    }
+
+    @Test
+    void closed_lease_hands_its_share_to_the_others() throws Exception {
+        final var scheduler = new BandwidthScheduler(200);
+        final var shortLease = scheduler.register("example.org");
+        final var longLease = scheduler.register("example.org");
+
+        final long start = System.nanoTime();
+        final Future<Long> shortMs = executor.submit(() -> {
+            try (shortLease) {
+                return transfer(shortLease, 4, start);
+            }
+        });
+        final Future<Long> longMs = executor.submit(() -> transfer(longLease, 16, start));
+
+        shortMs.get(5, TimeUnit.SECONDS);
+        assertThat(scheduler.getActiveDownloads()).isEqualTo(1);
+        // 200 KB in total, keeping only half of the rate after the short lease would need about 1.6 s
+        assertThat(longMs.get(5, TimeUnit.SECONDS)).isBetween(750L, 1300L);
+    }
+
+    @Test
+    void rate_change_wakes_waiting_leases() throws Exception {
+        final var scheduler = new BandwidthScheduler(10);
+        final var lease = scheduler.register(null);
+
+        final long start = System.nanoTime();
+        // about 6 s at the old rate
+        final Future<Long> elapsedMs = executor.submit(() -> transfer(lease, 6, start));
+        Thread.sleep(300);
+
+        final var evt = new DownloadRateLimitChangedEvent();
+        evt.newLimit = 10_000;
+        scheduler.handleRateLimitChanged(evt);
+
+        assertThat(elapsedMs.get(5, TimeUnit.SECONDS)).isLessThan(1500L);
+    }
+
+    @Test
+    void host_limit_applies_below_the_global_limit() throws Exception {
+        final var scheduler = new BandwidthScheduler(1000);
+        scheduler.setHostLimit("example.org", 100);
+        final var otherHost = scheduler.register("example.com");
+        final var cappedHost = scheduler.register("EXAMPLE.org");
+
+        long start = System.nanoTime();
+        assertThat(transfer(otherHost, 5, start)).isLessThan(250L);
+
+        // 50 KB at 100 KB/s, the first 100 ms may be a burst
+        start = System.nanoTime();
+        assertThat(transfer(cappedHost, 5, start)).isBetween(300L, 800L);
+    }
+}
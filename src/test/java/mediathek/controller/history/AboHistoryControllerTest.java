@@ -0,0 +1,92 @@
+package mediathek.controller.history;
+
+import mediathek.tool.sql.SqlDatabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AboHistoryControllerTest {
+    private static final String URL_1 = "https://pmdonlinekika-a.akamaihd.net/mp4dyn/4/FCMS-4247b13b-883c-4026-b228-a0ecee90a2db-31e0be270130_42.mp4";
+    private static final String URL_2 = "https://rbbmediapmdp-a.akamaihd.net/content/c5/23/c523dcb6-89e4-4faf-a32e-615dab9c8906/c523dcb6-89e4-4faf-a32e-615dab9c8906_hd-1800k.mp4";
+    @TempDir
+    Path tempDir;
+    private Path textFilePath;
+    private HistoryDatabaseWriter database;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        textFilePath = tempDir.resolve("downloadAbos.txt");
+        Files.writeString(textFilePath, """
+                02.11.2020 |#| Die Erben der Nacht       |#| 1. Der Funke erwacht                      |###|  %s
+                02.11.2020 |#| rbb SPORT                 |#| Der rbb macht Fitness: Übungen an der C   |###|  %s
+                02.11.2020 |#| rbb SPORT                 |#| Der rbb macht Fitness: Übungen an der C   |###|  %s
+                02.11.2020 |#| Alt                       |#| RTMP                                      |###|  rtmp://example.org/film
+                """.formatted(URL_1, URL_2, URL_2));
+
+        final var dataSource = new SQLiteDataSource(SqlDatabaseConfig.getConfig());
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("history.db").toAbsolutePath());
+        database = new HistoryDatabaseWriter(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void migrates_text_file_once() {
+        final var controller = new AboHistoryController(textFilePath, database, Files::deleteIfExists);
+
+        assertThat(Files.exists(textFilePath)).isFalse();
+        assertThat(controller.urlExists(URL_1)).isTrue();
+        assertThat(controller.urlExists(URL_2)).isTrue();
+        assertThat(controller.getDataList()).hasSize(2);
+        assertThat(controller.getDataList().get(0).getDatum()).isEqualTo("02.11.2020");
+    }
+
+    @Test
+    void changes_are_persisted() {
+        var controller = new AboHistoryController(textFilePath, database, Files::deleteIfExists);
+        controller.removeUrl(URL_1);
+        controller.add(new MVUsedUrl("Thema", "Titel", "https://example.org/neu.mp4"));
+
+        controller = new AboHistoryController(textFilePath, database, Files::deleteIfExists);
+        assertThat(controller.urlExists(URL_1)).isFalse();
+        assertThat(controller.urlExists(URL_2)).isTrue();
+        assertThat(controller.urlExists("https://example.org/neu.mp4")).isTrue();
+        assertThat(controller.getDataList()).hasSize(2);
+    }
+
+    @Test
+    void removed_url_leaves_display_list() {
+        final var controller = new AboHistoryController(textFilePath, database, Files::deleteIfExists);
+        controller.removeUrl(URL_1);
+        controller.removeUrl("https://example.org/unbekannt.mp4");
+
+        assertThat(controller.urlExists(URL_1)).isFalse();
+        assertThat(controller.getDataList()).extracting(MVUsedUrl::getUrl).containsExactly(URL_2);
+    }
+
+    @Test
+    void text_file_is_used_without_database() {
+        final var brokenDataSource = new SQLiteDataSource(SqlDatabaseConfig.getConfig());
+        brokenDataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("missing").resolve("history.db").toAbsolutePath());
+        final var brokenDatabase = new HistoryDatabaseWriter(brokenDataSource);
+
+        final var controller = new AboHistoryController(textFilePath, brokenDatabase, Files::deleteIfExists);
+        brokenDatabase.close();
+
+        assertThat(Files.exists(textFilePath)).isTrue();
+        assertThat(controller.urlExists(URL_1)).isTrue();
+        assertThat(controller.urlExists(URL_2)).isTrue();
+        assertThat(controller.getDataList()).hasSize(2);
+    }
+}
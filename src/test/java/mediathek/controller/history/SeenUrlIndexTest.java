@@ -0,0 +1,50 @@
+package mediathek.controller.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeenUrlIndexTest {
+    @Test
+    void add_and_remove_single_url() {
+        final var index = new SeenUrlIndex();
+        final var url = "https://example.org/film.mp4";
+
+        assertThat(index.contains(url)).isFalse();
+        index.add(url);
+        index.add(url);
+        assertThat(index.contains(url)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+
+        index.remove(url);
+        assertThat(index.contains(url)).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void matches_reference_set_after_random_changes() {
+        final var index = new SeenUrlIndex();
+        final var reference = new HashSet<String>();
+        final var random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            final var url = "https://example.org/" + random.nextInt(10_000) + ".mp4";
+            if (random.nextInt(3) > 0) {
+                index.add(url);
+                reference.add(url);
+            } else {
+                index.remove(url);
+                reference.remove(url);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(reference.size());
+        for (int i = 0; i < 10_000; i++) {
+            final var url = "https://example.org/" + i + ".mp4";
+            assertThat(index.contains(url)).isEqualTo(reference.contains(url));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package mediathek.controller.starter;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownloadTransferTest {
+    private static final Logger logger = LogManager.getLogger();
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Delivers the data in small pieces like a slow network connection.
+     */
+    private static InputStream chunkedStream(byte[] data, int chunkSize) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunkSize));
+            }
+        };
+    }
+
+    private static byte[] createData(int size) {
+        final byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void copies_all_bytes_and_reports_progress() throws IOException {
+        final byte[] data = createData(3 * DownloadTransfer.MAX_BUFFER_SIZE + 123);
+        final var out = new ByteArrayOutputStream();
+        final var reported = new AtomicLong();
+
+        final var transfer = new DownloadTransfer(() -> false, reported::addAndGet);
+        final long total = transfer.transfer(chunkedStream(data, 7000), out);
+
+        assertThat(total).isEqualTo(data.length);
+        assertThat(reported.get()).isEqualTo(data.length);
+        assertThat(out.toByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    void stops_when_requested() throws IOException {
+        final byte[] data = createData(10 * DownloadTransfer.MIN_BUFFER_SIZE);
+        final var out = new ByteArrayOutputStream();
+        final var reported = new AtomicLong();
+
+        final var transfer = new DownloadTransfer(() -> out.size() > 0, reported::addAndGet);
+        final long total = transfer.transfer(chunkedStream(data, 1000), out);
+
+        assertThat(total).isEqualTo(1000);
+        assertThat(reported.get()).isEqualTo(total);
+    }
+
+    /**
+     * Compare the old 1 KB copy loop with {@link DownloadTransfer} against a local HTTP server.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_against_local_server() throws Exception {
+        final int size = 512 * 1024 * 1024;
+        final byte[] block = createData(1024 * 1024);
+
+        final var server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/film.mp4", exchange -> {
+            exchange.sendResponseHeaders(200, size);
+            try (var os = exchange.getResponseBody()) {
+                for (int written = 0; written < size; written += block.length) {
+                    os.write(block);
+                }
+            }
+        });
+        server.start();
+
+        try {
+            final var client = new OkHttpClient();
+            final var request = new Request.Builder()
+                    .url("http://127.0.0.1:" + server.getAddress().getPort() + "/film.mp4")
+                    .build();
+            final var threadBean = ManagementFactory.getThreadMXBean();
+            final File file = tempDir.resolve("film.mp4").toFile();
+
+            for (var mode : new String[]{"1 KB loop", "DownloadTransfer"}) {
+                final long cpuStart = threadBean.getCurrentThreadCpuTime();
+                final long wallStart = System.nanoTime();
+                try (Response response = client.newCall(request).execute();
+                     var in = response.body().byteStream()) {
+                    if (mode.equals("DownloadTransfer")) {
+                        try (var out = new FileOutputStream(file)) {
+                            new DownloadTransfer(() -> false, bytes -> {
+                            }).transfer(in, out);
+                        }
+                    } else {
+                        try (BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+                            final byte[] buffer = new byte[1024];
+                            int len;
+                            while ((len = in.read(buffer)) != -1) {
+                                sink.write(buffer, 0, len);
+                            }
+                        }
+                    }
+                }
+                final double seconds = (System.nanoTime() - wallStart) / 1e9;
+                final double cpuMsPerGb = (threadBean.getCurrentThreadCpuTime() - cpuStart) / 1e6 * (1 << 30) / size;
+
+                assertThat(Files.size(file.toPath())).isEqualTo(size);
+                logger.info("{}: {} MB/s, {} ms CPU per GB", mode, String.format("%.1f", size / seconds / (1 << 20)),
+                        Math.round(cpuMsPerGb));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package mediathek.controller.starter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mediathek.controller.MVBandwidthCountingInputStream;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentedHttpDownloadTest {
+    private static final int FILE_SIZE = (int) (3 * SegmentedHttpDownload.MIN_SEGMENT_SIZE) + 4321;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final byte[] DATA = createData();
+    private final OkHttpClient client = new OkHttpClient();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    @TempDir
+    Path tempDir;
+    private HttpServer server;
+    private File file;
+    private Start start;
+
+    private static byte[] createData() {
+        final byte[] data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static void send(HttpExchange exchange, int code, int from, int to) throws IOException {
+        exchange.sendResponseHeaders(code, to - from);
+        try (var os = exchange.getResponseBody()) {
+            os.write(DATA, from, to - from);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/film.mp4", exchange -> {
+            final var matcher = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+            if (matcher.matches()) {
+                rangeRequests.incrementAndGet();
+                final int from = Integer.parseInt(matcher.group(1));
+                final int to = Integer.parseInt(matcher.group(2)) + 1;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + from + '-' + (to - 1) + '/' + FILE_SIZE);
+                send(exchange, 206, from, to);
+            } else {
+                send(exchange, 200, 0, FILE_SIZE);
+            }
+        });
+        // announces ranges but always sends the complete file
+        server.createContext("/ignores-ranges.mp4", exchange -> send(exchange, 200, 0, FILE_SIZE));
+        server.start();
+
+        file = tempDir.resolve("film.mp4").toFile();
+        start = new Start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private SegmentedHttpDownload createDownload(String path) {
+        final var url = HttpUrl.get("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        return new SegmentedHttpDownload(client, url, "test", file, FILE_SIZE, start,
+                new MVBandwidthCountingInputStream(InputStream.nullInputStream()));
+    }
+
+    private static Path stateFile(File file) {
+        return file.toPath().resolveSibling(file.getName() + ".segments");
+    }
+
+    @Test
+    void segments_cover_the_file_without_gaps() {
+        final var segments = createDownload("/film.mp4").createSegments(4);
+
+        assertThat(segments).hasSize(3);
+        assertThat(segments.get(0).getBegin()).isZero();
+        for (int i = 1; i < segments.size(); i++) {
+            assertThat(segments.get(i).getBegin()).isEqualTo(segments.get(i - 1).getEnd());
+        }
+        assertThat(segments.get(segments.size() - 1).getEnd()).isEqualTo(FILE_SIZE);
+        assertThat(segments).allSatisfy(s -> assertThat(s.getPosition()).isEqualTo(s.getBegin()));
+    }
+
+    @Test
+    void small_file_is_one_segment() {
+        assertThat(createDownload("/film.mp4").createSegments(1)).hasSize(1);
+    }
+
+    @Test
+    void state_round_trip() throws IOException {
+        final var download = createDownload("/film.mp4");
+        Files.write(file.toPath(), new byte[FILE_SIZE]);
+        final var segments = List.of(
+                new SegmentedHttpDownload.Segment(0, 1000, 500),
+                new SegmentedHttpDownload.Segment(1000, FILE_SIZE, FILE_SIZE));
+
+        download.saveState(segments);
+        final var loaded = download.loadState();
+
+        assertThat(loaded).hasSize(2);
+        for (int i = 0; i < segments.size(); i++) {
+            assertThat(loaded.get(i).getBegin()).isEqualTo(segments.get(i).getBegin());
+            assertThat(loaded.get(i).getEnd()).isEqualTo(segments.get(i).getEnd());
+            assertThat(loaded.get(i).getPosition()).isEqualTo(segments.get(i).getPosition());
+        }
+    }
+
+    @Test
+    void corrupt_state_is_rejected() throws IOException {
+        final var download = createDownload("/film.mp4");
+        Files.write(file.toPath(), new byte[FILE_SIZE]);
+
+        for (var state : List.of("", "abc\n", FILE_SIZE + "\n0 1000\n", FILE_SIZE + "\n0 1000 2000\n",
+                FILE_SIZE + "\n0 " + (FILE_SIZE + 1) + " 0\n", (FILE_SIZE - 1) + "\n0 1000 0\n", FILE_SIZE + "\n")) {
+            Files.writeString(stateFile(file), state);
+            assertThat(download.loadState()).as(state).isNull();
+        }
+    }
+
+    @Test
+    void state_of_a_file_with_other_size_is_rejected() throws IOException {
+        final var download = createDownload("/film.mp4");
+        Files.write(file.toPath(), new byte[FILE_SIZE - 1]);
+
+        download.saveState(List.of(new SegmentedHttpDownload.Segment(0, FILE_SIZE, 0)));
+
+        assertThat(download.loadState()).isNull();
+    }
+
+    @Test
+    void loads_file_in_segments() throws IOException {
+        createDownload("/film.mp4").download(3, false, loaded -> {
+        });
+
+        assertThat(rangeRequests.get()).isEqualTo(3);
+        assertThat(Files.readAllBytes(file.toPath())).isEqualTo(DATA);
+        assertThat(SegmentedHttpDownload.hasState(file)).isFalse();
+    }
+
+    @Test
+    void resume_loads_only_missing_ranges() throws IOException {
+        final var download = createDownload("/film.mp4");
+        final int half = FILE_SIZE / 2;
+        final byte[] partial = Arrays.copyOf(DATA, FILE_SIZE);
+        Arrays.fill(partial, half, FILE_SIZE, (byte) 0);
+        Files.write(file.toPath(), partial);
+        download.saveState(List.of(
+                new SegmentedHttpDownload.Segment(0, half, half),
+                new SegmentedHttpDownload.Segment(half, FILE_SIZE, half)));
+
+        download.download(2, true, loaded -> {
+        });
+
+        assertThat(rangeRequests.get()).isEqualTo(1);
+        assertThat(Files.readAllBytes(file.toPath())).isEqualTo(DATA);
+    }
+
+    @Test
+    void server_ignoring_ranges_is_reported() {
+        final var download = createDownload("/ignores-ranges.mp4");
+
+        assertThatThrownBy(() -> download.download(3, false, loaded -> {
+        })).isInstanceOf(SegmentedHttpDownload.RangeNotSupportedException.class);
+        assertThat(SegmentedHttpDownload.hasState(file)).isFalse();
+    }
+}
@@ -0,0 +1,101 @@
+package mediathek.daten;
+
+import mediathek.daten.abo.DatenAbo;
+import mediathek.daten.blacklist.AboBlacklistFilter;
+import mediathek.daten.blacklist.BlacklistRule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AboFilmCandidatesTest {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static DatenFilm createFilm(String sender, String thema, String title, DatenAbo abo) {
+        final var film = TestFilms.createFilm(sender, thema, title);
+        film.setAbo(abo);
+        return film;
+    }
+
+    private static AboBlacklistFilter createBlacklistFilter(String blockedTitle) {
+        return new AboBlacklistFilter(List.of(new BlacklistRule("", "", blockedTitle, "")),
+                false, 0, false, false, "");
+    }
+
+    private static DatenAbo createAbo(ListeAbo listeAbo, String thema) {
+        final var abo = new DatenAbo();
+        abo.setThema(thema);
+        listeAbo.addAbo(abo);
+        return abo;
+    }
+
+    @Test
+    void only_new_films_are_checked_while_nothing_changed() {
+        final var listeAbo = new ListeAbo();
+        final var abo = createAbo(listeAbo, "Tatort");
+        final var listeFilme = new ListeFilme();
+        final var tatort = createFilm("ARD", "Tatort", "Folge 1", abo);
+        final var blocked = createFilm("ARD", "Tatort", "Hörfassung", abo);
+        listeFilme.add(tatort);
+        listeFilme.add(blocked);
+        listeFilme.add(createFilm("ZDF", "heute", "1", null));
+
+        final var candidates = new AboFilmCandidates();
+        assertThat(candidates.find(listeFilme, listeAbo, createBlacklistFilter("hörfassung"))).containsExactly(tatort);
+
+        // a film without the new flag is only found by a complete search
+        final var notNew = createFilm("ARD", "Tatort", "Folge 0", abo);
+        listeFilme.add(0, notNew);
+        final var newFilm = createFilm("ARD", "Tatort", "Folge 2", abo);
+        newFilm.setNew(true);
+        listeFilme.add(newFilm);
+        listeFilme.newFilmsMarked();
+        assertThat(candidates.find(listeFilme, listeAbo, createBlacklistFilter("hörfassung"))).containsExactly(tatort, newFilm);
+
+        // changed blacklist settings need a complete search
+        assertThat(candidates.find(listeFilme, listeAbo, createBlacklistFilter("xyz")))
+                .containsExactly(notNew, tatort, blocked, newFilm);
+    }
+
+    /**
+     * Compare a complete search with an incremental search after a film list update.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_abo_search() {
+        final var listeAbo = new ListeAbo();
+        final int numAbos = 500;
+        for (int i = 0; i < numAbos; i++) {
+            createAbo(listeAbo, "Thema " + i);
+        }
+        final var listeFilme = new ListeFilme();
+        for (int i = 0; i < 600_000; i++) {
+            final int thema = i % 20_000;
+            final var abo = thema < numAbos ? listeAbo.get(thema) : null;
+            final var film = createFilm("Sender " + i % 30, "Thema " + thema, "Film " + i, abo);
+            film.setNew(i % 1000 == 0);
+            listeFilme.add(film);
+        }
+        listeFilme.sort(null);
+        final var blacklistFilter = createBlacklistFilter("trailer,hörfassung");
+
+        for (int run = 0; run < 3; run++) {
+            final var candidates = new AboFilmCandidates();
+            long start = System.nanoTime();
+            final int found = candidates.find(listeFilme, listeAbo, blacklistFilter).size();
+            final long completeMs = (System.nanoTime() - start) / 1_000_000;
+
+            listeFilme.newFilmsMarked();
+            start = System.nanoTime();
+            candidates.find(listeFilme, listeAbo, createBlacklistFilter("trailer,hörfassung"));
+            final long incrementalMs = (System.nanoTime() - start) / 1_000_000;
+
+            logger.info("candidates: {}, complete: {} ms, incremental: {} ms", found, completeMs, incrementalMs);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package mediathek.daten;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmColumnStoreTest {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static long usedMemory() {
+        final var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Compare filtering the film objects with a stream against scanning the column store.
+     * Also logs the memory used by the films and by the store.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_filter_and_memory() {
+        final long now = System.currentTimeMillis();
+        final long memoryStart = usedMemory();
+        final var liste = TestFilms.createFilmList(600_000);
+        final long memoryFilms = usedMemory();
+        final FilmColumnStore store = liste.getColumnStore();
+        final long memoryStore = usedMemory();
+        logger.info("films: {} MB, column store: {} MB",
+                (memoryFilms - memoryStart) >> 20, (memoryStore - memoryFilms) >> 20);
+
+        final Set<String> selectedSenders = Set.of("ARD", "ZDF", "arte.de");
+        final long lowerBoundary = now - 30 * 86_400_000L;
+        final long minLength = 600;
+        final int trailerBit = FilmColumnStore.flagBit(DatenFilmFlags.TRAILER_TEASER);
+
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            final long objectCount = liste.parallelStream()
+                    .filter(film -> selectedSenders.contains(film.getSender()))
+                    .filter(film -> !film.isTrailerTeaser())
+                    .filter(film -> film.getDatumFilm().getTime() >= lowerBoundary)
+                    .filter(film -> film.getFilmLength() >= minLength)
+                    .count();
+            final long objectMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            final BitSet selection = store.select(store.matchSenders(selectedSenders), 0, trailerBit, 0);
+            final long columnCount = selection.stream().parallel()
+                    .filter(index -> store.getDatum(index) >= lowerBoundary && store.getFilmLength(index) >= minLength)
+                    .count();
+            final long columnMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(columnCount).isEqualTo(objectCount);
+            logger.info("matches: {}, object stream: {} ms, column store: {} ms", columnCount, objectMs, columnMs);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package mediathek.daten;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmFieldInternerTest {
+    private static final int NUM_FILMS = 10_000;
+
+    /**
+     * Create films the way the filmlist reader does: every field is a new String instance.
+     */
+    private static List<DatenFilm> createFilms() {
+        List<DatenFilm> films = new ArrayList<>(NUM_FILMS);
+        for (int i = 0; i < NUM_FILMS; i++) {
+            DatenFilm film = new DatenFilm();
+            film.setSender(new String("ARD"));
+            film.setThema(new String("Tagesschau " + (i % 10)));
+            film.setSendeDatum(new String("01.01.2022"));
+            film.setDatumLong("1641063600");
+            film.setSendeZeit(new String("20:00:00"));
+            film.setDauer(new String("00:15:00"));
+            film.setSize(new String("250"));
+            film.setGeo(Optional.of(new String("DE-AT-CH")));
+            film.init();
+            films.add(film);
+        }
+        return films;
+    }
+
+    /**
+     * Count the distinct objects referenced by the deduplicated fields.
+     * This is the part of the heap the interner is supposed to reduce.
+     */
+    private static int countDistinctInstances(List<DatenFilm> films) {
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DatenFilm film : films) {
+            instances.add(film.getSender());
+            instances.add(film.getThema());
+            instances.add(film.getSendeDatum());
+            instances.add(film.getSendeZeit());
+            instances.add(film.getDauer());
+            instances.add(film.getSize());
+            instances.add(film.getGeo());
+            instances.add(film.getGeo().orElseThrow());
+        }
+        return instances.size();
+    }
+
+    @Test
+    void interned_fields_share_instances() {
+        var films = createFilms();
+        films.forEach(FilmFieldInterner::intern);
+
+        var first = films.get(0);
+        var second = films.get(1);
+        assertThat(second.getSender()).isSameAs(first.getSender());
+        assertThat(second.getSendeDatum()).isSameAs(first.getSendeDatum());
+        assertThat(second.getSendeZeit()).isSameAs(first.getSendeZeit());
+        assertThat(second.getDauer()).isSameAs(first.getDauer());
+        assertThat(second.getSize()).isSameAs(first.getSize());
+        assertThat(second.getGeo()).isSameAs(first.getGeo());
+    }
+
+    @Test
+    void interning_keeps_values_and_parsed_fields() {
+        var films = createFilms();
+        films.forEach(FilmFieldInterner::intern);
+
+        var film = films.get(3);
+        assertThat(film.getThema()).isEqualTo("Tagesschau 3");
+        assertThat(film.getDauer()).isEqualTo("00:15:00");
+        assertThat(film.getDuration()).isEqualTo(900);
+        assertThat(film.getFilmLength()).isEqualTo(900L);
+        assertThat(film.getGeo()).contains("DE-AT-CH");
+    }
+
+    @Test
+    void heap_usage_of_interned_fields_is_reduced() {
+        var films = createFilms();
+        final int before = countDistinctInstances(films);
+
+        films.forEach(FilmFieldInterner::intern);
+        final int after = countDistinctInstances(films);
+
+        assertThat(before).isEqualTo(NUM_FILMS * 8);
+        // 1 sender, 10 themas, date, time, duration, size, geo optional and geo string
+        assertThat(after).isEqualTo(17);
+    }
+}
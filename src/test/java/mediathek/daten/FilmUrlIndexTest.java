@@ -0,0 +1,66 @@
+package mediathek.daten;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static mediathek.daten.TestFilms.createFilm;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmUrlIndexTest {
+    @Test
+    void sender_lookup_ignores_case() {
+        final var film = createFilm("ARD", "Tagesschau", "1");
+        final var index = new FilmUrlIndex(List.of(film));
+        final var url = film.getUrlNormalQuality().toUpperCase();
+
+        assertThat(index.getByUrlAndSender(url, "ard")).isSameAs(film);
+        assertThat(index.getByUrlAndSender(url, "ZDF")).isNull();
+        assertThat(index.getByAnyUrl("https://example.org/unknown.mp4")).isNull();
+    }
+
+    @Test
+    void url_lookup_is_case_sensitive() {
+        final var film = createFilm("ARD", "Tagesschau", "1");
+        final var other = createFilm("ARD", "Tagesschau", "2");
+        other.setUrlNormalQuality(film.getUrlNormalQuality().toUpperCase());
+        final var index = new FilmUrlIndex(List.of(film, other));
+
+        assertThat(index.getByAnyUrl(film.getUrlNormalQuality())).isSameAs(film);
+        assertThat(index.getByAnyUrl(other.getUrlNormalQuality())).isSameAs(other);
+        assertThat(index.getByAnyUrl(film.getUrlNormalQuality().toLowerCase())).isNull();
+    }
+
+    @Test
+    void first_film_in_list_order_wins() {
+        final var first = createFilm("ARD", "Tagesschau", "1");
+        final var second = createFilm("ARD", "Tagesschau", "2");
+        second.setUrlNormalQuality(first.getUrlNormalQuality().toUpperCase());
+        final var other = createFilm("ZDF", "heute", "1");
+        other.setUrlHighQuality(first.getUrlNormalQuality());
+
+        final var index = new FilmUrlIndex(List.of(first, second, other));
+
+        assertThat(index.getByAnyUrl(first.getUrlNormalQuality())).isSameAs(first);
+        assertThat(index.getByUrlAndSender(second.getUrlNormalQuality(), "ARD")).isSameAs(first);
+        // same url, but other sender
+        assertThat(index.getByUrlAndSender(first.getUrlNormalQuality(), "ZDF")).isNull();
+    }
+
+    @Test
+    void high_and_low_quality_urls_are_found() {
+        final var film = createFilm("ARD", "Tagesschau", "1");
+        film.setUrlLowQuality("https://example.org/low/film.mp4");
+        // compressed url, the prefix is taken from the normal url
+        film.setUrlHighQuality("20|hd/film.mp4");
+        final var compressed = "https://example.org/hd/film.mp4";
+        assertThat(film.getUrlFuerAufloesung(FilmResolution.Enum.HIGH_QUALITY)).isEqualTo(compressed);
+
+        final var index = new FilmUrlIndex(List.of(film));
+
+        assertThat(index.getByAnyUrl("https://example.org/low/film.mp4")).isSameAs(film);
+        assertThat(index.getByAnyUrl(compressed)).isSameAs(film);
+        // only the normal url belongs to the sender lookup
+        assertThat(index.getByUrlAndSender(compressed, "ARD")).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package mediathek.daten;
+
+import mediathek.daten.abo.DatenAbo;
+import mediathek.tool.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListeAboTest {
+    private static final String[] SENDERS = {"ARD", "ZDF", "3Sat"};
+    private static final String[] THEMEN = {"Tatort", "tatort", "Sportschau", "Abendschau", ""};
+    private static final String[] WORDS = {"krimi", "Fußball", "wetter", "Folge", "Spezial", "ab", "a"};
+    private final Random random = new Random(42);
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Random search text: empty, one or two tokens or a regexp.
+     */
+    private String createSearch() {
+        return switch (random.nextInt(6)) {
+            case 0 -> pick(WORDS);
+            case 1 -> pick(WORDS) + ',' + pick(WORDS);
+            case 2 -> "#:.*" + pick(WORDS) + ".*";
+            default -> "";
+        };
+    }
+
+    private DatenAbo createAbo() {
+        final var abo = new DatenAbo();
+        do {
+            abo.setSender(random.nextInt(3) == 0 ? pick(SENDERS) : "");
+            abo.setThema(random.nextInt(3) == 0 ? pick(THEMEN).toUpperCase() : "");
+            abo.setTitle(createSearch());
+            abo.setThemaTitel(createSearch());
+            abo.setIrgendwo(createSearch());
+        } while (abo.isInvalid());
+        return abo;
+    }
+
+    private ListeFilme createFilms() {
+        final var liste = new ListeFilme();
+        for (int i = 0; i < 2_000; i++) {
+            final var film = TestFilms.createFilm(pick(SENDERS), pick(THEMEN), pick(WORDS) + ' ' + pick(WORDS) + ' ' + i);
+            film.setDescription(pick(WORDS) + " am Abend");
+            liste.add(film);
+        }
+        return liste;
+    }
+
+    /**
+     * The abo search which was used before the abos were indexed: first matching abo in list order.
+     * The filter patterns must have been created.
+     */
+    private static DatenAbo legacyFindAbo(ListeAbo listeAbo, DatenFilm film) {
+        for (var abo : listeAbo) {
+            if (Filter.filterAufFilmPruefen(abo.getSender(), abo.getThema(), abo.getTitelFilterPattern(),
+                    abo.getThemaFilterPattern(), abo.getIrgendwoFilterPattern(), film))
+                return abo;
+        }
+        return null;
+    }
+
+    private static void assertLegacyAssignment(ListeAbo listeAbo, ListeFilme films) {
+        listeAbo.createMatcher();
+        for (var film : films) {
+            assertThat(film.getAbo()).as(film.getTitle()).isSameAs(legacyFindAbo(listeAbo, film));
+        }
+    }
+
+    @Test
+    void matcher_finds_first_abo_like_linear_search() {
+        final var listeAbo = new ListeAbo();
+        for (int i = 0; i < 200; i++) {
+            listeAbo.addAbo(createAbo());
+        }
+        final var films = createFilms();
+
+        final var matcher = listeAbo.createMatcher();
+
+        for (var film : films) {
+            assertThat(matcher.findAbo(film)).as(film.getTitle()).isSameAs(legacyFindAbo(listeAbo, film));
+        }
+    }
+
+    @Test
+    void single_abo_changes_update_like_complete_assignment() {
+        final var listeAbo = new ListeAbo();
+        for (int i = 0; i < 50; i++) {
+            listeAbo.addAbo(createAbo());
+        }
+        final var films = createFilms();
+        listeAbo.setAboFuerFilm(films, false);
+        assertLegacyAssignment(listeAbo, films);
+
+        for (int step = 0; step < 60; step++) {
+            final DatenAbo changed;
+            switch (step % 3) {
+                case 0 -> {
+                    changed = createAbo();
+                    listeAbo.addAbo(changed);
+                }
+                case 1 -> changed = listeAbo.remove(random.nextInt(listeAbo.size()));
+                default -> {
+                    changed = listeAbo.get(random.nextInt(listeAbo.size()));
+                    final var changes = createAbo();
+                    changed.setSender(changes.getSender());
+                    changed.setThema(changes.getThema());
+                    changed.setTitle(changes.getTitle());
+                    changed.setThemaTitel(changes.getThemaTitel());
+                    changed.setIrgendwo(changes.getIrgendwo());
+                }
+            }
+
+            listeAbo.updateAboFuerFilm(films, changed);
+
+            assertLegacyAssignment(listeAbo, films);
+        }
+    }
+}
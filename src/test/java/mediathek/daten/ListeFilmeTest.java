@@ -0,0 +1,36 @@
+package mediathek.daten;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static mediathek.daten.TestFilms.createFilm;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListeFilmeTest {
+    @Test
+    void diff_replaces_existing_films_and_keeps_list_sorted() {
+        final var liste = new ListeFilme();
+        liste.add(createFilm("ARD", "Tagesschau", "1"));
+        liste.add(createFilm("ARD", "Tagesschau", "2"));
+        liste.add(createFilm("ZDF", "heute", "1"));
+        liste.add(createFilm("NDR", "Markt", "1"));
+
+        final var diff = new ListeFilme();
+        // same content as an existing film, only the sender case differs
+        final var replacement = createFilm("ard", "tagesschau", "2");
+        replacement.setUrlNormalQuality(liste.get(1).getUrlNormalQuality());
+        diff.add(replacement);
+        diff.add(createFilm("MDR", "Umschau", "1"));
+        diff.add(createFilm("ARD", "Brisant", "1"));
+
+        liste.updateFromFilmList(diff);
+
+        assertThat(liste).hasSize(6);
+        assertThat(liste).contains(replacement);
+        final List<DatenFilm> sorted = new ArrayList<>(liste);
+        sorted.sort(null);
+        assertThat(liste).containsExactlyElementsOf(sorted);
+    }
+}
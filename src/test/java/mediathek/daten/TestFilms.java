@@ -0,0 +1,58 @@
+package mediathek.daten;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Film fixtures shared by the tests.
+ */
+public final class TestFilms {
+    public static final String[] SENDERS = {"ARD", "ZDF", "3Sat", "arte.de", "NDR", "WDR", "BR", "MDR", "SWR", "KiKA"};
+
+    private TestFilms() {
+    }
+
+    private static DatenFilm newFilm(String sender, String thema, String title) {
+        final var film = new DatenFilm();
+        film.setSender(sender);
+        film.setThema(thema);
+        film.setTitle(title);
+        film.setUrlNormalQuality("https://example.org/" + sender + '/' + thema + '/' + title + ".mp4");
+        film.setWebsiteLink("https://example.org/" + title);
+        return film;
+    }
+
+    /**
+     * Create an initialized film with unique url.
+     */
+    public static DatenFilm createFilm(String sender, String thema, String title) {
+        final var film = newFilm(sender, thema, title);
+        film.init();
+        return film;
+    }
+
+    /**
+     * Create a film list similar to a real one in size and content.
+     * Films are spread over the last 60 days, every 17th film is a trailer.
+     *
+     * @param size number of films
+     */
+    public static ListeFilme createFilmList(int size) {
+        final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        final var liste = new ListeFilme();
+        for (int i = 0; i < size; i++) {
+            final var film = newFilm(SENDERS[i % SENDERS.length], "Thema " + i % 20_000, "Film Nummer " + i);
+            film.setSendeDatum(String.format("%02d.%02d.2026", 1 + i % 28, 1 + i % 12));
+            film.setSendeZeit(String.format("%02d:%02d:00", i % 24, i % 60));
+            film.setDatumLong(Long.toString(now - (i % 60) * TimeUnit.DAYS.toSeconds(1)));
+            film.setDauer(String.format("%02d:%02d:%02d", i % 2, i % 60, i % 60));
+            film.setSize(Integer.toString(i % 2_000));
+            film.setDescription("Beschreibung des Films " + i + " mit etwas mehr Text, wie er in der Filmliste üblich ist.");
+            film.setUrlLowQuality("https://example.org/video/" + i + "/film_low.mp4");
+            film.setUrlHighQuality("https://example.org/video/" + i + "/film_hd.mp4");
+            film.setTrailerTeaser(i % 17 == 0);
+            film.init();
+            liste.add(film);
+        }
+        return liste;
+    }
+}
@@ -0,0 +1,217 @@
+package mediathek.filmlisten;
+
+import mediathek.daten.DatenFilm;
+import mediathek.daten.DatenFilmFlags;
+import mediathek.daten.ListeFilme;
+import mediathek.daten.TestFilms;
+import mediathek.filmlisten.reader.FilmListReader;
+import mediathek.filmlisten.writer.FilmListSnapshotWriter;
+import mediathek.filmlisten.writer.FilmListWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmListSnapshotTest {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static DatenFilm createFilm(String title) {
+        final var film = new DatenFilm();
+        film.setSender("ARD");
+        film.setThema("Tagesschau");
+        film.setTitle(title);
+        film.setSendeDatum("01.02.2026");
+        film.setSendeZeit("20:00:00");
+        film.setDauer("00:15:30");
+        film.setSize("512");
+        film.setDatumLong("1769972400");
+        film.setDescription("Nachrichten");
+        film.setUrlNormalQuality("https://example.org/video/film.mp4");
+        film.setWebsiteLink("https://example.org/sendung");
+        film.init();
+        return film;
+    }
+
+    /**
+     * Films covering all optional fields and flags.
+     */
+    private static ListeFilme createRoundTripList() {
+        final var liste = new ListeFilme();
+        liste.metaData().setDatum("01.02.2026, 20:15");
+        liste.metaData().setId("snapshot-test");
+
+        liste.add(createFilm("Normaler Film"));
+
+        final var allFlags = createFilm("Alle Flags");
+        int bits = 0;
+        for (var flag : DatenFilmFlags.values()) {
+            bits |= 1 << flag.ordinal();
+        }
+        allFlags.setFlagBits(bits);
+        liste.add(allFlags);
+
+        final var urls = createFilm("Alle URLs");
+        urls.setUrlSubtitle("https://example.org/video/film.xml");
+        urls.setUrlHighQuality("34|film_hd.mp4");
+        urls.setUrlLowQuality("https://example.org/video/film_low.mp4");
+        urls.setGeo(Optional.of("DE-AT-CH"));
+        urls.setSignLanguage(true);
+        liste.add(urls);
+
+        final var undefinedDate = new DatenFilm();
+        undefinedDate.setSender("ZDF");
+        undefinedDate.setThema("Livestream");
+        undefinedDate.setTitle("Ohne Datum");
+        undefinedDate.setUrlNormalQuality("https://example.org/live.m3u8");
+        undefinedDate.setLivestream(true);
+        undefinedDate.init();
+        liste.add(undefinedDate);
+
+        final var longDescription = createFilm("Lange Beschreibung");
+        longDescription.setDescription("Überlänge ".repeat(10_000));
+        liste.add(longDescription);
+
+        return liste;
+    }
+
+    private static ListeFilme read(Path jsonFile) {
+        final var liste = new ListeFilme();
+        try (var reader = new FilmListReader()) {
+            reader.readFilmListe(jsonFile.toString(), liste, 0);
+        }
+        return liste;
+    }
+
+    private static void assertSameFilm(DatenFilm actual, DatenFilm expected) {
+        assertThat(actual.getSender()).isEqualTo(expected.getSender());
+        assertThat(actual.getThema()).isEqualTo(expected.getThema());
+        assertThat(actual.getTitle()).isEqualTo(expected.getTitle());
+        assertThat(actual.getSendeDatum()).isEqualTo(expected.getSendeDatum());
+        assertThat(actual.getSendeZeit()).isEqualTo(expected.getSendeZeit());
+        assertThat(actual.getDauer()).isEqualTo(expected.getDauer());
+        assertThat(actual.getDuration()).isEqualTo(expected.getDuration());
+        assertThat(actual.getFilmLength()).isEqualTo(expected.getFilmLength());
+        assertThat(actual.getSize()).isEqualTo(expected.getSize());
+        assertThat(actual.getFilmSize().getSize()).isEqualTo(expected.getFilmSize().getSize());
+        assertThat(actual.getDescription()).isEqualTo(expected.getDescription());
+        assertThat(actual.getUrlNormalQuality()).isEqualTo(expected.getUrlNormalQuality());
+        assertThat(actual.getWebsiteLink()).isEqualTo(expected.getWebsiteLink());
+        assertThat(actual.getUrlSubtitle()).isEqualTo(expected.getUrlSubtitle());
+        assertThat(actual.getUrlLowQuality()).isEqualTo(expected.getUrlLowQuality());
+        assertThat(actual.getUrlHighQuality()).isEqualTo(expected.getUrlHighQuality());
+        assertThat(actual.getDatumLong()).isEqualTo(expected.getDatumLong());
+        assertThat(actual.getDatumFilm().getTime()).isEqualTo(expected.getDatumFilm().getTime());
+        assertThat(actual.getGeo()).isEqualTo(expected.getGeo());
+        assertThat(actual.getFlagBits()).isEqualTo(expected.getFlagBits());
+    }
+
+    @Test
+    void snapshot_round_trip(@TempDir Path tempDir) {
+        final Path jsonFile = tempDir.resolve("filme.json");
+        final var liste = createRoundTripList();
+        new FilmListWriter(false).writeFilmList(jsonFile.toString(), liste, null);
+        new FilmListSnapshotWriter().writeSnapshot(jsonFile, liste);
+        assertThat(FilmListSnapshot.isUpToDate(jsonFile)).isTrue();
+
+        final var read = read(jsonFile);
+
+        assertThat(read.metaData().getDatum()).isEqualTo(liste.metaData().getDatum());
+        assertThat(read.metaData().getId()).isEqualTo(liste.metaData().getId());
+        assertThat(read).hasSameSizeAs(liste);
+        for (int i = 0; i < liste.size(); i++) {
+            assertSameFilm(read.get(i), liste.get(i));
+        }
+    }
+
+    @Test
+    void long_strings_round_trip() throws Exception {
+        final var bytes = new ByteArrayOutputStream();
+        final String description = "Überlänge ".repeat(10_000);
+        try (var out = new DataOutputStream(bytes)) {
+            FilmListSnapshot.writeString(out, description);
+            FilmListSnapshot.writeString(out, "");
+        }
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertThat(FilmListSnapshot.readString(in)).isEqualTo(description);
+            assertThat(FilmListSnapshot.readString(in)).isEmpty();
+        }
+    }
+
+    @Test
+    void changed_json_file_is_read_instead_of_snapshot(@TempDir Path tempDir) throws Exception {
+        final Path jsonFile = tempDir.resolve("filme.json");
+        final var jsonListe = new ListeFilme();
+        jsonListe.add(createFilm("Aus JSON"));
+        new FilmListWriter(false).writeFilmList(jsonFile.toString(), jsonListe, null);
+        // a snapshot with other content shows which file was read
+        final var snapshotListe = new ListeFilme();
+        snapshotListe.add(createFilm("Aus Snapshot"));
+        new FilmListSnapshotWriter().writeSnapshot(jsonFile, snapshotListe);
+
+        assertThat(read(jsonFile).get(0).getTitle()).isEqualTo("Aus Snapshot");
+
+        final FileTime lastModified = Files.getLastModifiedTime(jsonFile);
+        Files.setLastModifiedTime(jsonFile, FileTime.fromMillis(lastModified.toMillis() + TimeUnit.MINUTES.toMillis(1)));
+        assertThat(FilmListSnapshot.isUpToDate(jsonFile)).isFalse();
+        assertThat(read(jsonFile).get(0).getTitle()).isEqualTo("Aus JSON");
+
+        // same modification time, but other size
+        Files.writeString(jsonFile, "\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(jsonFile, lastModified);
+        assertThat(FilmListSnapshot.isUpToDate(jsonFile)).isFalse();
+        assertThat(read(jsonFile).get(0).getTitle()).isEqualTo("Aus JSON");
+    }
+
+    private static long readMillis(Path jsonFile, ListeFilme target) {
+        final long start = System.nanoTime();
+        try (var reader = new FilmListReader()) {
+            reader.readFilmListe(jsonFile.toString(), target, 0);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Compare reading the binary snapshot against reading the JSON filmlist.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_snapshot_load(@TempDir Path tempDir) throws Exception {
+        final Path jsonFile = tempDir.resolve("filme.json");
+        final var liste = TestFilms.createFilmList(600_000);
+        new FilmListWriter(false).writeFilmList(jsonFile.toString(), liste, null);
+        new FilmListSnapshotWriter().writeSnapshot(jsonFile, liste);
+        assertThat(FilmListSnapshot.isUpToDate(jsonFile)).isTrue();
+        final Path snapshotFile = FilmListSnapshot.getSnapshotPath(jsonFile);
+        final Path hiddenSnapshot = tempDir.resolve("hidden.snapshot");
+
+        for (int run = 0; run < 3; run++) {
+            final var fromSnapshot = new ListeFilme();
+            final long snapshotMs = readMillis(jsonFile, fromSnapshot);
+
+            // without snapshot the reader falls back to JSON
+            Files.move(snapshotFile, hiddenSnapshot);
+            final var fromJson = new ListeFilme();
+            final long jsonMs = readMillis(jsonFile, fromJson);
+            Files.move(hiddenSnapshot, snapshotFile);
+
+            assertThat(fromSnapshot).hasSameSizeAs(fromJson);
+            logger.info("films: {}, JSON: {} ms ({} MB), snapshot: {} ms ({} MB)", fromJson.size(),
+                    jsonMs, Files.size(jsonFile) >> 20, snapshotMs, Files.size(snapshotFile) >> 20);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package mediathek.tool;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSizeProbeTest {
+    private static final long FILE_SIZE = 50L * FileSize.ONE_MiB;
+    private static final int LATENCY_MS = 200;
+    private final OkHttpClient client = new OkHttpClient();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        // slow server answering HEAD requests like a CDN
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException ignored) {
+            }
+            running.decrementAndGet();
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(FILE_SIZE));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing.mp4", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private String url(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name + ".mp4";
+    }
+
+    @Test
+    void probe_does_not_block_and_caches_result() {
+        final var probe = new FileSizeProbe(() -> client, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        final var url = url("film");
+
+        final long start = System.nanoTime();
+        final var first = probe.probe(url);
+        final var second = probe.probe(url);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(LATENCY_MS));
+        assertThat(probe.getCachedSize(url)).isEmpty();
+
+        assertThat(first.join()).isEqualTo(FILE_SIZE);
+        assertThat(second.join()).isEqualTo(FILE_SIZE);
+        assertThat(probe.getSize(url)).isEqualTo(FILE_SIZE);
+        assertThat(probe.getCachedSize(url)).hasValue(FILE_SIZE);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void limits_parallel_requests() {
+        final var probe = new FileSizeProbe(() -> client, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        final var futures = new ArrayList<CompletableFuture<Long>>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(probe.probe(url("film" + i)));
+        }
+
+        futures.forEach(f -> assertThat(f.join()).isEqualTo(FILE_SIZE));
+        assertThat(requests.get()).isEqualTo(8);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void expired_results_are_requested_again() throws InterruptedException {
+        final var probe = new FileSizeProbe(() -> client, 2, Duration.ofMillis(100), Duration.ofMillis(100));
+        final var url = url("film");
+
+        assertThat(probe.getSize(url)).isEqualTo(FILE_SIZE);
+        Thread.sleep(150);
+        assertThat(probe.getCachedSize(url)).isEmpty();
+        assertThat(probe.getSize(url)).isEqualTo(FILE_SIZE);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void unknown_sizes_are_kept_only_shortly() throws InterruptedException {
+        final var probe = new FileSizeProbe(() -> client, 2, Duration.ofMinutes(1), Duration.ofMillis(100));
+        final var url = url("missing");
+
+        assertThat(probe.probe(url).join()).isEqualTo((long) FileSize.INVALID_SIZE);
+        assertThat(probe.getCachedSize(url)).hasValue(FileSize.INVALID_SIZE);
+        assertThat(probe.probe(url).join()).isEqualTo((long) FileSize.INVALID_SIZE);
+        assertThat(requests.get()).isEqualTo(1);
+
+        Thread.sleep(150);
+        assertThat(probe.getCachedSize(url)).isEmpty();
+        assertThat(probe.probe(url).join()).isEqualTo((long) FileSize.INVALID_SIZE);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void blocking_request_retries_unknown_size() {
+        final var probe = new FileSizeProbe(() -> client, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        final var url = url("missing");
+
+        assertThat(probe.probe(url).join()).isEqualTo((long) FileSize.INVALID_SIZE);
+        assertThat(probe.getSize(url)).isEqualTo((long) FileSize.INVALID_SIZE);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void interactive_requests_skip_queued_background_requests() {
+        final var probe = new FileSizeProbe(() -> client, 1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        final var background = new ArrayList<CompletableFuture<Long>>();
+        for (int i = 0; i < 6; i++) {
+            background.add(probe.probe(url("film" + i)));
+        }
+
+        final long start = System.nanoTime();
+        final var dialog = probe.probeInteractive(url("dialog"));
+        // queued in the background lane, but requested at once
+        assertThat(probe.getSize(url("film5"))).isEqualTo(FILE_SIZE);
+        assertThat(dialog.join()).isEqualTo(FILE_SIZE);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(3L * LATENCY_MS));
+
+        background.forEach(f -> assertThat(f.join()).isEqualTo(FILE_SIZE));
+        // film5 is not requested a second time by the background lane
+        assertThat(requests.get()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,97 @@
+package mediathek.tool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GermanStringSorterTest {
+    private static final Logger logger = LogManager.getLogger();
+    private static final String[] THEMEN = {"Abendschau", "abendschau", "Ärger im Revier", "Arte Journal", "Öko-Test",
+            "Ostsee", "Zapp", "zdf.reportage", "Übermorgen", "Ufer", "ß-Test", "SS-Test", "Straße", "Strasse"};
+
+    private static List<String[]> createFilms(int count, int distinctThemen) {
+        final var senders = new String[]{"ARD", "ZDF", "3Sat", "arte.DE", "BR", "HR", "KiKA", "MDR", "NDR", "ORF", "SRF", "WDR"};
+        final var random = new Random(42);
+        final List<String[]> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int thema = random.nextInt(distinctThemen);
+            films.add(new String[]{senders[random.nextInt(senders.length)],
+                    thema < THEMEN.length ? THEMEN[thema] : "Thema " + thema});
+        }
+        return films;
+    }
+
+    @Test
+    void cached_keys_sort_like_collator() {
+        final var sorter = GermanStringSorter.getInstance();
+        final var expected = new ArrayList<>(List.of(THEMEN));
+        final var actual = new ArrayList<>(List.of(THEMEN));
+
+        expected.sort(sorter);
+        actual.sort(sorter::compareCached);
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(sorter.compare(expected.get(i), actual.get(i))).isZero();
+        }
+    }
+
+    @Test
+    void equal_strings_share_one_key() {
+        final var sorter = GermanStringSorter.getInstance();
+        // distinct instances like the ones created by the film list reader
+        final var first = new String("Tagesschau".toCharArray());
+        final var second = new String("Tagesschau".toCharArray());
+
+        final var key = sorter.getCachedKey(first);
+        assertThat(sorter.getCachedKey(second)).isSameAs(key);
+
+        sorter.clearKeyCache();
+        assertThat(sorter.getCachedKey(second)).isNotSameAs(key);
+        assertThat(sorter.getCachedKey(second).compareTo(key)).isZero();
+    }
+
+    /**
+     * Compare sorting by sender and thema with the collator and with cached keys.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_film_sort() {
+        final var sorter = GermanStringSorter.getInstance();
+        final var films = createFilms(600_000, 20_000);
+        final Comparator<String[]> collatorOrder = Comparator.<String[], String>comparing(f -> f[0], sorter)
+                .thenComparing(f -> f[1], sorter);
+        final Comparator<String[]> cachedOrder = (a, b) -> {
+            final int ret = sorter.compareCached(a[0], b[0]);
+            return ret != 0 ? ret : sorter.compareCached(a[1], b[1]);
+        };
+
+        for (int run = 0; run < 3; run++) {
+            var list = new ArrayList<>(films);
+            long start = System.nanoTime();
+            list.sort(collatorOrder);
+            final long collatorMs = (System.nanoTime() - start) / 1_000_000;
+
+            list = new ArrayList<>(films);
+            start = System.nanoTime();
+            list.sort(cachedOrder);
+            final long cachedMs = (System.nanoTime() - start) / 1_000_000;
+
+            list = new ArrayList<>(films);
+            start = System.nanoTime();
+            list.parallelStream().sorted(cachedOrder).toList();
+            final long parallelMs = (System.nanoTime() - start) / 1_000_000;
+
+            logger.info("collator: {} ms, cached keys: {} ms, cached keys parallel: {} ms",
+                    collatorMs, cachedMs, parallelMs);
+        }
+    }
+}
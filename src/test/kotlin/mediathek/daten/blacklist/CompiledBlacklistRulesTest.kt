@@ -0,0 +1,145 @@
+package mediathek.daten.blacklist
+
+import mediathek.daten.DatenFilm
+import mediathek.daten.TestFilms
+import mediathek.tool.Filter
+import org.apache.commons.lang3.StringUtils
+import org.apache.logging.log4j.LogManager
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty
+
+internal class CompiledBlacklistRulesTest {
+    private fun compile(vararg rules: BlacklistRule): CompiledBlacklistRules {
+        rules.forEach {
+            it.convertToLowerCase()
+            it.checkPatterns()
+        }
+        return CompiledBlacklistRules(rules.toList())
+    }
+
+    private fun film(sender: String, thema: String, title: String) = TestFilms.createFilm(sender, thema, title)
+
+    @Test
+    fun test_sender_and_thema_groups() {
+        val rules = compile(BlacklistRule("ZDF"), BlacklistRule("", "Tatort"))
+
+        assertTrue(rules.matches(film("ZDF", "Sport", "Fußball")))
+        assertFalse(rules.matches(film("zdf", "Sport", "Fußball")))
+        // thema is compared ignoring case
+        assertTrue(rules.matches(film("ARD", "TATORT", "Krimi")))
+        assertFalse(rules.matches(film("ARD", "Sport", "Krimi")))
+    }
+
+    @Test
+    fun test_substring_tokens() {
+        val rules = compile(
+            BlacklistRule("", "", "Krimi,Wetter"),
+            BlacklistRule("ARD", "", "", "sport")
+        )
+
+        assertTrue(rules.matches(film("ZDF", "Abend", "Der KRIMI am Abend")))
+        assertTrue(rules.matches(film("ZDF", "Abend", "Das Wetter")))
+        assertFalse(rules.matches(film("ZDF", "Sport", "Fußball")))
+        // thema_titel rules check thema and title
+        assertTrue(rules.matches(film("ARD", "Sportschau", "Fußball")))
+        assertTrue(rules.matches(film("ARD", "Abend", "Motorsport")))
+    }
+
+    @Test
+    fun test_title_and_thema_title_must_both_match() {
+        val rules = compile(BlacklistRule("", "", "krimi", "abend"))
+
+        assertTrue(rules.matches(film("ARD", "Abend", "Krimi")))
+        assertFalse(rules.matches(film("ARD", "Morgen", "Krimi")))
+        assertFalse(rules.matches(film("ARD", "Abend", "Sport")))
+    }
+
+    @Test
+    fun test_combined_patterns() {
+        val rules = compile(
+            BlacklistRule("", "", "#:.*trailer.*"),
+            BlacklistRule("", "", "#:teaser"),
+            BlacklistRule("", "", "#:(a)\\1.*")
+        )
+
+        assertTrue(rules.matches(film("ARD", "Kino", "Der neue Trailer")))
+        assertTrue(rules.matches(film("ARD", "Kino", "Teaser")))
+        // patterns must match the complete title
+        assertFalse(rules.matches(film("ARD", "Kino", "Teaser zum Film")))
+        assertTrue(rules.matches(film("ARD", "Kino", "aa")))
+        assertFalse(rules.matches(film("ARD", "Kino", "ab")))
+    }
+
+    @Test
+    fun test_empty_rule_matches_everything() {
+        val rules = compile(BlacklistRule("ARD"))
+
+        assertTrue(rules.matches(film("ARD", "", "")))
+        assertFalse(rules.matches(film("ZDF", "", "")))
+    }
+
+    /**
+     * The rule by rule evaluation which was used before the rules were compiled.
+     */
+    private fun legacyMatches(rules: List<BlacklistRule>, film: DatenFilm): Boolean {
+        fun split(isPattern: Boolean, input: String): Array<String> {
+            if (isPattern)
+                return arrayOf(input)
+            val parts = StringUtils.split(input, ',')
+            return if (parts.isEmpty()) arrayOf("") else parts
+        }
+
+        return rules.any { rule ->
+            val title = split(rule.hasTitlePattern(), rule.titel)
+            val themaTitle = split(rule.hasThemaPattern(), rule.thema_titel)
+            (rule.sender.isEmpty() || film.sender == rule.sender)
+                    && (rule.thema.isEmpty() || film.thema.equals(rule.thema, ignoreCase = true))
+                    && Filter.pruefen(title, film.title)
+                    && (Filter.pruefen(themaTitle, film.thema) || Filter.pruefen(themaTitle, film.title))
+        }
+    }
+
+    /**
+     * Compare compiled and rule by rule evaluation of a large rule set.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    fun benchmark_rule_evaluation() {
+        val senders = listOf("ARD", "ZDF", "3Sat", "arte.de", "NDR", "WDR")
+        val ruleList = ArrayList<BlacklistRule>()
+        for (i in 0 until 2_000) {
+            ruleList += when (i % 4) {
+                0 -> BlacklistRule("", "", "wort$i")
+                1 -> BlacklistRule(senders[i % senders.size], "", "", "begriff$i,anderer$i")
+                2 -> BlacklistRule("", "Thema ${i % 500}", "folge $i")
+                else -> BlacklistRule("", "", "#:.*muster$i.*")
+            }
+        }
+        val rules = compile(*ruleList.toTypedArray())
+        val films = (0 until 100_000).map {
+            film(senders[it % senders.size], "Thema ${it % 5_000}", "Folge ${it % 3_000} mit wort${it % 7_000}")
+        }
+
+        repeat(3) {
+            var start = System.nanoTime()
+            val legacy = films.count { legacyMatches(ruleList, it) }
+            val legacyMs = (System.nanoTime() - start) / 1_000_000
+
+            start = System.nanoTime()
+            val compiled = films.count { rules.matches(it) }
+            val compiledMs = (System.nanoTime() - start) / 1_000_000
+
+            assertEquals(legacy, compiled)
+            logger.info("rules: {}, films: {}, matches: {}, legacy: {} ms, compiled: {} ms",
+                ruleList.size, films.size, compiled, legacyMs, compiledMs)
+        }
+    }
+
+    companion object {
+        private val logger = LogManager.getLogger()
+    }
+}
@@ -0,0 +1,68 @@
+package mediathek.daten.blacklist
+
+import mediathek.daten.DatenFilm
+import mediathek.daten.ListeFilme
+import mediathek.tool.datum.DatumFilm
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.*
+
+internal class ListeBlacklistTest {
+    private val now = System.currentTimeMillis()
+    private val day = 86_400_000L
+
+    private fun createFilms(): ListeFilme {
+        val random = Random(42)
+        val liste = ListeFilme()
+        repeat(5_000) {
+            val film = DatenFilm()
+            film.sender = "ARD"
+            film.title = "Film $it"
+            val datum = when (random.nextInt(10)) {
+                0 -> DatumFilm.UNDEFINED_FILM_DATE
+                1 -> DatumFilm(0L)
+                2 -> DatumFilm(now + random.nextInt(30) * day)
+                else -> DatumFilm(now - random.nextInt(60) * day)
+            }
+            val length = if (random.nextInt(10) == 0) 0L else random.nextInt(7_200).toLong()
+            film.init("", length.toInt(), length, 0, datum)
+            film.isLivestream = random.nextInt(20) == 0
+            liste.add(film)
+        }
+        return liste
+    }
+
+    /**
+     * The per film date, future and length checks which were used before the column store.
+     */
+    private fun legacyAccepts(film: DatenFilm, lowerBoundary: Long, checkFuture: Boolean, minLength: Long): Boolean {
+        val filmTime = film.datumFilm.time
+        if (lowerBoundary != 0L && !film.isLivestream && !(filmTime == 0L || filmTime >= lowerBoundary))
+            return false
+        if (checkFuture && filmTime > now)
+            return false
+        val filmLength = film.filmLength
+        return minLength == 0L || !(filmLength != 0L && minLength > filmLength)
+    }
+
+    @Test
+    fun test_column_predicate_matches_film_checks() {
+        val liste = createFilms()
+        val store = liste.columnStore
+
+        for (lowerBoundary in listOf(0L, now - 7 * day, now - 30 * day)) {
+            for (checkFuture in listOf(false, true)) {
+                for (minLength in listOf(0L, 600L, 3_600L)) {
+                    val predicate = ListeBlacklist.createColumnPredicate(store, lowerBoundary, checkFuture, minLength, now)
+                    for (index in 0 until store.size()) {
+                        assertEquals(
+                            legacyAccepts(liste[index], lowerBoundary, checkFuture, minLength),
+                            predicate.test(index),
+                            "film $index, boundary $lowerBoundary, future $checkFuture, length $minLength"
+                        )
+                    }
+                }
+            }
+        }
+    }
+}